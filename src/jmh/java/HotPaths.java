@@ -0,0 +1,166 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+/**
+ * The hot-path workloads measured by the JMH benchmarks in campus.bench.
+ * Description:
+ *  - JMH only accepts benchmark classes in a named package, and those cannot
+ *    see the modules' default-package classes, so each benchmark's @Setup
+ *    asks this class for its workload by name (see campus.bench.Workloads)
+ *  - workload() builds the synthetic dataset for one size and returns the
+ *    operation; the argument counts calls so inputs can vary, and the
+ *    result is returned to JMH so the JIT cannot drop the work
+ *  - Covered: course search and duplicate-code check, grade lookup, student
+ *    ID lookup, book search / ID / title lookup, the week view and the full
+ *    sorted event list, the events.csv line format both ways, and the cost
+ *    of recording one operation in Metrics
+ */
+public class HotPaths {
+
+    private static final String[] GRADES = {"A", "A-", "B+", "B", "b-", "C+", "C", "D", "F", "3.7", "Z"};
+    private static final String[] WORDS = {"data", "systems", "history", "design", "physics", "networks", "ethics",
+            "algebra", "poetry", "biology", "finance", "robotics"};
+    private static final int POOL = 1024; // inputs cycled through per benchmark
+
+    /** The named workload over {@code size} synthetic records (ignored by size-independent workloads). */
+    public static IntToLongFunction workload(String name, int size) {
+        return switch (name) {
+            // FacultySystem keeps its courses in static state, so sizes are reached by topping up.
+            case "FacultySystem.findCourses" -> {
+                topUpCourses(size);
+                String[] queries = new String[POOL];
+                Random rnd = new Random(1);
+                for (int i = 0; i < POOL; i++) {
+                    queries[i] = switch (i % 3) {
+                        case 0 -> "dept" + rnd.nextInt(10);
+                        case 1 -> "lecturer " + rnd.nextInt(size);
+                        default -> "c" + rnd.nextInt(size);
+                    };
+                }
+                yield i -> FacultySystem.findCourses(queries[i & (POOL - 1)]).size();
+            }
+            case "FacultySystem.codeTaken" -> {
+                topUpCourses(size);
+                String[] codes = new String[POOL];
+                Random rnd = new Random(2);
+                for (int i = 0; i < POOL; i++) codes[i] = courseCode(rnd.nextInt(size * 2)).toLowerCase(); // about half are free
+                yield i -> FacultySystem.codeTaken(codes[i & (POOL - 1)]) ? 1 : 0;
+            }
+
+            case "GPACalculator.gradeToPoints" -> i -> (long) GradeTable.points(GRADES[i % GRADES.length]);
+            case "GPACalculator.idIsUnique" -> {
+                StudentStore store = new StudentStore();
+                for (int i = 0; i < size; i++) store.add(new Student("S" + i, "Student " + i, WORDS[i % WORDS.length]));
+                String[] ids = new String[POOL];
+                Random rnd = new Random(3);
+                for (int i = 0; i < POOL; i++) ids[i] = "S" + rnd.nextInt(size * 2); // about half are free
+                yield i -> store.contains(ids[i & (POOL - 1)]) ? 1 : 0;
+            }
+
+            case "LibraryModule.searchBooks" -> {
+                CirculationService c = catalog(size);
+                String[] queries = new String[POOL];
+                Random rnd = new Random(4);
+                for (int i = 0; i < POOL; i++) {
+                    String w = WORDS[rnd.nextInt(WORDS.length)];
+                    queries[i] = i % 2 == 0 ? w : w + " " + WORDS[rnd.nextInt(WORDS.length)].substring(0, 3);
+                }
+                yield i -> c.search(queries[i & (POOL - 1)], 10).size();
+            }
+            case "LibraryModule.findBookById" -> {
+                CirculationService c = catalog(size);
+                yield i -> c.byId(1 + (int) ((i * 2654435761L & 0x7fffffffL) % size)).getId();
+            }
+            case "LibraryModule.findBookByTitle" -> {
+                CirculationService c = catalog(size);
+                String[] titles = new String[POOL];
+                Random rnd = new Random(5);
+                for (int i = 0; i < POOL; i++) titles[i] = bookTitle(rnd.nextInt(size)).toUpperCase();
+                yield i -> c.byTitle(titles[i & (POOL - 1)]).size();
+            }
+
+            case "Utility.viewEvents.week" -> {
+                EventIndex index = new EventIndex();
+                index.addAll(events(size));
+                LocalDate base = LocalDate.of(2026, 1, 1);
+                yield i -> index.between(base.plusDays(i % 365), base.plusDays(i % 365 + 6)).size();
+            }
+            case "Utility.viewEvents.all" -> {
+                EventIndex index = new EventIndex();
+                index.addAll(events(size));
+                yield i -> index.all().size();
+            }
+            case "Utility.viewEvents.sortList" -> {
+                // The list-and-sort view the index replaced, kept as the baseline.
+                List<Event> events = events(size);
+                Comparator<Event> order = Comparator.comparing((Event e) -> e.date).thenComparingInt(e -> e.minute);
+                yield i -> {
+                    List<Event> copy = new ArrayList<>(events);
+                    copy.sort(order);
+                    return copy.size();
+                };
+            }
+
+            case "Metrics.record" -> i -> {
+                Metrics.record(Metrics.Op.CALC_EVAL, System.nanoTime());
+                return i;
+            };
+            case "Event.toCsv" -> {
+                List<Event> events = events(POOL);
+                yield i -> events.get(i & (POOL - 1)).toCsv().length();
+            }
+            case "Event.fromCsv" -> {
+                String[] lines = events(POOL).stream().map(Event::toCsv).toArray(String[]::new);
+                yield i -> Event.fromCsv(lines[i & (POOL - 1)]).minute;
+            }
+            default -> throw new IllegalArgumentException("Unknown workload " + name);
+        };
+    }
+
+    // ------------------- Synthetic Data -------------------
+    private static String courseCode(int n) {
+        return "C" + n;
+    }
+
+    private static void topUpCourses(int size) {
+        for (int n = FacultySystem.courseCount(); n < size; n++) {
+            FacultySystem.storeCourse(new FacultySystem.Course(courseCode(n),
+                    WORDS[n % WORDS.length] + " " + n, "Lecturer " + n + " Dept" + n % 10));
+        }
+    }
+
+    private static String bookTitle(int n) {
+        return WORDS[n % WORDS.length] + " and " + WORDS[n / WORDS.length % WORDS.length] + " " + n;
+    }
+
+    private static CirculationService catalog;
+    private static int catalogSize;
+
+    /** The library workloads share one catalog per size; only the latest is kept alive. */
+    private static CirculationService catalog(int size) {
+        if (catalog == null || catalogSize != size) {
+            catalog = null;
+            CirculationService c = new CirculationService();
+            for (int i = 0; i < size; i++) c.addBook(bookTitle(i), "Author " + i % 997);
+            catalog = c;
+            catalogSize = size;
+        }
+        return catalog;
+    }
+
+    private static List<Event> events(int size) {
+        Random rnd = new Random(6);
+        String[] times = {"9AM", "10:30", "12PM", "2PM", "14:00", "4:15 pm", "6PM", "noon"};
+        LocalDate base = LocalDate.of(2026, 1, 1);
+        List<Event> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Event(base.plusDays(rnd.nextInt(365)), times[rnd.nextInt(times.length)],
+                    "Event " + i, i % 3 == 0 ? 60 : 0, i % 2 == 0 ? "Room " + i % 40 : ""));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,59 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the change between two JMH JSON result files (gradle jmh writes
+ * build/results/jmh/results.json), so runs from two releases can be diffed.
+ * Description:
+ *  - Benchmarks are matched by name and parameters
+ *  - '*' marks a change larger than both runs' 99.9% confidence errors
+ *
+ * Usage: JmhCompare base.json new.json   (or gradle jmhCompare -Pbase=... -Pnew=...)
+ */
+public class JmhCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: JmhCompare base.json new.json");
+            return;
+        }
+        Map<String, double[]> base = scores(Paths.get(args[0])), next = scores(Paths.get(args[1]));
+        System.out.printf("%-58s %12s %12s %9s%n", "benchmark", "base", "new", "change");
+        for (Map.Entry<String, double[]> e : next.entrySet()) {
+            double[] b = base.get(e.getKey()), n = e.getValue();
+            if (b == null) {
+                System.out.printf("%-58s %12s %12.1f %9s%n", e.getKey(), "-", n[0], "new");
+                continue;
+            }
+            double change = (n[0] - b[0]) / b[0] * 100;
+            boolean significant = Math.abs(n[0] - b[0]) > (Double.isNaN(b[1]) ? 0 : b[1]) + (Double.isNaN(n[1]) ? 0 : n[1]);
+            System.out.printf("%-58s %12.1f %12.1f %+8.1f%%%s%n", e.getKey(), b[0], n[0], change, significant ? " *" : "");
+        }
+    }
+
+    /** "benchmark [params]" -> {score, error}, in file order. */
+    private static Map<String, double[]> scores(Path file) throws IOException {
+        Map<String, double[]> out = new LinkedHashMap<>();
+        if (!(Json.parse(Files.readString(file, StandardCharsets.UTF_8)) instanceof List<?> list)) {
+            throw new IOException(file + " is not a JMH result file");
+        }
+        for (Object o : list) {
+            Map<?, ?> entry = (Map<?, ?>) o;
+            Map<?, ?> metric = (Map<?, ?>) entry.get("primaryMetric");
+            String key = entry.get("benchmark") + (entry.get("params") instanceof Map<?, ?> p ? " " + p.values() : "");
+            out.put(key, new double[]{number(metric.get("score")), number(metric.get("scoreError"))});
+        }
+        return out;
+    }
+
+    /** JMH writes "NaN" as a string when there are too few iterations for an error. */
+    private static double number(Object o) {
+        return o instanceof Number n ? n.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,49 @@
+package campus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/** Course search and the duplicate-code check (a hash lookup since the code index replaced the scan). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class CourseBenchmarks {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private IntToLongFunction findCourses;
+    private IntToLongFunction codeTaken;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        findCourses = Workloads.get("FacultySystem.findCourses", size);
+        codeTaken = Workloads.get("FacultySystem.codeTaken", size);
+    }
+
+    @Benchmark
+    public long findCourses() {
+        return findCourses.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long codeTaken() {
+        return codeTaken.applyAsLong(i++);
+    }
+}
@@ -0,0 +1,56 @@
+package campus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/** The calendar views from the EventIndex, against the list-and-sort view it replaced. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class EventBenchmarks {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private IntToLongFunction viewWeek;
+    private IntToLongFunction viewAll;
+    private IntToLongFunction sortList;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        viewWeek = Workloads.get("Utility.viewEvents.week", size);
+        viewAll = Workloads.get("Utility.viewEvents.all", size);
+        sortList = Workloads.get("Utility.viewEvents.sortList", size);
+    }
+
+    @Benchmark
+    public long viewWeek() {
+        return viewWeek.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long viewAll() {
+        return viewAll.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long sortList() {
+        return sortList.applyAsLong(i++);
+    }
+}
@@ -0,0 +1,56 @@
+package campus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/** Book search and lookup by ID and by title. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class LibraryBenchmarks {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private IntToLongFunction searchBooks;
+    private IntToLongFunction findBookById;
+    private IntToLongFunction findBookByTitle;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        searchBooks = Workloads.get("LibraryModule.searchBooks", size);
+        findBookById = Workloads.get("LibraryModule.findBookById", size);
+        findBookByTitle = Workloads.get("LibraryModule.findBookByTitle", size);
+    }
+
+    @Benchmark
+    public long searchBooks() {
+        return searchBooks.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long findBookById() {
+        return findBookById.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long findBookByTitle() {
+        return findBookByTitle.applyAsLong(i++);
+    }
+}
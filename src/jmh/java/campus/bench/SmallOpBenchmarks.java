@@ -0,0 +1,59 @@
+package campus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/** Size-independent operations: grade lookup, the events.csv line format both ways, and Metrics.record. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SmallOpBenchmarks {
+
+    private IntToLongFunction gradeToPoints;
+    private IntToLongFunction eventToCsv;
+    private IntToLongFunction eventFromCsv;
+    private IntToLongFunction metricsRecord;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        gradeToPoints = Workloads.get("GPACalculator.gradeToPoints", 0);
+        eventToCsv = Workloads.get("Event.toCsv", 0);
+        eventFromCsv = Workloads.get("Event.fromCsv", 0);
+        metricsRecord = Workloads.get("Metrics.record", 0);
+    }
+
+    @Benchmark
+    public long gradeToPoints() {
+        return gradeToPoints.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long eventToCsv() {
+        return eventToCsv.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long eventFromCsv() {
+        return eventFromCsv.applyAsLong(i++);
+    }
+
+    @Benchmark
+    public long metricsRecord() {
+        return metricsRecord.applyAsLong(i++);
+    }
+}
@@ -0,0 +1,42 @@
+package campus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/** Student ID lookup in the StudentStore hash table. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 300, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class StudentBenchmarks {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private IntToLongFunction idIsUnique;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        idIsUnique = Workloads.get("GPACalculator.idIsUnique", size);
+    }
+
+    @Benchmark
+    public long idIsUnique() {
+        return idIsUnique.applyAsLong(i++);
+    }
+}
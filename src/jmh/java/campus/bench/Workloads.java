@@ -0,0 +1,25 @@
+package campus.bench;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Looks up a workload from the default-package HotPaths catalogue.
+ * Java code in a named package cannot import default-package classes, so
+ * the lookup is reflective; it runs once per trial in @Setup, never in the
+ * measured loop.
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    static IntToLongFunction get(String name, int size) {
+        try {
+            return (IntToLongFunction) Class.forName("HotPaths")
+                    .getMethod("workload", String.class, int.class)
+                    .invoke(null, name, size);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load workload " + name, e);
+        }
+    }
+}
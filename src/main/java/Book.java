@@ -0,0 +1,39 @@
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+class Book {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final int id;
+    private String title;
+    private final int author; // StringPool.AUTHORS code
+    private final String titleKey;
+    // Issue state lives in the catalog's availability bitmap, not on the book.
+    private final CirculationService catalog;
+
+    /** IDs are assigned by CirculationService so they stay dense per catalog. */
+    Book(CirculationService catalog, int id, String title, String author) {
+        this.catalog = catalog;
+        this.id = id;
+        this.title = title.trim();
+        this.author = StringPool.AUTHORS.code(author.trim());
+        this.titleKey = normalizeTitle(this.title);
+    }
+
+    /** Lower-cased, trimmed, single-spaced form used to look titles up. */
+    static String normalizeTitle(String title) {
+        return WHITESPACE.matcher(title.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    public int getId() { return id; }
+    public String getTitle() { return title; }
+    public String getTitleKey() { return titleKey; }
+    public String getAuthor() { return StringPool.AUTHORS.value(author); }
+    public boolean isIssued() { return !catalog.isAvailable(id); }
+
+    @Override
+    public String toString() {
+        return String.format("#%d | %s — %s %s",
+                id, title, getAuthor(), isIssued() ? "[Issued]" : "[Available]");
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Latency check for the ranked book search on a synthetic catalog.
+ * Builds N titles (default 2M) from a Zipf-distributed vocabulary, then runs
+ * realistic queries (1-3 words from an existing title, the last one often a
+ * partial word) and prints p50 / p99 / max latency, plus the old linear
+ * contains() scan for comparison. Use -Xmx3g for the full 2M catalog.
+ *
+ * Usage: BookSearchBenchmark [titles] [queries]
+ */
+public class BookSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ren", "sta", "vo", "ul", "tri", "dan", "qu",
+            "pe", "zor", "an", "bel", "cor", "dia", "el", "fin", "gra", "hal"};
+    private static final int VOCABULARY = 50_000;
+    private static final int TOP_K = 10;
+
+    public static void main(String[] args) {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        Random rnd = new Random(11);
+
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) words[i] = word(i);
+        double[] zipf = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) zipf[i] = sum += 1.0 / (i + 1);
+
+        CirculationService catalog = new CirculationService();
+        String[] titleText = new String[titles];
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < titles; i++) {
+            StringBuilder t = new StringBuilder();
+            int len = 2 + rnd.nextInt(5);
+            for (int w = 0; w < len; w++) {
+                if (w > 0) t.append(' ');
+                t.append(words[pick(zipf, rnd)]);
+            }
+            titleText[i] = t.toString();
+            catalog.addBook(titleText[i], capitalize(words[rnd.nextInt(2_000)]) + " " + capitalize(words[rnd.nextInt(2_000)]));
+        }
+        System.out.printf("Indexed %,d books in %.1f s%n", titles, (System.nanoTime() - buildStart) / 1e9);
+
+        String[] qs = new String[queries];
+        boolean[] partial = new boolean[queries];
+        for (int i = 0; i < queries; i++) {
+            String[] parts = titleText[rnd.nextInt(titles)].split(" ");
+            int n = 1 + rnd.nextInt(Math.min(3, parts.length));
+            int from = rnd.nextInt(parts.length - n + 1);
+            StringBuilder q = new StringBuilder();
+            for (int w = 0; w < n; w++) {
+                String part = parts[from + w];
+                if (w == n - 1 && rnd.nextBoolean() && part.length() > 3) {
+                    part = part.substring(0, 3 + rnd.nextInt(part.length() - 3));
+                    partial[i] = true;
+                }
+                if (w > 0) q.append(' ');
+                q.append(part);
+            }
+            qs[i] = q.toString();
+        }
+
+        for (int i = 0; i < Math.min(2_000, queries); i++) catalog.search(qs[i], TOP_K); // warm-up
+        long[] latency = new long[queries];
+        long[] whole = new long[queries], prefix = new long[queries];
+        int wholeCount = 0, prefixCount = 0;
+        for (int i = 0; i < queries; i++) {
+            long t0 = System.nanoTime();
+            catalog.search(qs[i], TOP_K);
+            latency[i] = System.nanoTime() - t0;
+            if (partial[i]) prefix[prefixCount++] = latency[i];
+            else whole[wholeCount++] = latency[i];
+        }
+        report("All queries", latency, queries);
+        report("Whole words", whole, wholeCount);
+        report("Partial last word", prefix, prefixCount);
+
+        List<Book> all = catalog.all();
+        long scanStart = System.nanoTime();
+        int scans = 20;
+        for (int i = 0; i < scans; i++) {
+            String q = qs[i].toLowerCase();
+            int hits = 0;
+            for (Book b : all) {
+                if (b.getTitle().toLowerCase().contains(q) || b.getAuthor().toLowerCase().contains(q)) hits++;
+            }
+            if (hits < 0) System.out.println();
+        }
+        System.out.printf("Linear contains() scan: %.1f ms per query%n", (System.nanoTime() - scanStart) / 1e6 / scans);
+        System.out.println("Sample: \"" + qs[0] + "\" -> " + catalog.search(qs[0], 3));
+    }
+
+    private static void report(String label, long[] latency, int n) {
+        if (n == 0) return;
+        long[] sorted = Arrays.copyOf(latency, n);
+        Arrays.sort(sorted);
+        System.out.printf("%-18s (top %d, %,6d queries): p50 %.3f ms | p99 %.3f ms | max %.3f ms%n",
+                label, TOP_K, n, sorted[n / 2] / 1e6, sorted[(int) (n * 0.99)] / 1e6, sorted[n - 1] / 1e6);
+    }
+
+    private static String word(int i) {
+        StringBuilder sb = new StringBuilder();
+        int n = i;
+        do {
+            sb.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        return sb.toString();
+    }
+
+    private static int pick(double[] cumulative, Random rnd) {
+        double x = rnd.nextDouble() * cumulative[cumulative.length - 1];
+        int i = Arrays.binarySearch(cumulative, x);
+        return i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1);
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+}
@@ -0,0 +1,487 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranked full-text search over book titles and authors (Library Module).
+ * Description:
+ *  - Titles and authors are split into lower-case letter/digit tokens and
+ *    stored in an inverted index (term -> documents + term frequencies);
+ *    title tokens count twice so title hits outrank author hits
+ *  - Every term is also kept in a character trie whose nodes remember the
+ *    highest document frequency below them, so prefix completion returns
+ *    the most common completions without visiting the whole subtree
+ *  - Queries score documents with BM25 document-at-a-time and keep only
+ *    the best k in a small heap; the candidate set is never sorted
+ *  - MaxScore pruning: once the heap is full, terms whose combined best
+ *    possible score cannot beat the k-th hit only get probed for documents
+ *    found through the other terms; when a single list is left, posting
+ *    blocks (64 entries) whose stored max term frequency / min length
+ *    cannot beat it are skipped
+ *  - "Did you mean" corrections come from a FuzzyIndex over the terms,
+ *    weighted by document frequency; it is built on the first request and
+ *    kept up to date by later adds
+ *
+ * The last query token is treated as a prefix (once it has at least
+ * MIN_PREFIX characters) so partially typed words still match. Documents are numbered 0, 1, 2, ... in insertion order.
+ * Adds take a write lock; searches share a read lock.
+ */
+class BookSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int PREFIX_EXPANSIONS = 16;
+    // Shorter prefixes would expand into the most common words and match most of the catalog.
+    private static final int MIN_PREFIX = 3;
+    private static final int BLOCK_SHIFT = 6;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private final TrieNode trie = new TrieNode();
+    private int[] docLength = new int[1024];
+    private int docs;
+    private long totalLength;
+    private volatile FuzzyIndex fuzzy; // null until didYouMean() is first used
+
+    /** Indexes one book and returns its document number. */
+    int add(String title, String author) {
+        Map<String, Integer> tf = new HashMap<>();
+        int length = 0;
+        for (String t : tokenize(title)) {
+            tf.merge(t, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String t : tokenize(author)) {
+            tf.merge(t, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int doc = docs++;
+            if (doc == docLength.length) docLength = Arrays.copyOf(docLength, doc * 2);
+            docLength[doc] = length;
+            totalLength += length;
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                int term = termId(e.getKey());
+                Postings p = postings.get(term);
+                p.add(doc, e.getValue(), length);
+                trie.raiseMaxDf(e.getKey(), p.size);
+                if (fuzzy != null) fuzzy.add(e.getKey(), 1);
+            }
+            return doc;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Best {@code k} documents for the query, highest BM25 score first. */
+    int[] search(String query, int k) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || k <= 0) return new int[0];
+
+        lock.readLock().lock();
+        try {
+            List<Integer> queryTerms = new ArrayList<>();
+            String last = tokens.get(tokens.size() - 1);
+            int exact = last.length() < MIN_PREFIX ? tokens.size() : tokens.size() - 1;
+            for (int i = 0; i < exact; i++) {
+                Integer id = termIds.get(tokens.get(i));
+                if (id != null) queryTerms.add(id);
+            }
+            if (exact < tokens.size()) {
+                for (String completion : trie.complete(last, PREFIX_EXPANSIONS, this)) {
+                    queryTerms.add(termIds.get(completion));
+                }
+            }
+            if (queryTerms.isEmpty()) return new int[0];
+
+            float avgLength = (float) totalLength / docs;
+            Cursor[] cursors = new Cursor[queryTerms.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                Postings p = postings.get(queryTerms.get(i));
+                float idf = (float) Math.log(1 + (docs - p.size + 0.5) / (p.size + 0.5));
+                cursors[i] = new Cursor(p, idf, avgLength);
+            }
+            return maxScore(cursors, new TopK(k));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cursors are ordered by their upper bound. Those in [0, firstEssential)
+     * are "non-essential": together they cannot lift a document past the
+     * current k-th score, so they never produce candidates themselves.
+     */
+    private int[] maxScore(Cursor[] cursors, TopK top) {
+        Arrays.sort(cursors, (a, b) -> Float.compare(a.maxScore, b.maxScore));
+        int n = cursors.length;
+        float[] boundSum = new float[n]; // boundSum[i] = sum of maxScore over cursors 0..i
+        for (int i = 0; i < n; i++) boundSum[i] = cursors[i].maxScore + (i > 0 ? boundSum[i - 1] : 0);
+
+        int firstEssential = 0;
+        while (firstEssential < n) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < n; i++) doc = Math.min(doc, cursors[i].doc());
+            if (doc == Integer.MAX_VALUE) break;
+
+            float nonEssential = firstEssential > 0 ? boundSum[firstEssential - 1] : 0;
+            if (firstEssential == n - 1) {
+                // One essential list left: skip whole blocks that cannot reach the heap.
+                Cursor c = cursors[n - 1];
+                if (c.blockBound() + nonEssential <= top.threshold()) {
+                    c.skipBlock();
+                    continue;
+                }
+            }
+
+            float score = 0;
+            for (int i = firstEssential; i < n; i++) {
+                Cursor c = cursors[i];
+                if (c.doc() == doc) {
+                    score += c.score(docLength[doc]);
+                    c.next();
+                }
+            }
+            for (int i = firstEssential - 1; i >= 0 && score > 0; i--) {
+                if (score + boundSum[i] <= top.threshold()) score = 0;
+                else if (cursors[i].advance(doc) == doc) score += cursors[i].score(docLength[doc]);
+            }
+
+            if (score > 0 && top.offer(doc, score)) {
+                while (firstEssential < n && boundSum[firstEssential] <= top.threshold()) firstEssential++;
+            }
+        }
+        return top.sorted();
+    }
+
+    /** Up to {@code k} indexed terms starting with the prefix, most frequent first. */
+    List<String> complete(String prefix, int k) {
+        List<String> tokens = tokenize(prefix);
+        if (tokens.isEmpty()) return List.of();
+        lock.readLock().lock();
+        try {
+            return trie.complete(tokens.get(tokens.size() - 1), k, this);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code k} corrected queries for one that found nothing: words
+     * that are not indexed are replaced by indexed words within two typos.
+     */
+    List<String> didYouMean(String query, int k) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+        FuzzyIndex f = fuzzyIndex();
+        lock.readLock().lock();
+        try {
+            return f.suggest(tokens, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FuzzyIndex fuzzyIndex() {
+        FuzzyIndex f = fuzzy;
+        if (f != null) return f;
+        lock.writeLock().lock();
+        try {
+            if (fuzzy == null) {
+                FuzzyIndex.Builder builder = new FuzzyIndex.Builder();
+                for (int t = 0; t < terms.size(); t++) builder.add(terms.get(t), df(t));
+                fuzzy = builder.build();
+            }
+            return fuzzy;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        return docs;
+    }
+
+    /** Lower-case runs of letters and digits. */
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0) {
+                out.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        return out;
+    }
+
+    // ------------------- Helpers -------------------
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = terms.size();
+            termIds.put(term, id);
+            terms.add(term);
+            postings.add(new Postings());
+            trie.insert(term, id);
+        }
+        return id;
+    }
+
+    private int df(int term) {
+        return postings.get(term).size;
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        short[] freqs = new short[2];
+        int size;
+        int maxFreq;
+        int minLength = Integer.MAX_VALUE;
+        // Per block of 2^BLOCK_SHIFT postings, for block-max skipping.
+        short[] blockMaxFreq = new short[1];
+        int[] blockMinLength = {Integer.MAX_VALUE};
+
+        void add(int doc, int freq, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            short f = (short) Math.min(freq, Short.MAX_VALUE);
+            int block = size >>> BLOCK_SHIFT;
+            if (block == blockMaxFreq.length) {
+                blockMaxFreq = Arrays.copyOf(blockMaxFreq, block * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, block * 2);
+                Arrays.fill(blockMinLength, block, block * 2, Integer.MAX_VALUE);
+            }
+            blockMaxFreq[block] = (short) Math.max(blockMaxFreq[block], f);
+            blockMinLength[block] = Math.min(blockMinLength[block], length);
+            maxFreq = Math.max(maxFreq, f);
+            minLength = Math.min(minLength, length);
+            docs[size] = doc;
+            freqs[size] = f;
+            size++;
+        }
+    }
+
+    // ------------------- Query Evaluation -------------------
+    /** Walks one posting list in document order and scores its entries with BM25. */
+    private static final class Cursor {
+        final Postings p;
+        final float idf;
+        final float avgLength;
+        final float maxScore; // no document can get more than this from this term
+        int pos;
+
+        Cursor(Postings p, float idf, float avgLength) {
+            this.p = p;
+            this.idf = idf;
+            this.avgLength = avgLength;
+            this.maxScore = bm25(p.maxFreq, p.minLength);
+        }
+
+        int doc() {
+            return pos < p.size ? p.docs[pos] : Integer.MAX_VALUE;
+        }
+
+        void next() {
+            pos++;
+        }
+
+        float score(int length) {
+            return bm25(p.freqs[pos], length);
+        }
+
+        float blockBound() {
+            int block = pos >>> BLOCK_SHIFT;
+            return bm25(p.blockMaxFreq[block], p.blockMinLength[block]);
+        }
+
+        void skipBlock() {
+            pos = ((pos >>> BLOCK_SHIFT) + 1) << BLOCK_SHIFT;
+        }
+
+        /** Moves to the first entry with doc >= target (galloping search) and returns its doc. */
+        int advance(int target) {
+            if (doc() >= target) return doc();
+            int lo = pos, step = 1, hi = pos + 1;
+            while (hi < p.size && p.docs[hi] < target) {
+                lo = hi;
+                step <<= 1;
+                hi = pos + step;
+            }
+            hi = Math.min(hi, p.size);
+            int i = Arrays.binarySearch(p.docs, lo, hi, target);
+            pos = i >= 0 ? i : -i - 1;
+            return doc();
+        }
+
+        private float bm25(float tf, int length) {
+            float norm = K1 * (1 - B + B * length / avgLength);
+            return idf * tf * (K1 + 1) / (tf + norm);
+        }
+    }
+
+    /** Min-heap of the best k (doc, score) pairs; the root is the weakest hit. */
+    private static final class TopK {
+        final int[] docs;
+        final float[] scores;
+        int size;
+
+        TopK(int k) {
+            docs = new int[k];
+            scores = new float[k];
+        }
+
+        /** Score a new document must beat; -infinity until the heap is full. */
+        float threshold() {
+            return size < docs.length ? Float.NEGATIVE_INFINITY : scores[0];
+        }
+
+        /**
+         * Offers a hit. Documents arrive in increasing order, so on equal
+         * scores the one already kept (the earlier document) wins.
+         * Returns true when the threshold may have changed.
+         */
+        boolean offer(int doc, float score) {
+            if (size < docs.length) {
+                int i = size++;
+                docs[i] = doc;
+                scores[i] = score;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!weaker(i, parent)) break;
+                    swap(i, parent);
+                    i = parent;
+                }
+                return size == docs.length;
+            }
+            if (score <= scores[0]) return false;
+            docs[0] = doc;
+            scores[0] = score;
+            siftDown(size);
+            return true;
+        }
+
+        /** Hits best first; ties keep the earlier document first. */
+        int[] sorted() {
+            int[] out = new int[size];
+            for (int end = size - 1; end >= 0; end--) {
+                out[end] = docs[0];
+                swap(0, end);
+                siftDown(end);
+            }
+            return out;
+        }
+
+        private boolean weaker(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && docs[a] > docs[b]);
+        }
+
+        private void siftDown(int size) {
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, weakest = i;
+                if (l < size && weaker(l, weakest)) weakest = l;
+                if (r < size && weaker(r, weakest)) weakest = r;
+                if (weakest == i) return;
+                swap(i, weakest);
+                i = weakest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+
+    // ------------------- Term Trie -------------------
+    private static final class TrieNode {
+        private static final char[] NO_KEYS = new char[0];
+        private static final TrieNode[] NO_KIDS = new TrieNode[0];
+
+        char[] keys = NO_KEYS; // sorted
+        TrieNode[] kids = NO_KIDS;
+        int term = -1;
+        int maxDf; // highest document frequency of any term in this subtree
+
+        void insert(String word, int termId) {
+            TrieNode n = this;
+            for (int i = 0; i < word.length(); i++) n = n.childOrCreate(word.charAt(i));
+            n.term = termId;
+        }
+
+        void raiseMaxDf(String word, int df) {
+            TrieNode n = this;
+            n.maxDf = Math.max(n.maxDf, df);
+            for (int i = 0; i < word.length(); i++) {
+                n = n.child(word.charAt(i));
+                n.maxDf = Math.max(n.maxDf, df);
+            }
+        }
+
+        /** Best-first walk from the prefix node, ordered by subtree maxDf. */
+        List<String> complete(String prefix, int k, BookSearchIndex index) {
+            TrieNode start = this;
+            for (int i = 0; i < prefix.length() && start != null; i++) start = start.child(prefix.charAt(i));
+            List<String> out = new ArrayList<>();
+            if (start == null || k <= 0) return out;
+
+            // Entries are either subtrees (bounded by maxDf) or finished terms (exact df).
+            record Candidate(TrieNode node, int term, int priority) {
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> Integer.compare(b.priority, a.priority));
+            queue.add(new Candidate(start, -1, start.maxDf));
+            while (!queue.isEmpty() && out.size() < k) {
+                Candidate c = queue.poll();
+                if (c.node == null) {
+                    out.add(index.terms.get(c.term));
+                    continue;
+                }
+                if (c.node.term >= 0) queue.add(new Candidate(null, c.node.term, index.df(c.node.term)));
+                for (TrieNode kid : c.node.kids) queue.add(new Candidate(kid, -1, kid.maxDf));
+            }
+            return out;
+        }
+
+        private TrieNode child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? kids[i] : null;
+        }
+
+        private TrieNode childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return kids[i];
+            int at = -i - 1;
+            char[] k = new char[keys.length + 1];
+            TrieNode[] n = new TrieNode[kids.length + 1];
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(kids, 0, n, 0, at);
+            k[at] = c;
+            n[at] = new TrieNode();
+            System.arraycopy(keys, at, k, at + 1, keys.length - at);
+            System.arraycopy(kids, at, n, at + 1, kids.length - at);
+            keys = k;
+            kids = n;
+            return n[at];
+        }
+    }
+}
@@ -0,0 +1,508 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless bulk import of courses, students, books or events from CSV, for
+ * loading a semester's data without the one-field-at-a-time dialogs.
+ * Description:
+ *  - A reader thread streams the file in chunks of rows into a bounded
+ *    queue; when checking falls behind, the queue fills and the reader
+ *    waits (backpressure), so memory holds a few chunks whatever the size
+ *    of the file
+ *  - Checker threads parse and validate chunks in parallel with the rules
+ *    the add dialogs use: required fields, no '|' in student fields, dates
+ *    as yyyy-MM-dd, durations, tag-like titles, commas in venues
+ *  - The calling thread commits the checked chunks in file order, one batch
+ *    per chunk through the module's batch method (one lock and one write or
+ *    fsync per batch); that is where duplicates are turned away: course
+ *    codes ignoring case (isUniqueCode), student IDs, and events that clash
+ *    with a booking unless forced. The first occurrence in the file wins
+ *  - Rejected rows go to a reject file as line,reason,record, and the run
+ *    reports its throughput in rows/s
+ *
+ * CSV columns (fields may be "quoted"; a header row naming the columns is skipped):
+ *   courses  code,name,instructor
+ *   students id,name,major
+ *   books    title,author
+ *   events   date,time,title[,venue[,duration[,repeat]]]   (repeat as in events.csv, e.g. weekly:MO+WE)
+ *
+ * Usage: BulkImport courses|students|books|events file.csv [--rejects path] [--batch rows]
+ *        [--workers n] [--force] [--memory] [--generate rows]
+ *   --force     book events even if they clash
+ *   --memory    import into memory only; the modules' files are not touched
+ *   --generate  first write a synthetic file with that many rows (a few percent invalid or duplicate)
+ */
+public class BulkImport {
+
+    static final int DEFAULT_BATCH = 1000;
+    private static final int QUEUED_CHUNKS_PER_WORKER = 2;
+
+    /** The importable record types, with their columns, row checks and batch commit. */
+    enum Kind {
+        COURSES("code,name,instructor", 3, "Course code already exists.") {
+            @Override
+            Object parse(List<String> f) {
+                return new FacultySystem.Course(f.get(0), f.get(1), f.get(2));
+            }
+
+            @Override
+            boolean[] commit(List<Object> batch, boolean force) {
+                return FacultySystem.addCourses(cast(batch));
+            }
+        },
+        STUDENTS("id,name,major", 3, "Student ID already exists.") {
+            @Override
+            Object parse(List<String> f) {
+                if ((f.get(0) + f.get(1) + f.get(2)).contains("|")) throw new IllegalArgumentException("Fields cannot contain '|'.");
+                return new Student(f.get(0), f.get(1), f.get(2));
+            }
+
+            @Override
+            boolean[] commit(List<Object> batch, boolean force) throws IOException {
+                return GPACalculator.addStudents(cast(batch));
+            }
+        },
+        BOOKS("title,author", 2, null) {
+            @Override
+            Object parse(List<String> f) {
+                return new String[] {f.get(0), f.get(1)};
+            }
+
+            @Override
+            boolean[] commit(List<Object> batch, boolean force) {
+                LibraryModule.circulation().addBooks(cast(batch));
+                boolean[] added = new boolean[batch.size()];
+                Arrays.fill(added, true);
+                return added;
+            }
+        },
+        EVENTS("date,time,title,venue,duration,repeat", 3, "Venue is already booked at that time.") {
+            @Override
+            Object parse(List<String> f) {
+                LocalDate date;
+                try {
+                    date = LocalDate.parse(f.get(0), Utility.DATE_F);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid date '" + f.get(0) + "'. Please use yyyy-MM-dd.");
+                }
+                int duration = 0;
+                String d = f.size() > 4 ? f.get(4) : "";
+                if (!d.isEmpty()) {
+                    try {
+                        duration = Integer.parseInt(d);
+                    } catch (NumberFormatException e) {
+                        duration = -1;
+                    }
+                    if (duration < 1) throw new IllegalArgumentException("Invalid duration '" + d + "'.");
+                }
+                String r = f.size() > 5 ? f.get(5) : "";
+                Recurrence repeat = r.isEmpty() ? null : Recurrence.parse(r);
+                return Event.checked(date, f.get(1), f.get(2), duration, f.size() > 3 ? f.get(3) : "", repeat);
+            }
+
+            @Override
+            boolean[] commit(List<Object> batch, boolean force) throws IOException {
+                try {
+                    return Utility.bookEvents(cast(batch), force);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause(); // the batch was taken off the calendar again
+                }
+            }
+        };
+
+        final List<String> columns;
+        final int required; // the first `required` columns must be present and non-blank
+        final String refused; // reason for a row the commit turns away
+
+        Kind(String columns, int required, String refused) {
+            this.columns = List.of(columns.split(","));
+            this.required = required;
+            this.refused = refused;
+        }
+
+        /** The record for one row of trimmed fields; IllegalArgumentException (or another RuntimeException) says why not. */
+        abstract Object parse(List<String> fields);
+
+        /** Commits a batch in order; added[i] is false for a record the module refused. */
+        abstract boolean[] commit(List<Object> batch, boolean force) throws IOException;
+
+        @SuppressWarnings("unchecked")
+        static <T> List<T> cast(List<Object> batch) {
+            return (List<T>) (List<?>) batch;
+        }
+    }
+
+    /** Counts for one import; rows excludes a skipped header. */
+    record Result(long rows, long imported, long rejected, long nanos, long readerWaits) {
+        double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+    }
+
+    private record Chunk(long seq, long firstLine, List<String> lines) {
+    }
+
+    /** A checked chunk: per line either records[i] (valid so far) or reasons[i] (rejected). */
+    private record Checked(long seq, long firstLine, List<String> lines, Object[] records, String[] reasons) {
+    }
+
+    private static final Chunk NO_MORE_CHUNKS = new Chunk(-1, 0, List.of());
+    private static final Checked NO_MORE_CHECKED = new Checked(-1, 0, List.of(), new Object[0], new String[0]);
+
+    private static final String USAGE = "Usage: BulkImport courses|students|books|events file.csv [--rejects path]"
+            + " [--batch rows] [--workers n] [--force] [--memory] [--generate rows]";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        Kind kind;
+        Path in, rejects;
+        int batch = DEFAULT_BATCH;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        boolean force = false, persistent = true;
+        int generate = 0;
+        try {
+            kind = kind(args[0]);
+            in = Paths.get(args[1]);
+            rejects = Paths.get(args[1] + ".rejects.csv");
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rejects" -> rejects = Paths.get(value(args, i++));
+                    case "--batch" -> batch = positive(args, i++);
+                    case "--workers" -> workers = positive(args, i++);
+                    case "--generate" -> generate = positive(args, i++);
+                    case "--force" -> force = true;
+                    case "--memory" -> persistent = false;
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+        if (generate > 0) generate(kind, in, generate);
+
+        if (persistent) open(kind);
+        Result r;
+        try {
+            r = run(kind, in, rejects, batch, workers, force);
+        } finally {
+            if (persistent) close(kind);
+        }
+        System.out.printf("Imported %,d of %,d %s in %.2f s (%,.0f rows/s, %d checker thread%s, batches of %d)%n",
+                r.imported(), r.rows(), kind.name().toLowerCase(Locale.ROOT), r.nanos() / 1e9, r.rowsPerSecond(),
+                workers, workers == 1 ? "" : "s", batch);
+        if (r.rejected() > 0) System.out.printf("%,d rows rejected, see %s%n", r.rejected(), rejects);
+        if (r.readerWaits() > 0) System.out.printf("The reader waited on a full queue %,d times%n", r.readerWaits());
+    }
+
+    private static Kind kind(String name) {
+        for (Kind k : Kind.values()) {
+            if (k.name().equalsIgnoreCase(name)) return k;
+        }
+        throw new IllegalArgumentException("Unknown kind '" + name + "'.");
+    }
+
+    /** The value after the option at {@code args[i]}. */
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length) throw new IllegalArgumentException(args[i] + " needs a value.");
+        return args[i + 1];
+    }
+
+    private static int positive(String[] args, int i) {
+        String v = value(args, i);
+        try {
+            int n = Integer.parseInt(v);
+            if (n > 0) return n;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(args[i] + " needs a whole number above 0, not '" + v + "'.");
+    }
+
+    // ------------------- Pipeline -------------------
+    /**
+     * Imports {@code in} into the module's current store (open its files
+     * first to persist the rows) and writes the rejected rows to
+     * {@code rejects}.
+     */
+    static Result run(Kind kind, Path in, Path rejects, int batchRows, int workers, boolean force) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<Chunk> toCheck = new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_WORKER * workers);
+        BlockingQueue<Checked> toCommit = new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_WORKER * workers);
+        AtomicLong readerWaits = new AtomicLong();
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> read(kind, in, batchRows, workers, toCheck, readerWaits, readFailure),
+                "import-reader");
+        reader.setDaemon(true);
+        reader.start();
+        ExecutorService checkers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "import-check");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) checkers.execute(() -> check(kind, toCheck, toCommit));
+
+        long rows = 0, imported = 0, rejected = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+            out.write("line,reason,record\n");
+            // Chunks finish out of order; each waits here until the ones before it are committed.
+            Map<Long, Checked> early = new HashMap<>();
+            long next = 0;
+            for (int finished = 0; finished < workers; ) {
+                Checked c = take(toCommit);
+                if (c == NO_MORE_CHECKED) {
+                    finished++;
+                    continue;
+                }
+                early.put(c.seq(), c);
+                for (Checked ready; (ready = early.remove(next)) != null; next++) {
+                    int refused = commit(kind, ready, force, out);
+                    rows += ready.lines().size();
+                    rejected += refused;
+                    imported += ready.lines().size() - refused;
+                }
+            }
+        } finally {
+            checkers.shutdownNow();
+            reader.interrupt();
+        }
+        if (readFailure.get() != null) throw readFailure.get();
+        return new Result(rows, imported, rejected, System.nanoTime() - start, readerWaits.get());
+    }
+
+    private static void read(Kind kind, Path in, int batchRows, int workers, BlockingQueue<Chunk> toCheck,
+                             AtomicLong waits, AtomicReference<IOException> failure) {
+        try (BufferedReader r = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
+            long lineNo = 0, seq = 0, firstLine = 1;
+            List<String> lines = new ArrayList<>(batchRows);
+            for (String line; (line = r.readLine()) != null; ) {
+                lineNo++;
+                if (lineNo == 1) {
+                    if (line.startsWith("\uFEFF")) line = line.substring(1);
+                    if (isHeader(kind, line)) {
+                        firstLine = 2;
+                        continue;
+                    }
+                }
+                lines.add(line);
+                if (lines.size() == batchRows) {
+                    put(toCheck, new Chunk(seq++, firstLine, lines), waits);
+                    firstLine = lineNo + 1;
+                    lines = new ArrayList<>(batchRows);
+                }
+            }
+            if (!lines.isEmpty()) put(toCheck, new Chunk(seq, firstLine, lines), waits);
+        } catch (IOException e) {
+            failure.set(e);
+        } catch (InterruptedException e) {
+            return; // the import was abandoned
+        }
+        try {
+            for (int i = 0; i < workers; i++) toCheck.put(NO_MORE_CHUNKS);
+        } catch (InterruptedException e) {
+            // the import was abandoned
+        }
+    }
+
+    private static void check(Kind kind, BlockingQueue<Chunk> toCheck, BlockingQueue<Checked> toCommit) {
+        try {
+            for (Chunk c; (c = toCheck.take()) != NO_MORE_CHUNKS; ) {
+                int n = c.lines().size();
+                Object[] records = new Object[n];
+                String[] reasons = new String[n];
+                for (int i = 0; i < n; i++) {
+                    try {
+                        records[i] = parseRow(kind, c.lines().get(i));
+                    } catch (RuntimeException e) {
+                        reasons[i] = e.getMessage() != null ? e.getMessage() : e.toString();
+                    }
+                }
+                toCommit.put(new Checked(c.seq(), c.firstLine(), c.lines(), records, reasons));
+            }
+            toCommit.put(NO_MORE_CHECKED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // the import was abandoned
+        }
+    }
+
+    /** Commits the valid rows of a chunk as one batch and writes its rejects; returns how many were rejected. */
+    private static int commit(Kind kind, Checked c, boolean force, Writer rejects) throws IOException {
+        List<Object> batch = new ArrayList<>(c.records().length);
+        int[] lineOf = new int[c.records().length];
+        for (int i = 0; i < c.records().length; i++) {
+            if (c.records()[i] == null) continue;
+            lineOf[batch.size()] = i;
+            batch.add(c.records()[i]);
+        }
+        String[] reasons = c.reasons();
+        if (!batch.isEmpty()) {
+            long t0 = System.nanoTime();
+            boolean[] added;
+            try {
+                added = kind.commit(batch, force);
+            } finally {
+                Metrics.record(Metrics.Op.IMPORT_BATCH, t0);
+            }
+            for (int j = 0; j < added.length; j++) {
+                if (!added[j]) reasons[lineOf[j]] = kind.refused;
+            }
+        }
+        int refused = 0;
+        for (int i = 0; i < reasons.length; i++) {
+            if (reasons[i] == null) continue;
+            refused++;
+            rejects.write((c.firstLine() + i) + "," + quote(reasons[i]) + "," + quote(c.lines().get(i)) + "\n");
+        }
+        return refused;
+    }
+
+    // ------------------- Rows -------------------
+    static Object parseRow(Kind kind, String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < kind.required || fields.size() > kind.columns.size()) {
+            throw new IllegalArgumentException("Expected " + (kind.required == kind.columns.size() ? ""
+                    : kind.required + " to ") + kind.columns.size() + " fields, found " + fields.size() + ".");
+        }
+        for (int i = 0; i < kind.required; i++) {
+            if (fields.get(i).isEmpty()) throw new IllegalArgumentException("'" + kind.columns.get(i) + "' is required.");
+        }
+        return kind.parse(fields);
+    }
+
+    /** Comma-separated fields, trimmed; a field may be "quoted" with "" for a quote inside. */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        int i = 0, n = line.length();
+        while (true) {
+            while (i < n && line.charAt(i) == ' ') i++;
+            if (i < n && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= n) throw new IllegalArgumentException("Unterminated quoted field.");
+                    char ch = line.charAt(i++);
+                    if (ch != '"') {
+                        sb.append(ch);
+                    } else if (i < n && line.charAt(i) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < n && line.charAt(i) == ' ') i++;
+                if (i < n && line.charAt(i) != ',') throw new IllegalArgumentException("Text after a quoted field.");
+            } else {
+                while (i < n && line.charAt(i) != ',') sb.append(line.charAt(i++));
+            }
+            fields.add(sb.toString().trim());
+            sb.setLength(0);
+            if (i >= n) return fields;
+            i++; // the comma
+        }
+    }
+
+    private static boolean isHeader(Kind kind, String line) {
+        List<String> names;
+        try {
+            names = splitCsv(line.toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return names.size() >= kind.required && names.size() <= kind.columns.size()
+                && names.equals(kind.columns.subList(0, names.size()));
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    // ------------------- Helpers -------------------
+    private static <T> void put(BlockingQueue<T> q, T item, AtomicLong waits) throws InterruptedException {
+        if (q.offer(item)) return;
+        waits.incrementAndGet();
+        q.put(item);
+    }
+
+    private static <T> T take(BlockingQueue<T> q) throws InterruptedIOException {
+        try {
+            return q.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        }
+    }
+
+    private static void open(Kind kind) throws IOException {
+        switch (kind) {
+            case COURSES -> {
+                if (Files.exists(FacultySystem.COURSES_SNAPSHOT)) FacultySystem.loadSnapshot(FacultySystem.COURSES_SNAPSHOT);
+            }
+            case STUDENTS -> GPACalculator.openStudents();
+            case BOOKS -> LibraryModule.openJournal();
+            case EVENTS -> Utility.openEvents().rejected().forEach(x -> System.err.println("events.csv: " + x));
+        }
+    }
+
+    private static void close(Kind kind) throws IOException {
+        switch (kind) {
+            case COURSES -> FacultySystem.saveSnapshot(FacultySystem.COURSES_SNAPSHOT);
+            case STUDENTS -> { } // every batch was appended to students.txt as it was committed
+            case BOOKS -> LibraryModule.closeJournal();
+            case EVENTS -> Utility.closeEvents();
+        }
+    }
+
+    /** Writes a synthetic import file; a few percent of the rows are invalid, duplicates or (events) clashes. */
+    static void generate(Kind kind, Path path, int rows) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            w.write(String.join(",", kind.columns) + "\n");
+            for (int i = 0; i < rows; i++) {
+                boolean blank = i % 97 == 96, repeat = i % 101 == 100, odd = i % 89 == 88;
+                int n = repeat ? i - 1 : i; // a repeated row reuses the previous key
+                String row = switch (kind) {
+                    case COURSES -> (repeat ? "imp" : "IMP") + n + ",\"Course " + i + ", Part " + (i % 3 + 1) + "\","
+                            + (blank ? "" : "Lecturer " + i % 500);
+                    case STUDENTS -> "B" + (20_000_000 + n) + "," + (blank ? "" : "Student " + i) + ","
+                            + (odd ? "Art|Design" : "Major " + i % 40);
+                    case BOOKS -> "\"Imported Title " + i + (odd ? ", \"\"Annotated\"\"" : "") + "\","
+                            + (blank ? "" : "Author " + i % 5_000);
+                    case EVENTS -> (odd ? "2030-13-01" : LocalDate.of(2030, 1, 1).plusDays(n / 400).format(Utility.DATE_F))
+                            + "," + (8 + n % 10) + ":00," + (blank ? "" : "Imported event " + i) + ",Room " + n % 400
+                            + ",60," + (i % 211 == 210 ? "weekly:MO+WE:count=4" : "");
+                };
+                w.write(row);
+                w.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local load generator for CampusServer.
+ * Description:
+ *  - Without a URL it starts an in-memory server on a free port and seeds
+ *    it with courses, students with grades, books and events
+ *  - Closed loop: at each concurrency level (1, 2, 4, ... up to the maximum)
+ *    that many clients send requests back to back for a fixed time
+ *  - The mix is mostly reads (course / book search, standings, a week of
+ *    events) with some writes (GPA, issue / return, new courses)
+ *  - Prints requests/s and p50 / p99 latency per level; 5xx responses and
+ *    transport failures count as errors
+ *
+ * Usage: CampusLoadTest [secondsPerLevel] [maxConcurrency] [baseUrl]
+ */
+public class CampusLoadTest {
+
+    private static final int COURSES = 2_000, STUDENTS = 2_000, BOOKS = 5_000, EVENTS = 2_000;
+    private static final String[] INSTRUCTORS = {"Nsiah", "Wells", "Zagade", "Okafor", "Lindqvist", "Moreau"};
+    private static final String[] WORDS = {"data", "systems", "history", "design", "physics", "networks", "ethics"};
+    private static final String[] GRADES = {"A", "A-", "B+", "B", "B-", "C+", "C"};
+
+    private static final AtomicInteger newCourses = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxConcurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        CampusServer local = null;
+        String base;
+        if (args.length > 2) {
+            base = args[2].replaceAll("/+$", "");
+        } else {
+            local = CampusServer.start(0, false);
+            base = "http://localhost:" + local.port();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        if (local != null) seed(client, base);
+        System.out.printf("Target %s, %d s per level, %d cores%n", base, seconds,
+                Runtime.getRuntime().availableProcessors());
+
+        run(client, base, 4, 2); // warm-up, not reported
+        System.out.println("clients    requests      req/s    p50 ms    p99 ms  errors");
+        for (int c = 1; c <= maxConcurrency; c *= 2) {
+            Level r = run(client, base, c, seconds);
+            System.out.printf("%7d %11d %10.0f %9.2f %9.2f %7d%n",
+                    c, r.requests, r.requests / (double) seconds, r.p50 / 1e6, r.p99 / 1e6, r.errors);
+        }
+        if (local != null) local.stop();
+    }
+
+    private record Level(int requests, long p50, long p99, int errors) {
+    }
+
+    // ------------------- Load -------------------
+    private static Level run(HttpClient client, String base, int clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients], errors = new int[clients];
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            int me = t;
+            threads[t] = new Thread(() -> {
+                long[] mine = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest req = nextRequest(base);
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+                        if (resp.statusCode() >= 500) errors[me]++;
+                    } catch (IOException e) {
+                        errors[me]++;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (n == mine.length) mine = Arrays.copyOf(mine, n * 2);
+                    mine[n++] = System.nanoTime() - t0;
+                }
+                latencies[me] = Arrays.copyOf(mine, n);
+                counts[me] = n;
+            }, "load-" + t);
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        int total = 0, failed = 0;
+        for (int t = 0; t < clients; t++) {
+            total += counts[t];
+            failed += errors[t];
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, all, at, l.length);
+            at += l.length;
+        }
+        Arrays.sort(all);
+        return new Level(total, percentile(all, 0.50), percentile(all, 0.99), failed);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /** 80% reads, 20% writes. */
+    private static HttpRequest nextRequest(String base) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int dice = rnd.nextInt(100);
+        if (dice < 25) return get(base + "/courses?q=" + INSTRUCTORS[rnd.nextInt(INSTRUCTORS.length)].toLowerCase());
+        if (dice < 45) return get(base + "/books?q=" + WORDS[rnd.nextInt(WORDS.length)]);
+        if (dice < 60) return get(base + "/students/S" + rnd.nextInt(STUDENTS) + "/standing");
+        if (dice < 70) {
+            LocalDate from = LocalDate.now().plusDays(rnd.nextInt(60));
+            return get(base + "/events?from=" + from + "&to=" + from.plusDays(6));
+        }
+        if (dice < 80) return get(base + "/books/" + (1 + rnd.nextInt(BOOKS)));
+        if (dice < 88) return post(base + "/gpa", gpaBody(rnd, null));
+        if (dice < 96) return post(base + "/books/" + (1 + rnd.nextInt(BOOKS)) + (rnd.nextBoolean() ? "/issue" : "/return"), "");
+        int n = newCourses.incrementAndGet();
+        return post(base + "/courses", Json.write(Json.object("code", "LOAD" + n, "name", "Load section " + n,
+                "instructor", INSTRUCTORS[n % INSTRUCTORS.length])));
+    }
+
+    // ------------------- Seeding -------------------
+    private static void seed(HttpClient client, String base) throws IOException, InterruptedException {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < COURSES; i++) {
+            send(client, post(base + "/courses", Json.write(Json.object("code", "C" + i,
+                    "name", WORDS[i % WORDS.length] + " " + i, "instructor", INSTRUCTORS[i % INSTRUCTORS.length] + " " + i))));
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            send(client, post(base + "/students", Json.write(Json.object("id", "S" + i, "name", "Student " + i,
+                    "major", WORDS[i % WORDS.length]))));
+            send(client, post(base + "/gpa", gpaBody(rnd, "S" + i)));
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            send(client, post(base + "/books", Json.write(Json.object("title",
+                    "Intro to " + WORDS[i % WORDS.length] + " vol " + i, "author", "Author " + i))));
+        }
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < EVENTS; i++) {
+            send(client, post(base + "/events", Json.write(Json.object("date", today.plusDays(i % 90).toString(),
+                    "time", (8 + i % 10) + ":00", "title", "Event " + i, "venue", "Room " + i % 40,
+                    "force", true))));
+        }
+    }
+
+    private static String gpaBody(ThreadLocalRandom rnd, String studentId) {
+        StringBuilder sb = new StringBuilder("{\"courses\":[");
+        for (int c = 0; c < 4; c++) {
+            if (c > 0) sb.append(',');
+            sb.append("{\"grade\":\"").append(GRADES[rnd.nextInt(GRADES.length)]).append("\",\"credits\":3}");
+        }
+        sb.append(']');
+        if (studentId != null) sb.append(",\"studentId\":\"").append(studentId).append('"');
+        return sb.append('}').toString();
+    }
+
+    private static void send(HttpClient client, HttpRequest req) throws IOException, InterruptedException {
+        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() >= 400) throw new IOException(req.uri() + " -> " + resp.statusCode() + " " + resp.body());
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+}
@@ -0,0 +1,485 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless server mode for the Smart Campus Assistant: the operations of the
+ * four modules as a small JSON API on the JDK's built-in HTTP server.
+ * Description:
+ *  - Every request gets its own virtual thread on JDKs that have them (21+);
+ *    older JDKs fall back to a fixed pool of platform threads
+ *  - Handlers go through the modules' shared-access methods (locks in
+ *    FacultySystem and GPACalculator; the circulation service and the event
+ *    calendar are concurrent), so any number of clients can work at once
+ *  - Errors come back as {"error": "..."} with 400 (bad input), 404
+ *    (unknown route or record), 405, 409 (duplicate, already issued,
+ *    double booking), 413 (body too large) or 500
+ *  - Listens on the loopback interface only, since no route is
+ *    authenticated; --bind opens it to other hosts on purpose
+ *  - A course or book search that finds nothing adds "didYouMean" (up to
+ *    three corrected queries); an unknown student ID lists close IDs in the
+ *    404 message
+ *
+ * Routes:
+ *   GET  /health
+ *   GET  /courses[?q=text]                   POST /courses  {code, name, instructor}
+ *   GET  /students/{id}[/standing]           POST /students {id, name, major}
+ *   POST /gpa {courses: [{grade, credits}], studentId?}
+ *   GET  /books[?q=text], /books/{id}        POST /books    {title, author}
+ *   POST /books/{id}/issue, /books/{id}/return
+ *   GET  /events?from=&to=, /events?upcoming=n   (at most 200; "truncated" says whether the range had more)
+ *   POST /events {date, time, title, venue?, duration?, repeat?, force?}
+ *   DELETE /events (same body as the event to delete)
+ *
+ * Usage: CampusServer [port] [--memory] [--bind address]
+ *   --memory  read and write no files
+ *   --bind    listen on this address instead of loopback (0.0.0.0 = every interface)
+ */
+public class CampusServer {
+
+    static final int DEFAULT_PORT = 8080;
+    private static final int PLATFORM_THREADS = 64; // requests may wait on an fsync, so more than the cores
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int MAX_RESULTS = 200;
+    private static final int SUGGESTIONS = 3; // "did you mean" alternatives per miss
+    private static final int DEFAULT_UPCOMING = 10;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean persistent;
+
+    /** Failure with an HTTP status; the message is sent to the client. */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private record Reply(int status, Object body) {
+    }
+
+    private CampusServer(HttpServer server, ExecutorService executor, boolean persistent) {
+        this.server = server;
+        this.executor = executor;
+        this.persistent = persistent;
+    }
+
+    /** Starts serving on the loopback interface; see {@link #start(InetAddress, int, boolean)}. */
+    static CampusServer start(int port, boolean persistent) throws IOException {
+        return start(InetAddress.getLoopbackAddress(), port, persistent);
+    }
+
+    /**
+     * Starts serving on {@code address}:{@code port} (0 = any free port). With
+     * {@code persistent}, the modules' files are loaded first and every
+     * change is saved; otherwise everything stays in memory.
+     */
+    static CampusServer start(InetAddress address, int port, boolean persistent) throws IOException {
+        // The server writes headers and body separately; with Nagle on, small replies wait ~40 ms for a delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        if (persistent) {
+            if (Files.exists(FacultySystem.COURSES_SNAPSHOT)) FacultySystem.loadSnapshot(FacultySystem.COURSES_SNAPSHOT);
+            GPACalculator.openStudents();
+            LibraryModule.openJournal();
+            EventFile.LoadResult r = Utility.openEvents();
+            r.rejected().forEach(x -> System.err.println("events.csv: " + x));
+        }
+        HttpServer http = HttpServer.create(new InetSocketAddress(address, port), 0);
+        ExecutorService executor = requestExecutor();
+        CampusServer s = new CampusServer(http, executor, persistent);
+        http.createContext("/", s::handle);
+        http.setExecutor(executor);
+        http.start();
+        return s;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests, lets running ones finish and closes the modules' files. */
+    void stop() throws IOException {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (persistent) {
+            FacultySystem.saveSnapshot(FacultySystem.COURSES_SNAPSHOT);
+            LibraryModule.closeJournal();
+            Utility.closeEvents();
+        }
+    }
+
+    private static ExecutorService requestExecutor() {
+        try {
+            // JDK 21+: one virtual thread per request; looked up reflectively so the code still builds on 17.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(PLATFORM_THREADS, r -> {
+                Thread t = new Thread(r, "campus-http");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = DEFAULT_PORT;
+        boolean persistent = true;
+        InetAddress address = InetAddress.getLoopbackAddress();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--memory")) persistent = false;
+            else if (args[i].equals("--bind") && i + 1 < args.length) address = InetAddress.getByName(args[++i]);
+            else port = Integer.parseInt(args[i]);
+        }
+        CampusServer s = start(address, port, persistent);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                s.stop();
+            } catch (IOException e) {
+                System.err.println("Error closing data files: " + e.getMessage());
+            }
+        }));
+        String host = address.isLoopbackAddress() ? "localhost" : address.getHostAddress();
+        System.out.println("Smart Campus API listening on http://" + host + ":" + s.port()
+                + (address.isAnyLocalAddress() ? " (every interface)" : "") + (persistent ? "" : " (in memory)"));
+    }
+
+    // ------------------- Dispatch -------------------
+    private void handle(HttpExchange ex) throws IOException {
+        Reply reply;
+        try {
+            String[] path = ex.getRequestURI().getRawPath().replaceAll("^/+|/+$", "").split("/+");
+            for (int i = 0; i < path.length; i++) path[i] = URLDecoder.decode(path[i], StandardCharsets.UTF_8);
+            Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+            String method = ex.getRequestMethod();
+            reply = switch (path[0]) {
+                case "health" -> new Reply(200, Json.object("status", "ok"));
+                case "courses" -> courses(method, path, query, ex);
+                case "students" -> students(method, path, ex);
+                case "gpa" -> gpa(method, ex);
+                case "books" -> books(method, path, query, ex);
+                case "events" -> events(method, query, ex);
+                default -> throw new ApiException(404, "No such resource: " + ex.getRequestURI().getPath());
+            };
+        } catch (ApiException e) {
+            reply = new Reply(e.status, Json.object("error", e.getMessage()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            reply = new Reply(400, Json.object("error", e.getMessage()));
+        } catch (IOException | RuntimeException e) { // e.g. a failed fsync
+            reply = new Reply(500, Json.object("error", String.valueOf(e.getMessage())));
+        }
+        send(ex, reply);
+    }
+
+    private static void send(HttpExchange ex, Reply reply) throws IOException {
+        byte[] bytes = Json.write(reply.body()).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ------------------- Courses -------------------
+    private static Reply courses(String method, String[] path, Map<String, String> query, HttpExchange ex)
+            throws IOException {
+        if (path.length != 1) throw new ApiException(404, "No such resource");
+        if (method.equals("GET")) {
+            String q = query.get("q");
+            List<FacultySystem.Course> found = q == null || q.isBlank()
+                    ? FacultySystem.allCourses() : FacultySystem.findCourses(q);
+            List<Object> out = new ArrayList<>();
+            for (FacultySystem.Course c : found.subList(0, Math.min(found.size(), MAX_RESULTS))) out.add(course(c));
+            Map<String, Object> reply = Json.object("count", found.size(), "courses", out);
+            if (found.isEmpty() && q != null && !q.isBlank()) reply.put("didYouMean", FacultySystem.suggestCourses(q, SUGGESTIONS));
+            return new Reply(200, reply);
+        }
+        requireMethod(method, "POST");
+        Map<String, Object> body = body(ex);
+        FacultySystem.Course c = new FacultySystem.Course(
+                text(body, "code"), text(body, "name"), text(body, "instructor"));
+        if (!FacultySystem.addCourse(c)) throw new ApiException(409, "A course with this code already exists.");
+        return new Reply(201, course(c));
+    }
+
+    private static Map<String, Object> course(FacultySystem.Course c) {
+        return Json.object("code", c.getCode(), "name", c.getName(), "instructor", c.getInstructor());
+    }
+
+    // ------------------- Students & GPA -------------------
+    private static Reply students(String method, String[] path, HttpExchange ex) throws IOException {
+        if (path.length == 1) {
+            requireMethod(method, "POST");
+            Map<String, Object> body = body(ex);
+            Student s = new Student(text(body, "id"), text(body, "name"), text(body, "major"));
+            if ((s.id() + s.name() + s.major()).contains("|")) throw new ApiException(400, "Fields cannot contain '|'.");
+            if (!GPACalculator.addStudent(s)) throw new ApiException(409, "Student ID already exists.");
+            return new Reply(201, student(s));
+        }
+        requireMethod(method, "GET");
+        Student s = GPACalculator.findStudent(path[1]);
+        if (s == null) throw new ApiException(404, "Student not found." + didYouMean(GPACalculator.suggestIds(path[1], SUGGESTIONS)));
+        if (path.length == 2) return new Reply(200, student(s));
+        if (path.length != 3 || !path[2].equals("standing")) throw new ApiException(404, "No such resource");
+        GPACalculator.Standing st = GPACalculator.standing(s.id());
+        if (st == null) throw new ApiException(404, "No grades recorded for " + s.name() + " yet.");
+        return new Reply(200, standing(st));
+    }
+
+    private static Reply gpa(String method, HttpExchange ex) throws IOException {
+        requireMethod(method, "POST");
+        Map<String, Object> body = body(ex);
+        if (!(body.get("courses") instanceof List<?> list)) throw new ApiException(400, "'courses' must be a list");
+        List<double[]> courses = new ArrayList<>();
+        for (Object o : list) {
+            if (!(o instanceof Map<?, ?> m) || !(m.get("grade") instanceof String grade)
+                    || !(m.get("credits") instanceof Double credits)) {
+                throw new ApiException(400, "each course needs a 'grade' and numeric 'credits'");
+            }
+            double points = GradeTable.points(grade);
+            if (points < 0) throw new ApiException(400, "Invalid grade '" + grade + "'");
+            if (credits < 0) throw new ApiException(400, "Credits cannot be negative");
+            courses.add(new double[]{points, credits});
+        }
+        double gpa = GPACalculator.gpaOf(courses);
+        if (Double.isNaN(gpa)) throw new ApiException(400, "No valid courses entered.");
+
+        Map<String, Object> out = Json.object("gpa", gpa);
+        if (body.get("studentId") instanceof String id) {
+            GPACalculator.Standing st = GPACalculator.recordGrades(id.trim(), courses);
+            if (st == null) {
+                throw new ApiException(404, "Student not found." + didYouMean(GPACalculator.suggestIds(id.trim(), SUGGESTIONS)));
+            }
+            out.put("standing", standing(st));
+        }
+        return new Reply(200, out);
+    }
+
+    private static String didYouMean(List<String> ids) {
+        return ids.isEmpty() ? "" : " Did you mean " + String.join(", ", ids) + "?";
+    }
+
+    private static Map<String, Object> student(Student s) {
+        return Json.object("id", s.id(), "name", s.name(), "major", s.major());
+    }
+
+    private static Map<String, Object> standing(GPACalculator.Standing st) {
+        return Json.object("student", student(st.student()), "gpa", st.gpa(), "credits", st.credits(),
+                "rank", st.rank(), "of", st.rankedCount(), "percentile", st.percentile(),
+                "rankInMajor", st.rankInMajor(), "ofInMajor", st.rankedCountInMajor(),
+                "percentileInMajor", st.percentileInMajor());
+    }
+
+    // ------------------- Library -------------------
+    private static Reply books(String method, String[] path, Map<String, String> query, HttpExchange ex)
+            throws IOException {
+        CirculationService circulation = LibraryModule.circulation();
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                String q = query.get("q");
+                List<Book> found = q == null || q.isBlank() ? circulation.all() : circulation.search(q, MAX_RESULTS);
+                List<Object> out = new ArrayList<>();
+                for (Book b : found.subList(0, Math.min(found.size(), MAX_RESULTS))) out.add(book(b));
+                Map<String, Object> reply = Json.object("count", found.size(), "books", out);
+                if (found.isEmpty() && q != null && !q.isBlank()) reply.put("didYouMean", circulation.didYouMean(q, SUGGESTIONS));
+                return new Reply(200, reply);
+            }
+            requireMethod(method, "POST");
+            Map<String, Object> body = body(ex);
+            return new Reply(201, book(circulation.addBook(text(body, "title"), text(body, "author"))));
+        }
+
+        Book b;
+        try {
+            b = circulation.byId(Integer.parseInt(path[1]));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Invalid ID format.");
+        }
+        if (b == null) throw new ApiException(404, "No book with ID " + path[1] + ".");
+        if (path.length == 2) {
+            requireMethod(method, "GET");
+            return new Reply(200, book(b));
+        }
+        requireMethod(method, "POST");
+        if (path.length != 3) throw new ApiException(404, "No such resource");
+        switch (path[2]) {
+            case "issue" -> {
+                if (!circulation.issue(b)) throw new ApiException(409, "That book is already issued.");
+            }
+            case "return" -> {
+                if (!circulation.giveBack(b)) throw new ApiException(409, "That book was not issued.");
+            }
+            default -> throw new ApiException(404, "No such resource");
+        }
+        return new Reply(200, book(b));
+    }
+
+    private static Map<String, Object> book(Book b) {
+        return Json.object("id", b.getId(), "title", b.getTitle(), "author", b.getAuthor(), "issued", b.isIssued());
+    }
+
+    // ------------------- Events -------------------
+    private static Reply events(String method, Map<String, String> query, HttpExchange ex) throws IOException {
+        EventIndex calendar = Utility.calendar();
+        switch (method) {
+            case "GET" -> {
+                List<Event> found;
+                boolean truncated = false;
+                if (query.containsKey("upcoming")) {
+                    int n = Math.min(MAX_RESULTS, Math.max(1, parseInt(query.get("upcoming"), DEFAULT_UPCOMING)));
+                    found = calendar.upcoming(LocalDateTime.now(), n);
+                } else {
+                    LocalDate from = query.containsKey("from") ? date(query.get("from")) : LocalDate.now();
+                    LocalDate to = query.containsKey("to") ? date(query.get("to")) : from.plusDays(6);
+                    // Expands one past the page only, so a wide range over endless series stays cheap.
+                    found = calendar.between(from, to, MAX_RESULTS + 1);
+                    truncated = found.size() > MAX_RESULTS;
+                    if (truncated) found = found.subList(0, MAX_RESULTS);
+                }
+                List<Object> out = new ArrayList<>();
+                for (Event e : found) out.add(event(e));
+                return new Reply(200, Json.object("count", found.size(), "truncated", truncated, "events", out));
+            }
+            case "POST" -> {
+                Map<String, Object> body = body(ex);
+                Event e = eventFrom(body);
+                if (Boolean.TRUE.equals(body.get("force"))) {
+                    Utility.bookEvent(e);
+                } else {
+                    List<Event> clashes = Utility.bookUnlessClash(e);
+                    if (!clashes.isEmpty()) {
+                        List<Object> out = new ArrayList<>();
+                        for (Event c : clashes) out.add(event(c));
+                        return new Reply(409, Json.object("error", e.venue + " is already booked at that time",
+                                "clashes", out));
+                    }
+                }
+                return new Reply(201, event(e));
+            }
+            case "DELETE" -> {
+                Event probe = eventFrom(body(ex));
+                String csv = probe.toCsv();
+                for (Event e : calendar.entriesOn(probe.date)) {
+                    if (e.toCsv().equals(csv) && Utility.cancelEvent(e)) return new Reply(200, event(e));
+                }
+                throw new ApiException(404, "No such event.");
+            }
+            default -> throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    /** Validates an event the same way the Add dialog does (see Event.checked). */
+    private static Event eventFrom(Map<String, Object> body) {
+        LocalDate date = date(text(body, "date"));
+        String time = text(body, "time");
+        String title = text(body, "title");
+        String venue = body.get("venue") instanceof String v ? v : "";
+        int duration = 0;
+        if (body.get("duration") != null) {
+            if (!(body.get("duration") instanceof Double d) || d != Math.rint(d) || d < 1 || d > Utility.MAX_DURATION) {
+                throw new ApiException(400, "duration must be a whole number of minutes between 1 and "
+                        + Utility.MAX_DURATION);
+            }
+            duration = (int) (double) (Double) body.get("duration");
+        }
+        Recurrence repeat = body.get("repeat") instanceof String r && !r.isBlank() ? Recurrence.parse(r.trim()) : null;
+        return Event.checked(date, time, title, duration, venue, repeat); // IllegalArgumentException -> 400
+    }
+
+    private static Map<String, Object> event(Event e) {
+        Map<String, Object> m = Json.object("date", e.date.format(Utility.DATE_F), "time", e.time, "title", e.title);
+        if (!e.venue.isEmpty()) m.put("venue", e.venue);
+        if (e.duration > 0) m.put("duration", e.duration);
+        Event series = e.series != null ? e.series : e.repeat != null ? e : null;
+        if (series != null) {
+            m.put("repeat", series.repeat.toTag());
+            m.put("repeats", series.repeat.toString());
+            m.put("seriesStart", series.date.format(Utility.DATE_F)); // the date that identifies the series
+        }
+        return m;
+    }
+
+    // ------------------- Request Helpers -------------------
+    private static void requireMethod(String method, String allowed) {
+        if (!method.equals(allowed)) throw new ApiException(405, "Use " + allowed + " here");
+    }
+
+    /** The request body as a JSON object. */
+    private static Map<String, Object> body(HttpExchange ex) throws IOException {
+        byte[] bytes;
+        try (InputStream in = ex.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) throw new ApiException(413, "Request body is larger than " + MAX_BODY + " bytes");
+        if (!(Json.parse(new String(bytes, StandardCharsets.UTF_8)) instanceof Map<?, ?> m)) {
+            throw new ApiException(400, "Expected a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) m;
+        return map;
+    }
+
+    /** A required, non-blank, single-line string field, trimmed. */
+    private static String text(Map<String, Object> body, String field) {
+        if (!(body.get(field) instanceof String s) || s.isBlank()) {
+            throw new ApiException(400, "'" + field + "' is required");
+        }
+        if (s.contains("\n") || s.contains("\r")) throw new ApiException(400, "'" + field + "' cannot contain line breaks");
+        return s.trim();
+    }
+
+    private static LocalDate date(String s) {
+        try {
+            return LocalDate.parse(s.trim(), Utility.DATE_F);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Invalid date '" + s + "'. Please use yyyy-MM-dd.");
+        }
+    }
+
+    private static int parseInt(String s, int fallback) {
+        try {
+            return s == null || s.isBlank() ? fallback : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Expected a number, got '" + s + "'");
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> m = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return m;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            m.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return m;
+    }
+}
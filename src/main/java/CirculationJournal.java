@@ -0,0 +1,432 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable circulation for the Library Module: an append-only binary journal
+ * with group commit plus periodic snapshots.
+ * Description:
+ *  - Every add / issue / return is applied and encoded under one lock, so
+ *    the journal order always matches the order of the in-memory changes
+ *  - A single flusher thread writes whatever accumulated since its last
+ *    write and fsyncs once; every operation in that batch is acknowledged
+ *    by the same fsync (group commit)
+ *  - Each entry is [length][CRC32C][body]; a torn or corrupt tail found on
+ *    startup is cut off instead of failing recovery
+ *  - Every {@code snapshotEvery} entries the state is captured, the journal
+ *    rolls over to a new segment, the snapshot is written to a temp file and
+ *    renamed into place, and older segments are deleted; startup loads the
+ *    snapshot and only replays the segments after it
+ *  - Snapshots are SnapshotFile tables ("books": title, author, issued by
+ *    row = ID - 1), so the many repeated authors are stored once
+ *
+ * Files in the data directory: snapshot.bin and journal-N.bin segments.
+ */
+class CirculationJournal implements Closeable {
+
+    static final long DEFAULT_SNAPSHOT_EVERY = 1_000_000;
+
+    private static final byte ADD = 1, ISSUE = 2, RETURN = 3;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int MAX_ENTRY = 1 << 20;
+
+    /** One journal entry; title and author are only set for adds. */
+    record Entry(byte type, int id, String title, String author) {
+        static Entry add(Book b) {
+            return new Entry(ADD, b.getId(), b.getTitle(), b.getAuthor());
+        }
+
+        static Entry issue(int id) {
+            return new Entry(ISSUE, id, null, null);
+        }
+
+        static Entry giveBack(int id) {
+            return new Entry(RETURN, id, null, null);
+        }
+    }
+
+    private record Batch(FileChannel channel, byte[] bytes, int length, long lastSeq, boolean closeAfter) {
+    }
+
+    private final Path dir;
+    private final CirculationService service;
+    private final long snapshotEvery;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    // Guarded by lock.
+    private FileChannel current;
+    private long currentGen;
+    private byte[] pending = new byte[1 << 16];
+    private int pendingLength;
+    private final ArrayDeque<Batch> sealed = new ArrayDeque<>();
+    private long nextSeq = 1;
+    private long durableSeq;
+    private long sinceSnapshot;
+    private boolean snapshotRunning;
+    private boolean closed;
+    private IOException failure;
+
+    private final Thread flusher;
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "circulation-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private CirculationJournal(Path dir, CirculationService service, long gen, long snapshotEvery) throws IOException {
+        this.dir = dir;
+        this.service = service;
+        this.snapshotEvery = snapshotEvery;
+        this.currentGen = gen;
+        this.current = openSegment(gen);
+        this.flusher = new Thread(this::flushLoop, "circulation-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /** Recovers the catalog stored in {@code dir} (empty if new) and journals every later change. */
+    static CirculationJournal open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    static CirculationJournal open(Path dir, long snapshotEvery) throws IOException {
+        Files.createDirectories(dir);
+        CirculationService service = new CirculationService();
+        long fromGen = 0;
+        Path snapshot = dir.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) fromGen = readSnapshot(snapshot, service);
+
+        long lastGen = fromGen - 1;
+        for (long gen : segmentGens(dir)) {
+            Path segment = segmentPath(dir, gen);
+            if (gen < fromGen) {
+                Files.delete(segment); // already covered by the snapshot
+            } else {
+                replay(segment, service);
+                lastGen = gen;
+            }
+        }
+
+        CirculationJournal journal = new CirculationJournal(dir, service, lastGen + 1, snapshotEvery);
+        service.attachJournal(journal);
+        return journal;
+    }
+
+    CirculationService service() {
+        return service;
+    }
+
+    // ------------------- Appending -------------------
+    /**
+     * Runs {@code change} under the journal lock; if it returns an entry, the
+     * entry is queued for the next flush. Returns its sequence number for
+     * {@link #awaitDurable}, or -1 when the change did nothing.
+     */
+    long append(Supplier<Entry> change) {
+        lock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+            if (closed) throw new IllegalStateException("Journal is closed");
+            Entry e = change.get();
+            if (e == null) return -1;
+
+            encode(e);
+            long seq = nextSeq++;
+            work.signal();
+            if (++sinceSnapshot >= snapshotEvery && !snapshotRunning) {
+                snapshotRunning = true;
+                snapshotter.execute(this::snapshotQuietly);
+            }
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Blocks until the entry with this sequence number is on disk. */
+    void awaitDurable(long seq) {
+        if (seq < 0) return;
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void encode(Entry e) {
+        byte[] title = e.title() == null ? null : e.title().getBytes(StandardCharsets.UTF_8);
+        byte[] author = e.author() == null ? null : e.author().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 5 + (title == null ? 0 : 8 + title.length + author.length);
+        if (bodyLength > MAX_ENTRY) throw new IllegalArgumentException("Book entry is too large");
+
+        int needed = pendingLength + 8 + bodyLength;
+        if (needed > pending.length) pending = Arrays.copyOf(pending, Math.max(needed, pending.length * 2));
+        ByteBuffer buf = ByteBuffer.wrap(pending, pendingLength, 8 + bodyLength);
+        buf.putInt(bodyLength).putInt(0);
+        int bodyStart = buf.position();
+        buf.put(e.type()).putInt(e.id());
+        if (title != null) {
+            buf.putInt(title.length).put(title).putInt(author.length).put(author);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(pending, bodyStart, bodyLength);
+        ByteBuffer.wrap(pending, pendingLength + 4, 4).putInt((int) crc.getValue());
+        pendingLength = needed;
+    }
+
+    // ------------------- Group Commit -------------------
+    private void flushLoop() {
+        while (true) {
+            Batch b;
+            lock.lock();
+            try {
+                while (sealed.isEmpty() && pendingLength == 0 && !closed) work.awaitUninterruptibly();
+                if (sealed.isEmpty() && pendingLength == 0) return; // closed and drained
+                b = sealed.isEmpty() ? takePending(false) : sealed.poll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(b.bytes(), 0, b.length());
+                while (buf.hasRemaining()) b.channel().write(buf);
+                b.channel().force(false);
+                if (b.closeAfter()) b.channel().close();
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    durable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableSeq = Math.max(durableSeq, b.lastSeq());
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Hands the pending bytes to the flusher as one batch. Caller holds the lock. */
+    private Batch takePending(boolean closeAfter) {
+        Batch b = new Batch(current, pending, pendingLength, nextSeq - 1, closeAfter);
+        pending = new byte[Math.max(1 << 16, pendingLength)];
+        pendingLength = 0;
+        return b;
+    }
+
+    // ------------------- Snapshots -------------------
+    /** Writes a snapshot of the current state and drops the journal segments it covers. */
+    void snapshot() throws IOException {
+        CirculationService.State state;
+        long gen;
+        long coveredSeq;
+        lock.lock();
+        try {
+            state = service.captureState();
+            sealed.add(takePending(true));
+            gen = currentGen + 1;
+            current = openSegment(gen);
+            currentGen = gen;
+            coveredSeq = nextSeq - 1;
+            sinceSnapshot = 0;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        writeSnapshot(state, gen);
+        awaitDurable(coveredSeq); // the flusher may still be writing the old segment
+        for (long old : segmentGens(dir)) {
+            if (old < gen) Files.deleteIfExists(segmentPath(dir, old));
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            // Keep journaling; the next threshold crossing retries the snapshot.
+            System.err.println("Circulation snapshot failed: " + e.getMessage());
+        } finally {
+            lock.lock();
+            try {
+                snapshotRunning = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Row i is the book with ID i + 1. */
+    private void writeSnapshot(CirculationService.State state, long gen) throws IOException {
+        Book[] books = state.books();
+        long[] bits = state.availableBits();
+        new SnapshotFile.Writer("books", books.length)
+                .meta("gen", gen)
+                .strings("title", i -> books[i].getTitle())
+                .strings("author", i -> books[i].getAuthor())
+                .booleans("issued", i -> (bits[(i + 1) >>> 6] & (1L << (i + 1))) == 0)
+                .write(dir.resolve(SNAPSHOT_FILE));
+        syncDirectory();
+    }
+
+    /** Loads the snapshot into the service and returns the first journal segment it does not cover. */
+    private static long readSnapshot(Path path, CirculationService service) throws IOException {
+        SnapshotFile.Table t = SnapshotFile.open(path, "books");
+        long gen;
+        try {
+            gen = Long.parseLong(t.meta("gen"));
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt snapshot " + path + ": bad generation");
+        }
+        SnapshotFile.Strings titles = t.strings("title"), authors = t.strings("author");
+        SnapshotFile.Booleans issued = t.booleans("issued");
+        for (int i = 0; i < t.rows(); i++) service.restoreBook(i + 1, titles.get(i), authors.get(i), issued.get(i));
+        return gen;
+    }
+
+    // ------------------- Replay -------------------
+    /** Applies every intact entry of a segment and cuts off a torn or corrupt tail. */
+    private static void replay(Path segment, CirculationService service) throws IOException {
+        long good = 0;
+        byte[] body = new byte[256];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length, checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 5 || length > MAX_ENTRY) break;
+                    if (length > body.length) body = new byte[Math.max(length, body.length * 2)];
+                    in.readFully(body, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) break;
+
+                apply(ByteBuffer.wrap(body, 0, length), service);
+                good += 8 + length;
+            }
+        }
+        if (good < Files.size(segment)) {
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                ch.truncate(good);
+                ch.force(true);
+            }
+        }
+    }
+
+    private static void apply(ByteBuffer body, CirculationService service) {
+        byte type = body.get();
+        int id = body.getInt();
+        switch (type) {
+            case ADD -> {
+                byte[] title = new byte[body.getInt()];
+                body.get(title);
+                byte[] author = new byte[body.getInt()];
+                body.get(author);
+                service.restoreBook(id, new String(title, StandardCharsets.UTF_8),
+                        new String(author, StandardCharsets.UTF_8), false);
+            }
+            case ISSUE -> service.restoreIssued(id, true);
+            case RETURN -> service.restoreIssued(id, false);
+            default -> throw new IllegalStateException("Unknown journal entry type " + type);
+        }
+    }
+
+    // ------------------- Files -------------------
+    private FileChannel openSegment(long gen) throws IOException {
+        FileChannel ch = FileChannel.open(segmentPath(dir, gen), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return ch;
+    }
+
+    private static Path segmentPath(Path dir, long gen) {
+        return dir.resolve(SEGMENT_PREFIX + gen + SEGMENT_SUFFIX);
+    }
+
+    private static List<Long> segmentGens(Path dir) throws IOException {
+        List<Long> gens = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .forEach(n -> {
+                        try {
+                            gens.add(Long.parseLong(n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // not one of ours
+                        }
+                    });
+        }
+        gens.sort(null);
+        return gens;
+    }
+
+    /** Makes file creation and renames durable; not every platform allows it. */
+    private void syncDirectory() {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException ignored) {
+            // e.g. Windows cannot open a directory as a channel
+        }
+    }
+
+    /** Flushes everything still pending and stops the background threads. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotter.shutdown();
+        current.close();
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Throughput and recovery check for the circulation journal.
+ * Description:
+ *  - Desk threads issue and return random copies until the journal holds
+ *    the requested number of entries (default 10M); every operation waits
+ *    for its fsync, so the ops/s figure is durable throughput
+ *  - The run then "crashes" (no close) and appends a torn entry to the
+ *    newest segment, recovers the directory and checks that every book
+ *    and every availability bit survived
+ *
+ * Usage: CirculationJournalBenchmark [dir] [entries] [desks] [books] [snapshotEvery]
+ */
+public class CirculationJournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "journal-bench");
+        long entries = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        int desks = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int books = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        long snapshotEvery = args.length > 4 ? Long.parseLong(args[4]) : CirculationJournal.DEFAULT_SNAPSHOT_EVERY;
+        deleteRecursively(dir);
+
+        CirculationJournal journal = CirculationJournal.open(dir, snapshotEvery);
+        CirculationService live = journal.service();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < books; i++) live.addBook("Journal " + i, "Author " + (i % 500));
+        System.out.printf("Added %,d books (one journaled add at a time) in %.2f s%n",
+                books, (System.nanoTime() - t0) / 1e9);
+
+        // JDK 17 has no virtual threads, so each desk is a platform thread.
+        AtomicLong remaining = new AtomicLong(entries - books);
+        ExecutorService pool = Executors.newFixedThreadPool(desks);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int d = 0; d < desks; d++) {
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (remaining.get() > 0) {
+                    Book b = live.byId(1 + rnd.nextInt(books));
+                    boolean done = b.isIssued() ? live.giveBack(b) : live.issue(b);
+                    if (done) remaining.decrementAndGet();
+                }
+            });
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - began) / 1e9;
+        long ops = entries - books - remaining.get();
+        System.out.printf("%d desks: %,d durable issue/return ops in %.1f s = %,.0f ops/s%n",
+                desks, ops, seconds, ops / seconds);
+
+        // Crash: leave the journal open and tear the tail of the newest segment.
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.filter(p -> p.getFileName().toString().startsWith("journal-"))
+                    .max(Comparator.comparingLong(CirculationJournalBenchmark::gen)).orElseThrow();
+        }
+        try (FileChannel ch = FileChannel.open(newest, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 2, 0}));
+        }
+        long onDisk = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) onDisk += Files.size(p);
+        }
+
+        long r0 = System.nanoTime();
+        CirculationJournal recovered = CirculationJournal.open(dir, snapshotEvery);
+        double recovery = (System.nanoTime() - r0) / 1e9;
+        CirculationService back = recovered.service();
+        int mismatches = back.size() == live.size() ? 0 : 1;
+        for (int id = 1; id <= live.size() && mismatches == 0; id++) {
+            if (back.isAvailable(id) != live.isAvailable(id)
+                    || !back.byId(id).getTitle().equals(live.byId(id).getTitle())) mismatches++;
+        }
+        System.out.printf("Recovered %,d books (%,d on the shelf) from %.1f MB in %.2f s, mismatches: %d%n",
+                back.size(), back.availableCount(), onDisk / 1e6, recovery, mismatches);
+        recovered.close();
+        if (mismatches > 0) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static long gen(Path p) {
+        String n = p.getFileName().toString();
+        return Long.parseLong(n.substring("journal-".length(), n.length() - ".bin".length()));
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
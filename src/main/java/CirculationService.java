@@ -0,0 +1,333 @@
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe circulation for the Library Module, so several desks can add,
+ * issue and return books at the same time.
+ * Description:
+ *  - Availability is a bitmap indexed by book ID (bit set = on the shelf);
+ *    issue() / giveBack() compare-and-set the copy's bit, so of two desks
+ *    issuing the same copy exactly one succeeds
+ *  - Available counts are a popcount over the bitmap and listing available
+ *    books walks only the set bits; at one bit per copy the bitmap is a tiny
+ *    fraction of the Book objects even at millions of copies
+ *  - Books live in a dense array indexed by ID (IDs are 1, 2, 3, ... per
+ *    catalog), so lookup by ID is a single array read
+ *  - A hash index maps each normalized title to all of its copies, and a
+ *    BookSearchIndex ranks free-text searches over titles and authors
+ *  - addBook() assigns the ID, fills the array slot, sets the copy's bit
+ *    and only then updates the title and search indexes, all under one
+ *    lock, and publishes the new count last; readers never lock, so
+ *    listing and availability queries never block writers
+ *  - With a CirculationJournal attached, every add / issue / return is
+ *    applied and journaled in the same order and only returns once the
+ *    journal entry is on disk; if that write fails the change is undone
+ *    before the UncheckedIOException reaches the caller
+ */
+class CirculationService {
+
+    private final Object addLock = new Object();
+    // Written only under addLock; `count` is published last so readers that
+    // see it also see the slot, the bit and the title index entry.
+    private volatile Book[] slots = new Book[16];
+    private volatile int count;
+    private final Map<String, List<Book>> byTitle = new ConcurrentHashMap<>();
+    // Document numbers are book ID - 1.
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+
+    // The bitmap grows by appending fixed-size segments; existing segments are
+    // never copied, so a bit flipped during growth cannot be lost.
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_BITS = 1 << SEGMENT_SHIFT;
+    private volatile AtomicLongArray[] segments = new AtomicLongArray[0];
+
+    private volatile CirculationJournal journal; // null = in-memory only
+
+    /** Copy of the catalog taken while no change is in flight, for journal snapshots. */
+    record State(Book[] books, long[] availableBits) {
+    }
+
+    Book addBook(String title, String author) {
+        long t0 = System.nanoTime();
+        try {
+            CirculationJournal j = journal;
+            if (j == null) return insert(title, author);
+            Book[] added = new Book[1];
+            long seq = j.append(() -> {
+                added[0] = insert(title, author);
+                return CirculationJournal.Entry.add(added[0]);
+            });
+            try {
+                j.awaitDurable(seq);
+            } catch (UncheckedIOException e) {
+                withdraw(added[0]);
+                throw e;
+            }
+            return added[0];
+        } finally {
+            Metrics.record(Metrics.Op.BOOK_ADD, t0);
+        }
+    }
+
+    /**
+     * Adds one book per {title, author} pair, in order; with a journal the
+     * entries are written as one group and this waits once for all of them.
+     */
+    List<Book> addBooks(List<String[]> titlesAndAuthors) {
+        List<Book> added = new ArrayList<>(titlesAndAuthors.size());
+        CirculationJournal j = journal;
+        if (j == null) {
+            for (String[] row : titlesAndAuthors) added.add(insert(row[0], row[1]));
+            return added;
+        }
+        try {
+            long last = -1;
+            for (String[] row : titlesAndAuthors) {
+                last = j.append(() -> {
+                    Book b = insert(row[0], row[1]);
+                    added.add(b);
+                    return CirculationJournal.Entry.add(b);
+                });
+            }
+            j.awaitDurable(last);
+        } catch (UncheckedIOException e) {
+            if (!added.isEmpty()) withdraw(added.get(0));
+            throw e;
+        }
+        return added;
+    }
+
+    private Book insert(String title, String author) {
+        synchronized (addLock) {
+            int id = count + 1;
+            Book b = new Book(this, id, title, author);
+            Book[] s = slots;
+            if (id > s.length) s = Arrays.copyOf(s, s.length * 2);
+            s[id - 1] = b;
+            slots = s;
+
+            // The copy's bit exists and is set before anything can find the copy.
+            int seg = id >>> SEGMENT_SHIFT;
+            if (seg == segments.length) {
+                AtomicLongArray[] grown = Arrays.copyOf(segments, seg + 1);
+                grown[seg] = new AtomicLongArray(SEGMENT_BITS / 64);
+                segments = grown;
+            }
+            setBit(id);
+
+            // Copies per title are few, so each title keeps an immutable list that is replaced.
+            List<Book> copies = byTitle.get(b.getTitleKey());
+            List<Book> updated = new ArrayList<>(copies == null ? 1 : copies.size() + 1);
+            if (copies != null) updated.addAll(copies);
+            updated.add(b);
+            byTitle.put(b.getTitleKey(), List.copyOf(updated));
+            searchIndex.add(b.getTitle(), b.getAuthor());
+
+            count = id;
+            return b;
+        }
+    }
+
+    /**
+     * Takes back an add whose journal entry could not be written, together
+     * with every later add: entries reach disk in order, so none of those
+     * were written either. A failed journal refuses all further changes, so
+     * the withdrawn IDs are never handed out again; their search index
+     * documents stay but are skipped like any ID past the count.
+     */
+    private void withdraw(Book first) {
+        synchronized (addLock) {
+            int n = count;
+            if (first.getId() > n) return; // already withdrawn with an earlier add
+            for (int id = first.getId(); id <= n; id++) {
+                Book b = slots[id - 1];
+                List<Book> copies = byTitle.get(b.getTitleKey());
+                List<Book> kept = new ArrayList<>(copies);
+                kept.remove(b);
+                if (kept.isEmpty()) byTitle.remove(b.getTitleKey());
+                else byTitle.put(b.getTitleKey(), List.copyOf(kept));
+                flip(id, true); // clears the bit so the copy leaves the available count
+            }
+            count = first.getId() - 1;
+        }
+    }
+
+    /** Returns the book with this ID, or null. */
+    Book byId(int id) {
+        long t0 = System.nanoTime();
+        Book b = slot(id);
+        Metrics.record(Metrics.Op.BOOK_LOOKUP, t0);
+        return b;
+    }
+
+    private Book slot(int id) {
+        int n = count;
+        return id >= 1 && id <= n ? slots[id - 1] : null;
+    }
+
+    /** Every copy whose normalized title matches, in ID order; empty if none. */
+    List<Book> byTitle(String title) {
+        long t0 = System.nanoTime();
+        List<Book> copies = byTitle.get(Book.normalizeTitle(title));
+        Metrics.record(Metrics.Op.BOOK_LOOKUP, t0);
+        if (copies == null) return List.of();
+        // Leaves out a copy whose add is still being published, as search() does.
+        int n = count, shown = copies.size();
+        while (shown > 0 && copies.get(shown - 1).getId() > n) shown--;
+        return shown == copies.size() ? copies : copies.subList(0, shown);
+    }
+
+    /** Up to {@code k} books ranked by relevance to the query (last word may be partial). */
+    List<Book> search(String query, int k) {
+        long t0 = System.nanoTime();
+        List<Book> out = new ArrayList<>();
+        for (int doc : searchIndex.search(query, k)) {
+            Book b = slot(doc + 1);
+            if (b != null) out.add(b); // skips a book whose add is still being published
+        }
+        Metrics.record(Metrics.Op.BOOK_SEARCH, t0);
+        return out;
+    }
+
+    /** "Did you mean" queries for a search that found nothing; empty if no word is close to an indexed one. */
+    List<String> didYouMean(String query, int k) {
+        return searchIndex.didYouMean(query, k);
+    }
+
+    /** Autocomplete: indexed words starting with the prefix, most common first. */
+    List<String> suggest(String prefix, int k) {
+        return searchIndex.complete(prefix, k);
+    }
+
+    /** Issues the copy; false if it is already issued. */
+    boolean issue(Book b) {
+        long t0 = System.nanoTime();
+        try {
+            return change(b.getId(), true);
+        } finally {
+            Metrics.record(Metrics.Op.BOOK_ISSUE, t0);
+        }
+    }
+
+    /** Returns the copy; false if it was not issued. */
+    boolean giveBack(Book b) {
+        long t0 = System.nanoTime();
+        try {
+            return change(b.getId(), false);
+        } finally {
+            Metrics.record(Metrics.Op.BOOK_RETURN, t0);
+        }
+    }
+
+    private boolean change(int id, boolean issue) {
+        CirculationJournal j = journal;
+        if (j == null) return flip(id, issue);
+        long seq = j.append(() -> !flip(id, issue) ? null
+                : issue ? CirculationJournal.Entry.issue(id) : CirculationJournal.Entry.giveBack(id));
+        if (seq < 0) return false;
+        try {
+            j.awaitDurable(seq);
+        } catch (UncheckedIOException e) {
+            flip(id, !issue);
+            throw e;
+        }
+        return true;
+    }
+
+    /** CAS on the copy's availability bit; false if it was already in the wanted state. */
+    private boolean flip(int id, boolean issue) {
+        AtomicLongArray words = segments[id >>> SEGMENT_SHIFT];
+        int word = (id & (SEGMENT_BITS - 1)) >>> 6;
+        long mask = 1L << id;
+        while (true) {
+            long w = words.get(word);
+            if (((w & mask) != 0) != issue) return false;
+            if (words.compareAndSet(word, w, w ^ mask)) return true;
+        }
+    }
+
+    boolean isAvailable(int id) {
+        AtomicLongArray words = segments[id >>> SEGMENT_SHIFT];
+        return (words.get((id & (SEGMENT_BITS - 1)) >>> 6) & (1L << id)) != 0;
+    }
+
+    /** Number of copies on the shelf, by popcount over the bitmap. */
+    int availableCount() {
+        int total = 0;
+        for (AtomicLongArray words : segments) {
+            for (int i = 0; i < words.length(); i++) total += Long.bitCount(words.get(i));
+        }
+        return total;
+    }
+
+    /** Snapshot of every book in ID order. */
+    List<Book> all() {
+        int n = count;
+        return Arrays.asList(Arrays.copyOf(slots, n));
+    }
+
+    /** Snapshot of the books that are not issued, visiting only the set bits. */
+    List<Book> available() {
+        int n = count;
+        Book[] s = slots;
+        AtomicLongArray[] segs = segments;
+        List<Book> out = new ArrayList<>();
+        for (int seg = 0; seg < segs.length; seg++) {
+            AtomicLongArray words = segs[seg];
+            for (int i = 0; i < words.length(); i++) {
+                long w = words.get(i);
+                while (w != 0) {
+                    int id = (seg << SEGMENT_SHIFT) | (i << 6) | Long.numberOfTrailingZeros(w);
+                    if (id <= n) out.add(s[id - 1]);
+                    w &= w - 1;
+                }
+            }
+        }
+        return out;
+    }
+
+    int size() {
+        return count;
+    }
+
+    // ------------------- Journal Support -------------------
+    void attachJournal(CirculationJournal j) {
+        journal = j;
+    }
+
+    /** Re-creates a book from a snapshot or journal entry; ignores IDs that already exist. */
+    void restoreBook(int id, String title, String author, boolean issued) {
+        if (id != count + 1) return;
+        insert(title, author);
+        if (issued) flip(id, true);
+    }
+
+    /** Replays an issue or return; replaying it twice has no further effect. */
+    void restoreIssued(int id, boolean issued) {
+        if (slot(id) != null) flip(id, issued);
+    }
+
+    /** Caller must hold off all changes (the journal does so under its append lock). */
+    State captureState() {
+        int n = count;
+        Book[] books = Arrays.copyOf(slots, n);
+        long[] bits = new long[(n >>> 6) + 1];
+        for (int id = 1; id <= n; id++) {
+            if (isAvailable(id)) bits[id >>> 6] |= 1L << id;
+        }
+        return new State(books, bits);
+    }
+
+    // ------------------- Helpers -------------------
+    private void setBit(int id) {
+        AtomicLongArray words = segments[id >>> SEGMENT_SHIFT];
+        int word = (id & (SEGMENT_BITS - 1)) >>> 6;
+        long mask = 1L << id;
+        words.getAndAccumulate(word, mask, (w, m) -> w | m);
+    }
+}
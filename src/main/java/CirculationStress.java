@@ -0,0 +1,112 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress check for CirculationService: hundreds of desk threads add, issue,
+ * return and list books concurrently, then the run verifies that
+ *  - every added book got a unique ID and none went missing
+ *  - no copy was ever held by two desks at once
+ *  - each copy's final state matches its issue/return history
+ *
+ * Usage: CirculationStress [desks] [operationsPerDesk]
+ */
+public class CirculationStress {
+
+    private static final int INITIAL_BOOKS = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int desks = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int opsPerDesk = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        CirculationService circulation = new CirculationService();
+        for (int i = 0; i < INITIAL_BOOKS; i++) circulation.addBook("Stress " + i, "Author " + (i % 50));
+        int firstId = circulation.all().get(0).getId();
+        int maxBooks = INITIAL_BOOKS + desks * opsPerDesk;
+
+        // holder[id - firstId] = desk currently holding the copy (0 = on the shelf).
+        AtomicIntegerArray holder = new AtomicIntegerArray(maxBooks);
+        AtomicIntegerArray netIssues = new AtomicIntegerArray(maxBooks);
+        ConcurrentHashMap<Integer, Boolean> addedIds = new ConcurrentHashMap<>();
+        AtomicInteger added = new AtomicInteger(INITIAL_BOOKS);
+        AtomicInteger violations = new AtomicInteger();
+        LongAdder issues = new LongAdder(), returns = new LongAdder(), queries = new LongAdder();
+
+        // JDK 17 has no virtual threads, so each desk is a platform thread.
+        ExecutorService pool = Executors.newFixedThreadPool(desks);
+        CountDownLatch start = new CountDownLatch(1);
+        long began = System.nanoTime();
+        for (int d = 1; d <= desks; d++) {
+            int desk = d;
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < opsPerDesk; op++) {
+                    int roll = rnd.nextInt(100);
+                    if (roll < 2) {
+                        Book b = circulation.addBook("Desk " + desk, "Added " + op);
+                        if (addedIds.put(b.getId(), Boolean.TRUE) != null) violations.incrementAndGet();
+                        added.incrementAndGet();
+                    } else if (roll < 4) {
+                        circulation.available().size();
+                        queries.increment();
+                    } else {
+                        int slot = rnd.nextInt(INITIAL_BOOKS);
+                        Book b = circulation.byId(firstId + slot);
+                        if (roll < 52) {
+                            if (circulation.issue(b)) {
+                                if (!holder.compareAndSet(slot, 0, desk)) violations.incrementAndGet();
+                                netIssues.incrementAndGet(slot);
+                                issues.increment();
+                            }
+                        } else {
+                            // Clear the holder first: once giveBack succeeds another desk may re-issue.
+                            int h = holder.get(slot);
+                            if (h != 0 && holder.compareAndSet(slot, h, 0)) {
+                                if (!circulation.giveBack(b)) violations.incrementAndGet();
+                                netIssues.decrementAndGet(slot);
+                                returns.increment();
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        List<Book> all = circulation.all();
+        int missing = all.size() == added.get() && circulation.size() == added.get() ? 0 : 1;
+        int stateMismatches = 0;
+        for (int slot = 0; slot < INITIAL_BOOKS; slot++) {
+            Book b = circulation.byId(firstId + slot);
+            int net = netIssues.get(slot);
+            if (net < 0 || net > 1 || b.isIssued() != (net == 1)) stateMismatches++;
+        }
+
+        System.out.printf("%d desks, %,d ops in %.2f s (%,.0f ops/s)%n",
+                desks, (long) desks * opsPerDesk, seconds, desks * (double) opsPerDesk / seconds);
+        System.out.printf("issues=%,d returns=%,d availability queries=%,d books=%,d%n",
+                issues.sum(), returns.sum(), queries.sum(), all.size());
+        System.out.printf("double issues / duplicate IDs: %d, lost books: %d, state mismatches: %d%n",
+                violations.get(), missing, stateMismatches);
+        if (violations.get() + missing + stateMismatches > 0) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.Random;
+
+/**
+ * Compares FacultySystem's trigram-indexed course search against the
+ * original linear scan on synthetic catalogs of 10k, 100k and 1M courses.
+ * Run from the IDE like the modules (no GUI is opened); use -Xmx2g for 1M.
+ */
+public class CourseSearchBenchmark {
+
+    private static final String[] DEPTS = {"CS", "IT", "MATH", "PHYS", "CHEM", "BIO", "ENG", "HIST", "ECON", "PSYC"};
+    private static final String[] FIRST = {"Anna", "Brian", "Carla", "David", "Elena", "Farid", "Grace", "Hiro", "Ines", "Jamal"};
+    private static final String[] LAST = {"Nsiah", "Wells", "Zafar", "Zagade", "Martin", "Clear", "Okafor", "Novak", "Silva", "Kim",
+            "Larsen", "Moreau", "Petrov", "Quinn", "Rossi", "Tanaka"};
+    private static final String[] QUERIES = {"math2", "zagade", "cs101-00", "okafor", "phys399-0042", "qu", "nomatch"};
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        Random rnd = new Random(42);
+        System.out.printf("%-10s %-14s %12s %12s %10s%n", "courses", "query", "scan (us)", "index (us)", "hits");
+        for (int size : SIZES) {
+            while (FacultySystem.courseCount() < size) {
+                int n = FacultySystem.courseCount();
+                String code = DEPTS[rnd.nextInt(DEPTS.length)] + (100 + rnd.nextInt(400)) + "-" + String.format("%04d", n % 10_000);
+                String instructor = FIRST[rnd.nextInt(FIRST.length)] + " " + LAST[rnd.nextInt(LAST.length)];
+                FacultySystem.storeCourse(new FacultySystem.Course(code, "Section " + n, instructor));
+            }
+            for (String q : QUERIES) {
+                int hits = FacultySystem.findCourses(q).size();
+                if (hits != FacultySystem.scanCourses(q).size()) {
+                    throw new IllegalStateException("Index and scan disagree for '" + q + "'");
+                }
+                double scan = timeMicros(() -> FacultySystem.scanCourses(q));
+                double index = timeMicros(() -> FacultySystem.findCourses(q));
+                System.out.printf("%-10d %-14s %12.1f %12.1f %10d%n", size, q, scan, index, hits);
+            }
+        }
+    }
+
+    private static double timeMicros(Runnable search) {
+        for (int i = 0; i < 3; i++) search.run(); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) search.run();
+        return (System.nanoTime() - start) / 1_000.0 / ROUNDS;
+    }
+}
@@ -0,0 +1,148 @@
+import java.time.LocalDate;
+import java.util.Iterator;
+
+/**
+ * One campus event. A CSV line is "date,time,title", with optional tagged
+ * fields before the title: "90m" (duration in minutes), "@Venue" and
+ * "~weekly:MO+WE" (a Recurrence; the date is then the series' first day).
+ * A title whose first field would read as a tag is preceded by an empty
+ * field, which ends the tags. Lines from versions without tags are plain
+ * "date,time,title" and are read without looking for tags (see EventFile).
+ */
+final class Event {
+    final LocalDate date;
+    final String time;
+    final String title;
+    final int minute; // parsed once from `time`, for ordering
+    final int duration; // minutes; 0 = not given
+    final String venue; // "" = none; never contains a comma
+    final Recurrence repeat; // null = one-off
+    final Event series; // for one occurrence of a recurring event, its record; otherwise null
+    final LocalDate last; // last day the event happens on; null = repeats forever
+
+    Event(LocalDate date, String time, String title) {
+        this(date, time, title, 0, "");
+    }
+
+    Event(LocalDate date, String time, String title, int duration, String venue) {
+        this(date, time, title, duration, venue, null);
+    }
+
+    Event(LocalDate date, String time, String title, int duration, String venue, Recurrence repeat) {
+        this(date, time, title, EventIndex.minuteOfDay(time), duration, venue, repeat, null);
+    }
+
+    private Event(LocalDate date, String time, String title, int minute, int duration, String venue,
+                  Recurrence repeat, Event series) {
+        this.date = date;
+        this.time = time;
+        this.title = title;
+        this.minute = minute;
+        this.duration = duration;
+        this.venue = venue;
+        this.repeat = repeat;
+        this.series = series;
+        this.last = repeat == null ? date : repeat.last(date);
+    }
+
+    /** The occurrence of this recurring event on {@code day}. */
+    Event on(LocalDate day) {
+        return new Event(day, time, title, minute, duration, venue, null, this);
+    }
+
+    /** Days this recurring event happens on, from {@code from} on, in order. */
+    Iterator<LocalDate> dates(LocalDate from) {
+        return repeat.dates(date, from);
+    }
+
+    String toCsv() {
+        StringBuilder sb = new StringBuilder().append(date.format(Utility.DATE_F)).append(',').append(time).append(',');
+        if (duration > 0) sb.append(duration).append("m,");
+        if (!venue.isEmpty()) sb.append('@').append(venue).append(',');
+        if (repeat != null) sb.append('~').append(repeat.toTag()).append(',');
+        if (title.startsWith(",") || readsAsTag(title)) sb.append(','); // ends the tags
+        return sb.append(title).toString();
+    }
+
+    /** Reads a line written by {@link #toCsv()}. */
+    static Event fromCsv(String line) {
+        String[] parts = line.split(",", 3);
+        LocalDate d = LocalDate.parse(parts[0], Utility.DATE_F);
+        String rest = parts[2];
+        int duration = 0;
+        String venue = "";
+        Recurrence repeat = null;
+        while (true) {
+            int comma = rest.indexOf(',');
+            if (comma < 0) break;
+            String field = rest.substring(0, comma);
+            if (field.isEmpty()) { // the end-of-tags marker
+                rest = rest.substring(1);
+                break;
+            }
+            if (venue.isEmpty() && field.length() > 1 && field.charAt(0) == '@') {
+                venue = field.substring(1);
+            } else if (duration == 0 && isDurationTag(field)) {
+                duration = Integer.parseInt(field.substring(0, field.length() - 1));
+            } else if (repeat == null && field.length() > 1 && field.charAt(0) == '~') {
+                repeat = Recurrence.parse(field.substring(1));
+            } else {
+                break;
+            }
+            rest = rest.substring(comma + 1);
+        }
+        return new Event(d, parts[1], rest, duration, venue, repeat);
+    }
+
+    /**
+     * The event after the checks the Add dialog, CampusServer and BulkImport
+     * share; IllegalArgumentException names the first one that fails. Time
+     * and title are trimmed, the venue is trimmed and single-spaced.
+     */
+    static Event checked(LocalDate date, String time, String title, int duration, String venue, Recurrence repeat) {
+        time = time.trim();
+        title = title.trim();
+        venue = venue.trim().replaceAll("\\s+", " ");
+        if (time.isEmpty() || title.isEmpty()) throw new IllegalArgumentException("Time and title are required.");
+        if ((time + title + venue).contains("\n") || (time + title + venue).contains("\r")) {
+            throw new IllegalArgumentException("Fields cannot contain line breaks.");
+        }
+        if (time.contains(",")) throw new IllegalArgumentException("Times cannot contain commas.");
+        if (readsAsTag(title)) throw new IllegalArgumentException("A title cannot start with a tag field.");
+        if (venue.contains(",")) throw new IllegalArgumentException("Venue names cannot contain commas.");
+        if (duration < 0 || duration > Utility.MAX_DURATION) {
+            throw new IllegalArgumentException("duration must be a whole number of minutes between 1 and "
+                    + Utility.MAX_DURATION);
+        }
+        if (repeat != null && (repeat.until() != null || repeat.count() > 0) && repeat.last(date) == null) {
+            throw new IllegalArgumentException("the event would end before it first takes place");
+        }
+        return new Event(date, time, title, duration, venue, repeat);
+    }
+
+    /** True if the title's first comma field would read back as a venue, repeat or duration field. */
+    static boolean readsAsTag(String title) {
+        int comma = title.indexOf(',');
+        if (comma < 0) return false;
+        String first = title.substring(0, comma);
+        return first.startsWith("@") || first.startsWith("~") || isDurationTag(first);
+    }
+
+    /** "90m": 1 to 5 digits followed by 'm'. */
+    static boolean isDurationTag(String field) {
+        int n = field.length();
+        if (n < 2 || n > 6 || field.charAt(n - 1) != 'm') return false;
+        for (int i = 0; i < n - 1; i++) {
+            if (!Character.isDigit(field.charAt(i))) return false;
+        }
+        return Integer.parseInt(field.substring(0, n - 1)) > 0;
+    }
+
+    @Override
+    public String toString() {
+        String where = venue.isEmpty() ? "" : " @ " + venue;
+        String length = duration > 0 ? " (" + duration + " min)" : "";
+        String repeats = repeat == null ? "" : " [" + repeat + "]";
+        return date.format(Utility.DATE_F) + " " + time + length + " - " + title + where + repeats;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Double-booking checks for campus events that have a venue.
+ * Description:
+ *  - An event occupies its venue from its start time for its duration
+ *    (DEFAULT_DURATION minutes when none was given); events without a venue
+ *    or with a time that cannot be read never conflict
+ *  - Each venue has an interval tree (a treap ordered by start time where
+ *    every node knows the latest end in its subtree), so checking a new
+ *    booking only descends into subtrees that can hold a clash: O(log n)
+ *    with no clashes instead of a scan of the venue's calendar
+ *  - findAll() reports every clashing pair of a whole calendar with a
+ *    sweep line per venue: O(n log n + k) instead of comparing all pairs
+ *  - A recurring event's record is never booked itself; its occurrences
+ *    (see Event.on) are checked like one-off events
+ *
+ * Venue names are compared case-insensitively with whitespace collapsed.
+ */
+class EventConflicts {
+
+    static final int DEFAULT_DURATION = 60;
+
+    /** Two events booked into the same venue at overlapping times; {@code first} starts no later. */
+    record Conflict(Event first, Event second) {
+        @Override
+        public String toString() {
+            return first + "  <->  " + second;
+        }
+    }
+
+    private final Map<String, IntervalTree> byVenue = new HashMap<>();
+    private final Map<Event, Integer> seqs = new IdentityHashMap<>();
+    private int nextSeq;
+
+    synchronized void add(Event e) {
+        if (!schedulable(e) || seqs.containsKey(e)) return;
+        int seq = nextSeq++;
+        seqs.put(e, seq);
+        byVenue.computeIfAbsent(venueKey(e.venue), k -> new IntervalTree()).insert(e, seq);
+    }
+
+    synchronized void addAll(Iterable<Event> events) {
+        for (Event e : events) add(e);
+    }
+
+    synchronized void remove(Event e) {
+        Integer seq = seqs.remove(e);
+        if (seq != null) byVenue.get(venueKey(e.venue)).remove(start(e), seq);
+    }
+
+    /** Booked events whose slot overlaps the (not yet added) event, earliest first. */
+    synchronized List<Event> conflictsWith(Event e) {
+        List<Event> out = new ArrayList<>();
+        if (!schedulable(e)) return out;
+        IntervalTree tree = byVenue.get(venueKey(e.venue));
+        if (tree != null) tree.overlapping(start(e), end(e), out);
+        out.removeIf(other -> other == e);
+        return out;
+    }
+
+    // ------------------- Bulk Sweep -------------------
+    /** Every overlapping pair among {@code events}, grouped by venue and ordered by start time. */
+    static List<Conflict> findAll(Collection<Event> events) {
+        Map<String, List<Event>> groups = new HashMap<>();
+        for (Event e : events) {
+            if (schedulable(e)) groups.computeIfAbsent(venueKey(e.venue), k -> new ArrayList<>()).add(e);
+        }
+
+        List<Conflict> out = new ArrayList<>();
+        List<String> venues = new ArrayList<>(groups.keySet());
+        venues.sort(null);
+        for (String venue : venues) {
+            List<Event> list = groups.get(venue);
+            list.sort(Comparator.comparingLong(EventConflicts::start));
+            // Events that started earlier and have not ended yet, soonest end on top.
+            PriorityQueue<Event> active = new PriorityQueue<>(Comparator.comparingLong(EventConflicts::end));
+            for (Event e : list) {
+                long s = start(e);
+                while (!active.isEmpty() && end(active.peek()) <= s) active.poll();
+                for (Event open : active) out.add(new Conflict(open, e));
+                active.add(e);
+            }
+        }
+        return out;
+    }
+
+    // ------------------- Helpers -------------------
+    private static boolean schedulable(Event e) {
+        return !e.venue.isEmpty() && e.minute != EventIndex.UNKNOWN_MINUTE && e.repeat == null;
+    }
+
+    /** Minutes since 1970-01-01 00:00. */
+    private static long start(Event e) {
+        return e.date.toEpochDay() * 1440 + e.minute;
+    }
+
+    private static long end(Event e) {
+        return start(e) + (e.duration > 0 ? e.duration : DEFAULT_DURATION);
+    }
+
+    static String venueKey(String venue) {
+        return venue.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // ------------------- Interval Tree -------------------
+    /** Treap ordered by (start, seq) where every node knows the latest end in its subtree. */
+    private static final class IntervalTree {
+        private Node root;
+
+        void insert(Event e, int seq) {
+            Node[] parts = split(root, start(e), seq);
+            root = merge(merge(parts[0], new Node(e, seq)), parts[1]);
+        }
+
+        void remove(long start, int seq) {
+            root = remove(root, start, seq);
+        }
+
+        /** Adds to {@code out}, in start order, every interval overlapping [from, to). */
+        void overlapping(long from, long to, List<Event> out) {
+            overlapping(root, from, to, out);
+        }
+
+        private static void overlapping(Node n, long from, long to, List<Event> out) {
+            if (n == null || n.maxEnd <= from) return; // nothing in this subtree ends after `from`
+            overlapping(n.left, from, to, out);
+            if (n.start >= to) return; // this node and everything to its right start too late
+            if (n.end > from) out.add(n.event);
+            overlapping(n.right, from, to, out);
+        }
+
+        /** Splits into keys before (start, seq) and keys at or after it. */
+        private static Node[] split(Node n, long start, int seq) {
+            if (n == null) return new Node[2];
+            if (compare(n.start, n.seq, start, seq) < 0) {
+                Node[] parts = split(n.right, start, seq);
+                n.right = parts[0];
+                n.update();
+                parts[0] = n;
+                return parts;
+            }
+            Node[] parts = split(n.left, start, seq);
+            n.left = parts[1];
+            n.update();
+            parts[1] = n;
+            return parts;
+        }
+
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                a.update();
+                return a;
+            }
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+
+        private static Node remove(Node n, long start, int seq) {
+            if (n == null) return null;
+            int c = compare(start, seq, n.start, n.seq);
+            if (c == 0) return merge(n.left, n.right);
+            if (c < 0) n.left = remove(n.left, start, seq);
+            else n.right = remove(n.right, start, seq);
+            n.update();
+            return n;
+        }
+
+        private static int compare(long startA, int seqA, long startB, int seqB) {
+            int c = Long.compare(startA, startB);
+            return c != 0 ? c : Integer.compare(seqA, seqB);
+        }
+
+        private static final class Node {
+            final Event event;
+            final long start, end;
+            final int seq;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            long maxEnd;
+            Node left, right;
+
+            Node(Event event, int seq) {
+                this.event = event;
+                this.start = EventConflicts.start(event);
+                this.end = EventConflicts.end(event);
+                this.seq = seq;
+                this.maxEnd = end;
+            }
+
+            void update() {
+                maxEnd = end;
+                if (left != null) maxEnd = Math.max(maxEnd, left.maxEnd);
+                if (right != null) maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+}
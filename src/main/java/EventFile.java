@@ -0,0 +1,440 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Parallel loader for the Utility Tools' events.csv (the format EventStore
+ * writes, see Event for the columns). Tagged fields are read from "+crc,"
+ * and "-crc," records only; plain lines come from versions before tags and
+ * are read as date,time,title with the title taken whole.
+ * Description:
+ *  - The file is memory-mapped and split into line-aligned chunks that are
+ *    parsed in parallel, one chunk per core
+ *  - Dates go through a hand-written yyyy-MM-dd parser working on the mapped
+ *    bytes; it allocates nothing, and each chunk reuses one LocalDate per day
+ *  - Tombstones are applied in file order once all chunks are parsed
+ *  - Nothing is dropped silently: every rejected line is reported with its
+ *    line number and the reason
+ *
+ * Running main() loads a file (optionally generating it first) and prints the
+ * load time and the rejected lines.
+ */
+class EventFile {
+
+    private static final byte NL = '\n';
+    private static final byte COMMA = ',';
+    // A single mapping cannot exceed 2 GB, so larger files always get more chunks.
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;
+    private static final long MIN_PARALLEL_SIZE = 1 << 20;
+    private static final int MAX_SHOWN_TEXT = 60;
+
+    /** A line that could not be loaded; line numbers start at 1. */
+    record Rejected(long line, String reason) {
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason;
+        }
+    }
+
+    /** Live events in file order, the number of non-blank lines read, and what was rejected. */
+    record LoadResult(List<Event> events, int records, List<Rejected> rejected, long nanos) {
+        static final LoadResult EMPTY = new LoadResult(List.of(), 0, List.of(), 0);
+    }
+
+    static LoadResult load(Path path) throws IOException {
+        return load(path, Long.MAX_VALUE);
+    }
+
+    /** Loads the first {@code limit} bytes of the file. */
+    static LoadResult load(Path path, long limit) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(ch, Math.min(limit, ch.size()));
+            Chunk[] chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> parseChunk(ch, bounds[i], bounds[i + 1]))
+                    .toArray(Chunk[]::new);
+            return merge(chunks, start);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ------------------- Chunking -------------------
+    private static long[] chunkBounds(FileChannel ch, long size) throws IOException {
+        int parts = size < MIN_PARALLEL_SIZE ? 1 : Runtime.getRuntime().availableProcessors();
+        parts = (int) Math.max(parts, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+
+        long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        for (int i = 1; i < parts; i++) {
+            long guess = Math.max(bounds[i - 1], size / parts * i);
+            bounds[i] = nextLineStart(ch, guess, size);
+        }
+        return bounds;
+    }
+
+    /** Position just after the first '\n' at or after {@code pos}, or {@code size}. */
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(256);
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == NL) return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // ------------------- Parsing -------------------
+    /**
+     * Parsed lines of one chunk in order. Tombstones are kept inline (their
+     * index is listed in {@code tombstones}) so they can be applied in order.
+     */
+    private record Chunk(List<Event> items, List<Integer> tombstones, int records, int lines,
+                         List<Rejected> rejected) {
+    }
+
+    private static Chunk parseChunk(FileChannel ch, long from, long to) {
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<Event> items = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, (to - from) / 32));
+        List<Integer> tombstones = new ArrayList<>();
+        List<Rejected> rejected = new ArrayList<>(); // line numbers are chunk-relative until merge()
+        FieldDecoder decoder = new FieldDecoder();
+        DateCache dates = new DateCache();
+        CRC32C crc = new CRC32C();
+        int records = 0, lines = 0;
+        int limit = buf.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int end = pos;
+            while (end < limit && buf.get(end) != NL) end++;
+            int lineStart = pos, lineEnd = end > pos && buf.get(end - 1) == '\r' ? end - 1 : end;
+            lines++;
+            pos = end + 1;
+            if (isBlank(buf, lineStart, lineEnd)) continue;
+            records++;
+
+            byte op = buf.get(lineStart);
+            int csv = lineStart;
+            if (op == '+' || op == '-') {
+                csv = lineStart + 10; // op, 8 hex digits, ','
+                if (csv > lineEnd || buf.get(csv - 1) != COMMA) {
+                    rejected.add(new Rejected(lines, "malformed record " + quote(buf, lineStart, lineEnd)));
+                    continue;
+                }
+                long expected = parseHex(buf, lineStart + 1, csv - 1);
+                crc.reset();
+                buf.limit(lineEnd).position(csv);
+                crc.update(buf);
+                buf.limit(limit);
+                if (expected != crc.getValue()) {
+                    rejected.add(new Rejected(lines, "checksum mismatch (torn or edited record) "
+                            + quote(buf, lineStart, lineEnd)));
+                    continue;
+                }
+            }
+
+            int c1 = indexOf(buf, COMMA, csv, lineEnd);
+            int c2 = c1 < 0 ? -1 : indexOf(buf, COMMA, c1 + 1, lineEnd);
+            if (c2 < 0) {
+                rejected.add(new Rejected(lines, "expected date,time,title " + quote(buf, lineStart, lineEnd)));
+                continue;
+            }
+            int date = parseDate(buf, csv, c1);
+            if (date < 0) {
+                rejected.add(new Rejected(lines, "invalid date " + quote(buf, csv, c1)));
+                continue;
+            }
+
+            // Optional "90m", "@Venue" and "~rule" fields sit between the time and the title. Only
+            // checksummed records can have them: a plain line is an old "date,time,title" whose
+            // title may itself start with "@...," or "90m,".
+            int titleStart = c2 + 1, duration = 0;
+            String venue = "";
+            Recurrence repeat = null;
+            String badRule = null;
+            for (int next; csv != lineStart && (next = indexOf(buf, COMMA, titleStart, lineEnd)) >= 0;
+                 titleStart = next + 1) {
+                if (next == titleStart) { // an empty field ends the tags
+                    titleStart++;
+                    break;
+                }
+                if (venue.isEmpty() && next - titleStart > 1 && buf.get(titleStart) == '@') {
+                    venue = decoder.decodeShared(buf, titleStart + 1, next);
+                } else if (duration == 0 && parseDuration(buf, titleStart, next) > 0) {
+                    duration = parseDuration(buf, titleStart, next);
+                } else if (repeat == null && next - titleStart > 1 && buf.get(titleStart) == '~') {
+                    try {
+                        repeat = Recurrence.parse(decoder.decodeShared(buf, titleStart + 1, next));
+                    } catch (IllegalArgumentException ex) {
+                        badRule = ex.getMessage();
+                        break;
+                    }
+                } else {
+                    break;
+                }
+            }
+            if (badRule != null) {
+                rejected.add(new Rejected(lines, badRule + " " + quote(buf, lineStart, lineEnd)));
+                continue;
+            }
+
+            Event e = new Event(dates.get(date), decoder.decodeShared(buf, c1 + 1, c2),
+                    decoder.decode(buf, titleStart, lineEnd), duration, venue, repeat);
+            if (op == '-') tombstones.add(items.size());
+            items.add(e);
+        }
+        return new Chunk(items, tombstones, records, lines, rejected);
+    }
+
+    private static LoadResult merge(Chunk[] chunks, long start) {
+        int total = 0;
+        boolean anyTombstones = false;
+        for (Chunk c : chunks) {
+            total += c.items().size();
+            anyTombstones |= !c.tombstones().isEmpty();
+        }
+
+        List<Event> events = new ArrayList<>(total);
+        List<Rejected> rejected = new ArrayList<>();
+        Map<String, Deque<Integer>> positions = anyTombstones ? new HashMap<>() : null;
+        int records = 0;
+        long lineBase = 0;
+        for (Chunk c : chunks) {
+            records += c.records();
+            for (Rejected r : c.rejected()) rejected.add(new Rejected(lineBase + r.line(), r.reason()));
+            lineBase += c.lines();
+
+            if (positions == null) {
+                events.addAll(c.items());
+                continue;
+            }
+            int nextTombstone = 0;
+            for (int i = 0; i < c.items().size(); i++) {
+                Event e = c.items().get(i);
+                boolean tombstone = nextTombstone < c.tombstones().size() && c.tombstones().get(nextTombstone) == i;
+                if (tombstone) {
+                    nextTombstone++;
+                    Deque<Integer> at = positions.get(e.toCsv());
+                    if (at != null && !at.isEmpty()) events.set(at.pollLast(), null);
+                } else {
+                    positions.computeIfAbsent(e.toCsv(), k -> new ArrayDeque<>()).add(events.size());
+                    events.add(e);
+                }
+            }
+        }
+        if (positions != null) events.removeIf(e -> e == null);
+        return new LoadResult(events, records, rejected, System.nanoTime() - start);
+    }
+
+    // ------------------- Snapshot -------------------
+    /**
+     * Events from {@code snapshot} if it was written from {@code csv} as it is
+     * now; otherwise parses the CSV and rewrites the snapshot for the next
+     * start (a failed write only costs that speed-up).
+     */
+    static LoadResult loadCached(Path csv, Path snapshot) throws IOException {
+        SnapshotFile.Table t = SnapshotFile.openIfCurrent(snapshot, "events", csv);
+        if (t != null) {
+            try {
+                return readSnapshot(t);
+            } catch (IOException e) {
+                System.err.println("Ignoring " + snapshot + ": " + e.getMessage());
+            }
+        }
+        String[] stamp = SnapshotFile.sourceStamp(csv);
+        LoadResult r = load(csv);
+        try {
+            writeSnapshot(snapshot, r.events(), r.records(), stamp);
+        } catch (IOException e) {
+            System.err.println("Could not write " + snapshot + ": " + e.getMessage());
+        }
+        return r;
+    }
+
+    /** {@code records} is the number of lines in the CSV, which EventStore needs to decide on compaction. */
+    static void writeSnapshot(Path path, List<Event> events, int records, String[] sourceStamp) throws IOException {
+        new SnapshotFile.Writer("events", events.size())
+                .source(sourceStamp)
+                .meta("records", records)
+                .ints("date", i -> (int) events.get(i).date.toEpochDay())
+                .strings("time", i -> events.get(i).time)
+                .strings("title", i -> events.get(i).title)
+                .ints("duration", i -> events.get(i).duration)
+                .strings("venue", i -> events.get(i).venue)
+                .strings("repeat", i -> events.get(i).repeat == null ? "" : events.get(i).repeat.toTag())
+                .write(path);
+    }
+
+    static LoadResult readSnapshot(SnapshotFile.Table t) throws IOException {
+        long start = System.nanoTime();
+        SnapshotFile.Ints dates = t.ints("date"), durations = t.ints("duration");
+        SnapshotFile.Strings times = t.strings("time"), titles = t.strings("title"),
+                venues = t.strings("venue"), repeats = t.strings("repeat");
+        int records;
+        try {
+            records = Integer.parseInt(t.meta("records"));
+        } catch (NumberFormatException e) {
+            throw new IOException("bad record count");
+        }
+        // Each distinct rule is parsed once, and a day is reused while consecutive rows share it.
+        Recurrence[] rules = new Recurrence[repeats.distinct()];
+        List<Event> events = new ArrayList<>(t.rows());
+        LocalDate day = null;
+        for (int i = 0; i < t.rows(); i++) {
+            int epochDay = dates.get(i);
+            if (day == null || day.toEpochDay() != epochDay) day = LocalDate.ofEpochDay(epochDay);
+            int rule = repeats.code(i);
+            String tag = repeats.value(rule);
+            if (!tag.isEmpty() && rules[rule] == null) {
+                try {
+                    rules[rule] = Recurrence.parse(tag);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("bad repeat rule: " + e.getMessage());
+                }
+            }
+            events.add(new Event(day, times.get(i), titles.get(i), durations.get(i), venues.get(i), rules[rule]));
+        }
+        return new LoadResult(events, records, List.of(), System.nanoTime() - start);
+    }
+
+    // ------------------- Field Parsing -------------------
+    /**
+     * Reads yyyy-MM-dd from {@code [from, to)} as yyyy * 10000 + MM * 100 + dd,
+     * or -1 if the bytes are not a valid calendar date. Allocates nothing.
+     */
+    static int parseDate(ByteBuffer buf, int from, int to) {
+        if (to - from != 10 || buf.get(from + 4) != '-' || buf.get(from + 7) != '-') return -1;
+        int year = digits(buf, from, 4), month = digits(buf, from + 5, 2), day = digits(buf, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return -1;
+        return day <= daysInMonth(year, month) ? year * 10_000 + month * 100 + day : -1;
+    }
+
+    /** Minutes from a "90m" field, or 0 if the field is not one. */
+    private static int parseDuration(ByteBuffer buf, int from, int to) {
+        int n = to - from;
+        if (n < 2 || n > 6 || buf.get(to - 1) != 'm') return 0;
+        return Math.max(0, digits(buf, from, n - 1));
+    }
+
+    private static int digits(ByteBuffer buf, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static long parseHex(ByteBuffer buf, int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int b = buf.get(i), d;
+            if (b >= '0' && b <= '9') d = b - '0';
+            else if (b >= 'a' && b <= 'f') d = b - 'a' + 10;
+            else if (b >= 'A' && b <= 'F') d = b - 'A' + 10;
+            else return -1;
+            v = v << 4 | d;
+        }
+        return v;
+    }
+
+    private static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\t') return false;
+        }
+        return true;
+    }
+
+    /** The offending text for a report; only allocated for rejected lines. */
+    private static String quote(ByteBuffer buf, int from, int to) {
+        int len = Math.min(to - from, MAX_SHOWN_TEXT);
+        byte[] b = new byte[len];
+        buf.get(from, b, 0, len);
+        return "'" + new String(b, StandardCharsets.UTF_8) + (to - from > len ? "...'" : "'");
+    }
+
+    /** One LocalDate instance per distinct day seen by a chunk; collisions simply replace. */
+    private static final class DateCache {
+        private final int[] keys = new int[4096];
+        private final LocalDate[] values = new LocalDate[4096];
+
+        LocalDate get(int packed) {
+            int slot = (packed * 0x9E3779B1) >>> 20;
+            if (keys[slot] == packed && values[slot] != null) return values[slot];
+            LocalDate d = LocalDate.of(packed / 10_000, packed / 100 % 100, packed % 100);
+            keys[slot] = packed;
+            values[slot] = d;
+            return d;
+        }
+    }
+
+    // ------------------- Load Report -------------------
+    /** Usage: EventFile [path] [linesToGenerate] */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "events.csv");
+        if (args.length > 1) generate(path, Integer.parseInt(args[1]));
+
+        load(path); // warm-up so the reported run is not dominated by JIT compilation
+        LoadResult r = load(path);
+        System.out.printf("Loaded %,d events from %,d records in %.1f ms using %d cores; %d rejected%n",
+                r.events().size(), r.records(), r.nanos() / 1e6,
+                Runtime.getRuntime().availableProcessors(), r.rejected().size());
+        r.rejected().stream().limit(20).forEach(System.out::println);
+    }
+
+    static void generate(Path path, int lines) throws IOException {
+        String[] times = {"9AM", "10:30", "12PM", "2PM", "14:00", "4:15 pm", "6PM", "noon"};
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                w.write(new Event(base.plusDays(i % 3650), times[i % times.length], "Campus event " + i).toCsv());
+                w.write('\n');
+            }
+        }
+    }
+}
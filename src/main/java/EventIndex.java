@@ -0,0 +1,280 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Campus events kept in date / time order, so the calendar never re-sorts.
+ * Description:
+ *  - Events sit in a ConcurrentSkipListMap under a single long key:
+ *    (epoch day * 1441 + minute of day) in the high bits and an insertion
+ *    counter in the low 24, so equal times keep the order they were added in
+ *  - The minute of day is parsed once per event from the free-form time
+ *    ("14:00", "2PM", "9:30 am", "noon"); times that cannot be read sort
+ *    after every other event of that day
+ *  - Day, date-window and next-N queries are a skip-list seek plus a walk
+ *    over the k matches: O(log n + k)
+ *  - A recurring event is one entry (at its first day). Queries expand each
+ *    series only over the dates asked for, lazily, and merge the
+ *    occurrences with the one-off events through a heap, so a ten-year
+ *    weekly series costs one entry and next-N stops after N
+ *  - Recurring events are also grouped by venue, so a clash check only
+ *    looks at the series booked into the same venue
+ */
+class EventIndex {
+
+    static final int UNKNOWN_MINUTE = 1440;
+    private static final int SLOTS_PER_DAY = 1441; // minutes 0..1439 plus UNKNOWN_MINUTE
+    private static final int SEQ_BITS = 24;
+
+    private final ConcurrentSkipListMap<Long, Event> byTime = new ConcurrentSkipListMap<>();
+    // Events compare by identity, so two identical entries are still separate events.
+    private final Map<Event, Long> keys = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final Set<Event> recurring = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Event>> recurringAt = new ConcurrentHashMap<>(); // by EventConflicts.venueKey
+
+    void add(Event e) {
+        long slot = key(e.date, e.minute);
+        long key;
+        do { // the counter wraps after 16M adds; skip a low part still in use
+            key = slot | (seq.getAndIncrement() & ((1L << SEQ_BITS) - 1));
+        } while (byTime.putIfAbsent(key, e) != null);
+        keys.put(e, key);
+        if (e.repeat != null) {
+            recurring.add(e);
+            if (!e.venue.isEmpty()) {
+                recurringAt.computeIfAbsent(EventConflicts.venueKey(e.venue), k -> ConcurrentHashMap.newKeySet()).add(e);
+            }
+        }
+    }
+
+    void addAll(Iterable<Event> events) {
+        for (Event e : events) add(e);
+    }
+
+    /** False if the event is not in the index. */
+    boolean remove(Event e) {
+        Long key = keys.remove(e);
+        if (recurring.remove(e) && !e.venue.isEmpty()) {
+            recurringAt.computeIfPresent(EventConflicts.venueKey(e.venue), (k, series) -> {
+                series.remove(e);
+                return series.isEmpty() ? null : series;
+            });
+        }
+        return key != null && byTime.remove(key) != null;
+    }
+
+    /** Entries; a recurring event counts once. */
+    int size() {
+        return byTime.size();
+    }
+
+    boolean isEmpty() {
+        return byTime.isEmpty();
+    }
+
+    /** Every entry, earliest first; a recurring event is listed once, at its first day. */
+    List<Event> all() {
+        return new ArrayList<>(byTime.values());
+    }
+
+    /** Entries whose (first) day is {@code day}, without expanding recurring events. */
+    List<Event> entriesOn(LocalDate day) {
+        return new ArrayList<>(byTime.subMap(key(day, 0), true, key(day.plusDays(1), 0), false).values());
+    }
+
+    /** Events on this day in time order. */
+    List<Event> onDay(LocalDate day) {
+        return between(day, day);
+    }
+
+    /**
+     * Occurrences on this day of the recurring events booked into this venue,
+     * in no particular order; one-off events are left out.
+     */
+    List<Event> recurringOn(String venue, LocalDate day) {
+        Set<Event> series = recurringAt.get(EventConflicts.venueKey(venue));
+        if (series == null) return List.of();
+        List<Event> out = new ArrayList<>();
+        for (Event s : series) {
+            if (!keys.containsKey(s) || (s.last != null && s.last.isBefore(day)) || s.date.isAfter(day)) continue;
+            Iterator<LocalDate> dates = s.dates(day);
+            if (dates.hasNext() && dates.next().equals(day)) out.add(s.on(day));
+        }
+        return out;
+    }
+
+    /**
+     * Events from {@code first} through {@code last} (both inclusive), in
+     * order, with recurring events expanded to their occurrences.
+     */
+    List<Event> between(LocalDate first, LocalDate last) {
+        return between(first, last, Integer.MAX_VALUE);
+    }
+
+    /** The first {@code limit} events of {@link #between(LocalDate, LocalDate)}; the rest are never expanded. */
+    List<Event> between(LocalDate first, LocalDate last, int limit) {
+        if (last.isBefore(first)) return List.of();
+        List<Event> out = new ArrayList<>();
+        Iterator<Event> it = occurrences(first, 0, last);
+        while (out.size() < limit && it.hasNext()) out.add(it.next());
+        return out;
+    }
+
+    /** The next {@code n} events at or after {@code now}, recurring events expanded. */
+    List<Event> upcoming(LocalDateTime now, int n) {
+        Iterator<Event> it = occurrences(now.toLocalDate(), now.getHour() * 60 + now.getMinute(), null);
+        List<Event> out = new ArrayList<>(Math.min(n, 64));
+        while (out.size() < n && it.hasNext()) out.add(it.next());
+        return out;
+    }
+
+    private static long key(LocalDate date, int minute) {
+        return (date.toEpochDay() * SLOTS_PER_DAY + minute) << SEQ_BITS;
+    }
+
+    // ------------------- Occurrence Stream -------------------
+    /**
+     * One-off events and occurrences of recurring events from {@code minute}
+     * on {@code first} through {@code last} (null = no end), in key order.
+     */
+    private Iterator<Event> occurrences(LocalDate first, int minute, LocalDate last) {
+        long from = key(first, minute);
+        Map<Long, Event> oneOffs = last == null ? byTime.tailMap(from, true)
+                : byTime.subMap(from, true, key(last.plusDays(1), 0), false);
+        PriorityQueue<Cursor> heap = new PriorityQueue<>();
+        new Cursor(oneOffs.entrySet().iterator(), null, null, 0, from, last).pushTo(heap);
+        for (Event s : recurring) {
+            Long key = keys.get(s);
+            if (key == null || (s.last != null && s.last.isBefore(first)) || (last != null && s.date.isAfter(last))) {
+                continue;
+            }
+            long low = key & ((1L << SEQ_BITS) - 1);
+            new Cursor(null, s, s.dates(first), low, from, last).pushTo(heap);
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public Event next() {
+                Cursor c = heap.poll();
+                if (c == null) throw new NoSuchElementException();
+                Event e = c.current;
+                c.pushTo(heap);
+                return e;
+            }
+        };
+    }
+
+    /** Walks either the one-off entries of a key range or the occurrences of one series. */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Iterator<Map.Entry<Long, Event>> entries;
+        private final Event series;
+        private final Iterator<LocalDate> dates;
+        private final long low; // the series' insertion counter, so ties keep the order events were added in
+        private final long from;
+        private final LocalDate last;
+        Event current;
+        long key;
+
+        Cursor(Iterator<Map.Entry<Long, Event>> entries, Event series, Iterator<LocalDate> dates, long low,
+               long from, LocalDate last) {
+            this.entries = entries;
+            this.series = series;
+            this.dates = dates;
+            this.low = low;
+            this.from = from;
+            this.last = last;
+        }
+
+        /** Moves to the next event and re-enters the heap, or drops out when done. */
+        void pushTo(PriorityQueue<Cursor> heap) {
+            if (advance()) heap.add(this);
+        }
+
+        private boolean advance() {
+            if (entries != null) {
+                while (entries.hasNext()) {
+                    Map.Entry<Long, Event> en = entries.next();
+                    if (en.getValue().repeat != null) continue; // series are expanded by their own cursor
+                    current = en.getValue();
+                    key = en.getKey();
+                    return true;
+                }
+                return false;
+            }
+            while (dates.hasNext()) {
+                LocalDate d = dates.next();
+                if (last != null && d.isAfter(last)) return false;
+                key = key(d, series.minute) | low;
+                if (key < from) continue; // earlier on the first day
+                current = series.on(d);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int compareTo(Cursor o) {
+            return Long.compare(key, o.key);
+        }
+    }
+
+    // ------------------- Time Parsing -------------------
+    /**
+     * Minute of day (0-1439) for times like "14:00", "2PM", "2:30 p.m.", "0930",
+     * "noon" or "midnight"; UNKNOWN_MINUTE if the text is not a time.
+     */
+    static int minuteOfDay(String time) {
+        String t = time.trim().toLowerCase(Locale.ROOT);
+        if (t.equals("noon")) return 12 * 60;
+        if (t.equals("midnight")) return 0;
+
+        int i = 0, n = t.length();
+        int hour = 0, digits = 0;
+        while (i < n && Character.isDigit(t.charAt(i)) && digits < 4) {
+            hour = hour * 10 + (t.charAt(i++) - '0');
+            digits++;
+        }
+        if (digits == 0) return UNKNOWN_MINUTE;
+
+        int minute = 0;
+        if (digits >= 3) { // "930" or "1400"
+            minute = hour % 100;
+            hour /= 100;
+        } else if (i < n && (t.charAt(i) == ':' || t.charAt(i) == '.')) {
+            i++;
+            if (i + 2 > n || !Character.isDigit(t.charAt(i)) || !Character.isDigit(t.charAt(i + 1))) return UNKNOWN_MINUTE;
+            minute = (t.charAt(i) - '0') * 10 + (t.charAt(i + 1) - '0');
+            i += 2;
+        }
+
+        while (i < n && t.charAt(i) == ' ') i++;
+        String suffix = t.substring(i).replace(".", "").replace(" ", "");
+        boolean am = suffix.equals("am") || suffix.equals("a");
+        boolean pm = suffix.equals("pm") || suffix.equals("p");
+        if (!suffix.isEmpty() && !am && !pm) return UNKNOWN_MINUTE;
+        if (minute > 59) return UNKNOWN_MINUTE;
+        if (am || pm) {
+            if (hour < 1 || hour > 12) return UNKNOWN_MINUTE;
+            hour = hour % 12 + (pm ? 12 : 0);
+        } else if (hour > 23) {
+            return UNKNOWN_MINUTE;
+        }
+        return hour * 60 + minute;
+    }
+}
@@ -0,0 +1,427 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Incremental, crash-safe persistence for the campus events file.
+ * Description:
+ *  - events.csv stays a readable CSV; plain "date,time,title" lines are
+ *    events written by older versions of the tool, read without tags
+ *  - Changes are appended as checksummed records: "+crc,csv" adds an event
+ *    and "-crc,csv" is a tombstone removing one copy of it; a half-written
+ *    record fails its CRC32C, is rejected on load and cut off when the
+ *    file is next opened for appending
+ *  - add() / remove() only buffer the record; a flusher thread writes all
+ *    buffered records and fsyncs once, and sync() waits for that
+ *  - Once tombstones and the lines they cancel outnumber the live events,
+ *    a background compaction rewrites the file from itself into a temp
+ *    file and atomically renames it over events.csv
+ */
+class EventStore implements Closeable {
+
+    private static final int MIN_DEAD_TO_COMPACT = 64;
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    // Held while bytes move to disk (flusher batches and compaction), so the
+    // file is never swapped under a batch that has already left `pending`.
+    private final ReentrantLock ioLock = new ReentrantLock();
+    // Guarded by lock.
+    private FileChannel channel;
+    private StringBuilder pending = new StringBuilder();
+    private long nextSeq = 1;
+    private long durableSeq;
+    private int live;
+    private int dead;
+    private Thread compactor;
+    private boolean unterminated; // the file ends mid-line; the first append starts a new one
+    private boolean closed;
+    private IOException failure;
+
+    private final Thread flusher;
+
+    private EventStore(Path file, int live, int dead) throws IOException {
+        this.file = file;
+        this.live = live;
+        this.dead = dead;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.flusher = new Thread(this::flushLoop, "events-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens (or creates) the file for appending; {@code loaded} is what
+     * {@link EventFile#load} read from it. A torn last record is cut off first;
+     * any other last line without a newline is kept and ended by the first append.
+     */
+    static EventStore open(Path file, EventFile.LoadResult loaded) throws IOException {
+        Tail tail = Files.exists(file) ? repairTail(file) : Tail.CLEAN;
+        int live = loaded.events().size();
+        // A cut record was loaded as rejected, which counts it among the dead lines.
+        int dead = loaded.records() - live - (tail == Tail.CUT ? 1 : 0);
+        EventStore store = new EventStore(file, live, dead);
+        store.unterminated = tail == Tail.UNTERMINATED;
+        store.maybeCompact();
+        return store;
+    }
+
+    /** Lines in the file: live events, plus tombstones and the lines they cancel. */
+    int records() {
+        lock.lock();
+        try {
+            return live + dead;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ------------------- Changes -------------------
+    void add(Event e) {
+        append('+', e.toCsv());
+    }
+
+    void remove(Event e) {
+        append('-', e.toCsv());
+    }
+
+    /** Blocks until every add / remove made so far is on disk. */
+    void sync() {
+        long t0 = System.nanoTime();
+        lock.lock();
+        try {
+            long target = nextSeq - 1;
+            while (durableSeq < target) {
+                if (failure != null) throw new UncheckedIOException("Saving events failed", failure);
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+            Metrics.record(Metrics.Op.EVENT_SAVE, t0);
+        }
+    }
+
+    private void append(char op, String csv) {
+        lock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Saving events failed", failure);
+            if (closed) throw new IllegalStateException("Event store is closed");
+            if (unterminated) {
+                pending.append('\n');
+                unterminated = false;
+            }
+            pending.append(op).append(checksum(csv)).append(',').append(csv).append('\n');
+            nextSeq++;
+            if (op == '+') {
+                live++;
+            } else {
+                live--;
+                dead += 2; // the tombstone and the line it cancels
+            }
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        maybeCompact();
+    }
+
+    // ------------------- Group Commit -------------------
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.length() == 0 && !closed) work.awaitUninterruptibly();
+                if (pending.length() == 0) return; // closed and drained
+            } finally {
+                lock.unlock();
+            }
+
+            ioLock.lock();
+            try {
+                String batch;
+                long lastSeq;
+                FileChannel ch;
+                lock.lock();
+                try {
+                    batch = pending.toString();
+                    pending = new StringBuilder(Math.max(256, batch.length()));
+                    lastSeq = nextSeq - 1;
+                    ch = channel;
+                } finally {
+                    lock.unlock();
+                }
+                if (batch.isEmpty()) continue; // a compaction wrote it already
+
+                try {
+                    write(ch, batch);
+                    ch.force(false);
+                } catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+                markDurable(lastSeq);
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    private void markDurable(long seq) {
+        lock.lock();
+        try {
+            durableSeq = Math.max(durableSeq, seq);
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ------------------- Compaction -------------------
+    private void maybeCompact() {
+        lock.lock();
+        try {
+            if (compactor != null || closed || dead < MIN_DEAD_TO_COMPACT || dead < live) return;
+            compactor = new Thread(this::compactQuietly, "events-compaction");
+            compactor.setDaemon(true);
+            compactor.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            // The append-only file is still intact; a later change retries.
+            System.err.println("Event compaction failed: " + e.getMessage());
+        } finally {
+            lock.lock();
+            try {
+                compactor = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the file as one "+crc,csv" record per live event. The bulk of the
+     * file is read without blocking writers; only the records appended while
+     * that ran are copied across under the lock, just before the rename.
+     */
+    void compact() throws IOException {
+        sync();
+        long end;
+        ioLock.lock();
+        try {
+            end = channelSize();
+        } finally {
+            ioLock.unlock();
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        EventFile.LoadResult loaded = EventFile.load(file, end);
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Event e : loaded.events()) {
+                String csv = e.toCsv();
+                w.write('+');
+                w.write(checksum(csv));
+                w.write(',');
+                w.write(csv);
+                w.write('\n');
+            }
+        }
+
+        ioLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (closed) {
+                    Files.deleteIfExists(tmp);
+                    return;
+                }
+                String batch = pending.toString();
+                pending = new StringBuilder();
+                long lastSeq = nextSeq - 1;
+                // Tombstones copied across stay in the new file, each with the line it cancels.
+                int tombstones = tombstones(batch);
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        tombstones += tombstones(in, end, size);
+                        for (long pos = end; pos < size; ) pos += in.transferTo(pos, size - pos, out);
+                    }
+                    write(out, batch);
+                    out.force(true);
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                syncDirectory();
+                channel.close();
+                channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                dead = 2 * tombstones;
+                unterminated = false; // every line in the new file ends with '\n'
+                durableSeq = Math.max(durableSeq, lastSeq);
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private long channelSize() throws IOException {
+        lock.lock();
+        try {
+            return channel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ------------------- Files -------------------
+    private enum Tail { CLEAN, CUT, UNTERMINATED }
+
+    /**
+     * A crash can leave a partial "+crc,csv" / "-crc,csv" record at the end;
+     * it fails its checksum and is cut off so the next append starts cleanly.
+     * A last line without a newline that is not a torn record (an old plain
+     * line, or a hand edit) is kept.
+     */
+    private static Tail repairTail(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long keep = size;
+            while (keep > 0) {
+                one.clear();
+                ch.read(one, keep - 1);
+                if (one.get(0) == '\n') break;
+                keep--;
+            }
+            if (keep == size) return Tail.CLEAN;
+
+            ByteBuffer last = ByteBuffer.allocate((int) (size - keep));
+            for (long pos = keep; last.hasRemaining(); ) {
+                int n = ch.read(last, pos);
+                if (n <= 0) break;
+                pos += n;
+            }
+            String line = new String(last.array(), 0, last.position(), StandardCharsets.UTF_8);
+            if (!isTornRecord(line)) return Tail.UNTERMINATED;
+            ch.truncate(keep);
+            ch.force(true);
+            return Tail.CUT;
+        }
+    }
+
+    /** A "+" / "-" line that is malformed or fails its checksum, as EventFile rejects it. */
+    private static boolean isTornRecord(String line) {
+        if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+        if (!line.startsWith("+") && !line.startsWith("-")) return false;
+        return line.length() < 10 || line.charAt(9) != ','
+                || !line.substring(1, 9).equalsIgnoreCase(checksum(line.substring(10)));
+    }
+
+    // ------------------- Helpers -------------------
+    private static String checksum(String csv) {
+        CRC32C crc = new CRC32C();
+        crc.update(csv.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    /** "-crc,csv" lines in the buffered records. */
+    private static int tombstones(String batch) {
+        int n = 0;
+        for (int i = 0; i < batch.length(); i++) {
+            if (batch.charAt(i) == '-' && (i == 0 || batch.charAt(i - 1) == '\n')) n++;
+        }
+        return n;
+    }
+
+    /** "-crc,csv" lines in bytes [from, to) of the file, which start on a line. */
+    private static int tombstones(FileChannel ch, long from, long to) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        int n = 0;
+        boolean lineStart = true;
+        for (long pos = from; pos < to; ) {
+            buf.clear().limit((int) Math.min(buf.capacity(), to - pos));
+            int read = ch.read(buf, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = buf.get(i);
+                if (lineStart && b == '-') n++;
+                lineStart = b == '\n';
+            }
+            pos += read;
+        }
+        return n;
+    }
+
+    private static void write(FileChannel ch, String batch) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(batch.getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    private void syncDirectory() {
+        Path dir = file.toAbsolutePath().getParent();
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException ignored) {
+            // e.g. Windows cannot open a directory as a channel
+        }
+    }
+
+    /** Writes everything still buffered and stops the background threads. */
+    @Override
+    public void close() throws IOException {
+        Thread running;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            running = compactor;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+            if (running != null) running.join(); // sees `closed` and abandons its temp file
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+        if (failure != null) throw failure;
+    }
+}
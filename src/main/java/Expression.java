@@ -0,0 +1,469 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arithmetic expressions for the Utility calculator, compiled once and
+ * evaluated many times.
+ * Description:
+ *  - Grammar: numbers, variables, + - * / % ^ (right-associative), unary
+ *    minus / plus, parentheses and functions such as sqrt, min, max, round
+ *  - compile() parses to a tree, folds constant sub-expressions and emits
+ *    postfix code over a small operand stack; compiled expressions are
+ *    immutable and cached by their source text
+ *  - Variables are numbered in order of first appearance, so a value array
+ *    or a set of columns lines up with variables()
+ *  - evaluateBatch() runs the code over columns 1024 rows at a time: each
+ *    instruction is a tight loop over a block, not a per-row dispatch
+ *  - Division by zero and the like follow double arithmetic (Infinity / NaN)
+ */
+final class Expression {
+
+    private static final int CACHE_LIMIT = 1024;
+    private static final Map<String, Expression> CACHE = new ConcurrentHashMap<>();
+    private static final int BLOCK = 1024;
+
+    // Instructions; CONST, VAR and CALL are followed by one operand.
+    private static final int CONST = 0, VAR = 1, NEG = 2, ADD = 3, SUB = 4, MUL = 5, DIV = 6, MOD = 7,
+            POW = 8, CALL = 9;
+
+    /** Built-in functions; {@code arity} -1 means two or more arguments (min / max). */
+    enum Fn {
+        SQRT(1), ABS(1), ROUND(1), FLOOR(1), CEIL(1), LN(1), LOG(1), EXP(1), SIN(1), COS(1), TAN(1),
+        POW(2), MIN(-1), MAX(-1);
+
+        final int arity;
+
+        Fn(int arity) {
+            this.arity = arity;
+        }
+
+        double apply(double a) {
+            return switch (this) {
+                case SQRT -> Math.sqrt(a);
+                case ABS -> Math.abs(a);
+                case ROUND -> Math.round(a);
+                case FLOOR -> Math.floor(a);
+                case CEIL -> Math.ceil(a);
+                case LN -> Math.log(a);
+                case LOG -> Math.log10(a);
+                case EXP -> Math.exp(a);
+                case SIN -> Math.sin(a);
+                case COS -> Math.cos(a);
+                case TAN -> Math.tan(a);
+                default -> throw new IllegalStateException(name() + " takes two arguments");
+            };
+        }
+
+        double apply(double a, double b) {
+            return switch (this) {
+                case POW -> Math.pow(a, b);
+                case MIN -> Math.min(a, b);
+                case MAX -> Math.max(a, b);
+                default -> throw new IllegalStateException(name() + " takes one argument");
+            };
+        }
+    }
+
+    private static final Fn[] FUNCTIONS = Fn.values();
+
+    private final String source;
+    private final int[] code;
+    private final double[] constants;
+    private final String[] variables;
+    private final int maxStack;
+
+    private Expression(String source, int[] code, double[] constants, String[] variables, int maxStack) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    /** Compiled form of {@code source}, from the cache when it was compiled before. */
+    static Expression compile(String source) {
+        Expression e = CACHE.get(source);
+        if (e != null) return e;
+        e = parse(source);
+        if (CACHE.size() >= CACHE_LIMIT) CACHE.clear(); // simple bound; hot formulas come straight back
+        CACHE.put(source, e);
+        return e;
+    }
+
+    /** Compiles without touching the cache. */
+    static Expression parse(String source) {
+        Parser p = new Parser(source);
+        Node tree = p.parseAll();
+        Emitter out = new Emitter();
+        out.emit(tree);
+        double[] constants = out.constants.stream().mapToDouble(d -> d).toArray();
+        return new Expression(source, Arrays.copyOf(out.code, out.size), constants,
+                p.variables.toArray(new String[0]), Math.max(1, out.maxDepth));
+    }
+
+    /** Variable names in slot order. */
+    List<String> variables() {
+        return List.of(variables);
+    }
+
+    String source() {
+        return source;
+    }
+
+    // ------------------- Evaluation -------------------
+    /** Evaluates with one value per variable, in the order of {@link #variables()}. */
+    double evaluate(double... values) {
+        if (values.length < variables.length) {
+            throw new IllegalArgumentException("Expected values for " + Arrays.toString(variables));
+        }
+        double[] stack = new double[maxStack];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case CONST -> stack[sp++] = constants[code[++pc]];
+                case VAR -> stack[sp++] = values[code[++pc]];
+                case NEG -> stack[sp - 1] = -stack[sp - 1];
+                case ADD -> { sp--; stack[sp - 1] += stack[sp]; }
+                case SUB -> { sp--; stack[sp - 1] -= stack[sp]; }
+                case MUL -> { sp--; stack[sp - 1] *= stack[sp]; }
+                case DIV -> { sp--; stack[sp - 1] /= stack[sp]; }
+                case MOD -> { sp--; stack[sp - 1] %= stack[sp]; }
+                case POW -> { sp--; stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]); }
+                case CALL -> {
+                    Fn fn = FUNCTIONS[code[++pc]];
+                    if (fn.arity == 1) {
+                        stack[sp - 1] = fn.apply(stack[sp - 1]);
+                    } else {
+                        sp--;
+                        stack[sp - 1] = fn.apply(stack[sp - 1], stack[sp]);
+                    }
+                }
+                default -> throw new IllegalStateException("Bad instruction " + code[pc]);
+            }
+        }
+        return stack[0];
+    }
+
+    /** Evaluates with named values; every variable must be bound. */
+    double evaluate(Map<String, Double> bindings) {
+        double[] values = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double v = bindings.get(variables[i]);
+            if (v == null) throw new IllegalArgumentException("Unknown variable: " + variables[i]);
+            values[i] = v;
+        }
+        return evaluate(values);
+    }
+
+    /**
+     * Evaluates every row of the given columns (one per variable, in the
+     * order of {@link #variables()}, all the same length).
+     */
+    double[] evaluateBatch(double[]... columns) {
+        if (columns.length < variables.length) {
+            throw new IllegalArgumentException("Expected columns for " + Arrays.toString(variables));
+        }
+        int rows = variables.length == 0 ? 1 : columns[0].length;
+        for (int v = 1; v < variables.length; v++) {
+            if (columns[v].length != rows) throw new IllegalArgumentException("Columns differ in length");
+        }
+
+        double[] result = new double[rows];
+        double[][] stack = new double[maxStack][BLOCK];
+        for (int from = 0; from < rows; from += BLOCK) {
+            int n = Math.min(BLOCK, rows - from);
+            int sp = 0;
+            for (int pc = 0; pc < code.length; pc++) {
+                switch (code[pc]) {
+                    case CONST -> Arrays.fill(stack[sp++], 0, n, constants[code[++pc]]);
+                    case VAR -> System.arraycopy(columns[code[++pc]], from, stack[sp++], 0, n);
+                    case NEG -> {
+                        double[] a = stack[sp - 1];
+                        for (int i = 0; i < n; i++) a[i] = -a[i];
+                    }
+                    case ADD -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] += b[i];
+                    }
+                    case SUB -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] -= b[i];
+                    }
+                    case MUL -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] *= b[i];
+                    }
+                    case DIV -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] /= b[i];
+                    }
+                    case MOD -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] %= b[i];
+                    }
+                    case POW -> {
+                        double[] a = stack[sp - 2], b = stack[--sp];
+                        for (int i = 0; i < n; i++) a[i] = Math.pow(a[i], b[i]);
+                    }
+                    case CALL -> {
+                        Fn fn = FUNCTIONS[code[++pc]];
+                        if (fn.arity == 1) {
+                            double[] a = stack[sp - 1];
+                            for (int i = 0; i < n; i++) a[i] = fn.apply(a[i]);
+                        } else {
+                            double[] a = stack[sp - 2], b = stack[--sp];
+                            for (int i = 0; i < n; i++) a[i] = fn.apply(a[i], b[i]);
+                        }
+                    }
+                    default -> throw new IllegalStateException("Bad instruction " + code[pc]);
+                }
+            }
+            System.arraycopy(stack[0], 0, result, from, n);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // ------------------- Parsing -------------------
+    private sealed interface Node permits Num, Var, Unary, Binary, Call {
+    }
+
+    private record Num(double value) implements Node {
+    }
+
+    private record Var(int slot) implements Node {
+    }
+
+    private record Unary(Node operand) implements Node {
+    }
+
+    private record Binary(int op, Node left, Node right) implements Node {
+    }
+
+    private record Call(Fn fn, Node left, Node right) implements Node { // right is null for one argument
+    }
+
+    /**
+     * Recursive descent:
+     *   sum     = product (('+' | '-') product)*
+     *   product = unary (('*' | '/' | '%') unary)*
+     *   unary   = ('-' | '+') unary | power
+     *   power   = atom ('^' unary)?
+     *   atom    = number | name | name '(' sum (',' sum)* ')' | '(' sum ')'
+     */
+    private static final class Parser {
+        private final String src;
+        private int pos;
+        final List<String> variables = new ArrayList<>();
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        Node parseAll() {
+            Node n = sum();
+            skipSpaces();
+            if (pos < src.length()) throw error("Unexpected '" + src.charAt(pos) + "'");
+            return n;
+        }
+
+        private Node sum() {
+            Node n = product();
+            while (true) {
+                if (accept('+')) n = fold(new Binary(ADD, n, product()));
+                else if (accept('-')) n = fold(new Binary(SUB, n, product()));
+                else return n;
+            }
+        }
+
+        private Node product() {
+            Node n = unary();
+            while (true) {
+                if (accept('*')) n = fold(new Binary(MUL, n, unary()));
+                else if (accept('/')) n = fold(new Binary(DIV, n, unary()));
+                else if (accept('%')) n = fold(new Binary(MOD, n, unary()));
+                else return n;
+            }
+        }
+
+        private Node unary() {
+            if (accept('-')) return fold(new Unary(unary()));
+            if (accept('+')) return unary();
+            return power();
+        }
+
+        private Node power() {
+            Node base = atom();
+            return accept('^') ? fold(new Binary(POW, base, unary())) : base;
+        }
+
+        private Node atom() {
+            skipSpaces();
+            if (pos >= src.length()) throw error("Expression ends too early");
+            char c = src.charAt(pos);
+            if (accept('(')) {
+                Node n = sum();
+                expect(')');
+                return n;
+            }
+            if (Character.isDigit(c) || c == '.') return number();
+            if (Character.isLetter(c) || c == '_') return name();
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+            if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+                int save = pos++;
+                if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+                if (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                    while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+                } else {
+                    pos = save; // "2e" is 2 times the variable e
+                }
+            }
+            String text = src.substring(start, pos);
+            try {
+                return new Num(Double.parseDouble(text));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Invalid number '" + text + "'");
+            }
+        }
+
+        private Node name() {
+            int start = pos;
+            while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) pos++;
+            String name = src.substring(start, pos);
+            if (accept('(')) return call(name, start);
+
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.equals("pi")) return new Num(Math.PI);
+            if (lower.equals("e")) return new Num(Math.E);
+            int slot = variables.indexOf(name);
+            if (slot < 0) {
+                slot = variables.size();
+                variables.add(name);
+            }
+            return new Var(slot);
+        }
+
+        private Node call(String name, int at) {
+            Fn fn;
+            try {
+                fn = Fn.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                pos = at;
+                throw error("Unknown function '" + name + "'");
+            }
+            List<Node> args = new ArrayList<>();
+            args.add(sum());
+            while (accept(',')) args.add(sum());
+            expect(')');
+
+            if (fn.arity > 0 && args.size() != fn.arity || fn.arity < 0 && args.size() < 2) {
+                pos = at;
+                throw error(name + "() takes " + (fn.arity < 0 ? "two or more arguments"
+                        : fn.arity == 1 ? "one argument" : fn.arity + " arguments"));
+            }
+            if (fn.arity == 1) return fold(new Call(fn, args.get(0), null));
+            Node n = args.get(0); // min / max of several values chain pairwise
+            for (int i = 1; i < args.size(); i++) n = fold(new Call(fn, n, args.get(i)));
+            return n;
+        }
+
+        /** Replaces an operation on constants by its value. */
+        private static Node fold(Node n) {
+            if (n instanceof Unary u && u.operand() instanceof Num a) return new Num(-a.value());
+            if (n instanceof Binary b && b.left() instanceof Num l && b.right() instanceof Num r) {
+                return new Num(apply(b.op(), l.value(), r.value()));
+            }
+            if (n instanceof Call c && c.left() instanceof Num l) {
+                if (c.right() == null) return new Num(c.fn().apply(l.value()));
+                if (c.right() instanceof Num r) return new Num(c.fn().apply(l.value(), r.value()));
+            }
+            return n;
+        }
+
+        private static double apply(int op, double a, double b) {
+            return switch (op) {
+                case ADD -> a + b;
+                case SUB -> a - b;
+                case MUL -> a * b;
+                case DIV -> a / b;
+                case MOD -> a % b;
+                default -> Math.pow(a, b);
+            };
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < src.length() && src.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error(pos < src.length() ? "Expected '" + c + "'" : "Missing '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1));
+        }
+    }
+
+    // ------------------- Code Generation -------------------
+    private static final class Emitter {
+        int[] code = new int[32];
+        int size;
+        final List<Double> constants = new ArrayList<>();
+        int depth, maxDepth;
+
+        void emit(Node n) {
+            if (n instanceof Num num) {
+                int idx = constants.indexOf(num.value());
+                if (idx < 0) {
+                    idx = constants.size();
+                    constants.add(num.value());
+                }
+                op(CONST, idx, +1);
+            } else if (n instanceof Var v) {
+                op(VAR, v.slot(), +1);
+            } else if (n instanceof Unary u) {
+                emit(u.operand());
+                op(NEG, -1, 0);
+            } else if (n instanceof Binary b) {
+                emit(b.left());
+                emit(b.right());
+                op(b.op(), -1, -1);
+            } else if (n instanceof Call c) {
+                emit(c.left());
+                if (c.right() != null) emit(c.right());
+                op(CALL, c.fn().ordinal(), c.right() == null ? 0 : -1);
+            }
+        }
+
+        private void op(int instruction, int operand, int stackChange) {
+            if (size + 2 > code.length) code = Arrays.copyOf(code, code.length * 2);
+            code[size++] = instruction;
+            if (operand >= 0) code[size++] = operand;
+            depth += stackChange;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
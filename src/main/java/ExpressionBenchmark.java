@@ -0,0 +1,69 @@
+import java.util.Random;
+
+/**
+ * Throughput check for the calculator's expression engine on a grade-weight
+ * formula over N rows (default 1M). Compares
+ *  - re-parsing the formula for every row (what a string-in, number-out
+ *    calculator does),
+ *  - compiling once and evaluating row by row, and
+ *  - compiling once and evaluating the whole columns in blocks.
+ *
+ * Usage: ExpressionBenchmark [rows] [formula]
+ */
+public class ExpressionBenchmark {
+
+    private static final String DEFAULT_FORMULA =
+            "round((0.2 * quiz + 0.3 * midterm + 0.5 * final - max(0, late - 2) * 1.5) / 25 * credits * 100) / 100";
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String formula = args.length > 1 ? args[1] : DEFAULT_FORMULA;
+
+        Expression compiled = Expression.compile(formula);
+        Random rnd = new Random(5);
+        double[][] columns = new double[compiled.variables().size()][rows];
+        for (double[] column : columns) {
+            for (int i = 0; i < rows; i++) column[i] = rnd.nextInt(101);
+        }
+        System.out.println("Formula: " + formula);
+        System.out.println("Variables: " + compiled.variables() + ", rows: " + String.format("%,d", rows));
+
+        for (int round = 0; round < 3; round++) { // the last round is the one that counts after warm-up
+            boolean report = round == 2;
+            double check = 0;
+
+            long t0 = System.nanoTime();
+            double[] row = new double[columns.length];
+            for (int i = 0; i < rows; i++) {
+                for (int v = 0; v < columns.length; v++) row[v] = columns[v][i];
+                check += Expression.parse(formula).evaluate(row);
+            }
+            long reparse = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            double perRowSum = 0;
+            for (int i = 0; i < rows; i++) {
+                for (int v = 0; v < columns.length; v++) row[v] = columns[v][i];
+                perRowSum += compiled.evaluate(row);
+            }
+            long perRow = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            double[] out = compiled.evaluateBatch(columns);
+            long batch = System.nanoTime() - t0;
+            double batchSum = 0;
+            for (double d : out) batchSum += d;
+
+            if (report) {
+                print("Re-parse every row", rows, reparse);
+                print("Compiled, per row", rows, perRow);
+                print("Compiled, batch", rows, batch);
+                System.out.printf("Checksums agree: %b%n", check == perRowSum && perRowSum == batchSum);
+            }
+        }
+    }
+
+    private static void print(String label, int rows, long nanos) {
+        System.out.printf("%-20s %8.1f ms  %,14.0f rows/s%n", label, nanos / 1e6, rows / (nanos / 1e9));
+    }
+}
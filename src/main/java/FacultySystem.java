@@ -1,6 +1,13 @@
 import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Smart Campus Assistant (Course & Faculty Module)
@@ -8,18 +15,40 @@ import java.util.List;
  * Description:
  *  A GUI-based course management system that allows users to:
  *   - Add new courses
- *   - Search for courses by code or instructor
+ *   - Search for courses by code or instructor, with "did you mean"
+ *     suggestions (within 2 typos) when nothing matches
  *   - Display all available courses
+ *  The course list is shared with the headless CampusServer, so every access
+ *  goes through a read/write lock. Courses are kept in courses.snap (a
+ *  SnapshotFile) between runs. Instructors are StringPool.INSTRUCTORS codes,
+ *  so each instructor name is stored once however many courses they teach.
  */
 public class FacultySystem {
 
     private static final List<Course> courses = new ArrayList<>();
+    // Trigram index over code + instructor; document ids are positions in `courses`.
+    private static final TrigramIndex courseIndex = new TrigramIndex();
+    // codeKey() of every stored course, so the duplicate check is a hash lookup instead of a scan.
+    private static final Set<String> codeKeys = new HashSet<>();
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    static final Path COURSES_SNAPSHOT = Paths.get("courses.snap");
+    private static final List<ResultView.Column<Course>> COURSE_COLUMNS = List.of(
+            ResultView.Column.text("Code", Course::getCode),
+            ResultView.Column.text("Name", Course::getName),
+            ResultView.Column.text("Instructor", Course::getInstructor));
+    // Lower-cased codes and instructor words for suggestions; built on the first miss, then kept up to date.
+    private static volatile FuzzyIndex courseTerms;
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(FacultySystem::runApp);
     }
 
     private static void runApp() {
+        try {
+            if (Files.exists(COURSES_SNAPSHOT)) loadSnapshot(COURSES_SNAPSHOT);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Error loading courses: " + e.getMessage());
+        }
         int choice;
         do {
             choice = showMenu();
@@ -27,7 +56,14 @@ public class FacultySystem {
                 case 1 -> addCourse();
                 case 2 -> searchCourse();
                 case 3 -> displayCourses();
-                case 0 -> JOptionPane.showMessageDialog(null, "Exiting Course & Faculty Module...");
+                case 0 -> {
+                    try {
+                        saveSnapshot(COURSES_SNAPSHOT);
+                    } catch (IOException e) {
+                        JOptionPane.showMessageDialog(null, "Error saving courses: " + e.getMessage());
+                    }
+                    JOptionPane.showMessageDialog(null, "Exiting Course & Faculty Module...");
+                }
                 default -> JOptionPane.showMessageDialog(null, "Invalid choice. Try again.");
             }
         } while (choice != 0);
@@ -69,12 +105,10 @@ public class FacultySystem {
             return;
         }
 
-        if (!isUniqueCode(code)) {
+        if (!addCourse(new Course(code, name, instructor))) {
             JOptionPane.showMessageDialog(null, "A course with this code already exists.");
             return;
         }
-
-        courses.add(new Course(code, name, instructor));
         JOptionPane.showMessageDialog(null, "Course '" + name + "' added successfully!");
     }
 
@@ -83,65 +117,254 @@ public class FacultySystem {
         String keyword = JOptionPane.showInputDialog("Enter course code or instructor name:");
         if (keyword == null || keyword.trim().isEmpty()) return;
 
-        keyword = keyword.trim().toLowerCase();
-        List<Course> results = new ArrayList<>();
+        List<Course> results = findCourses(keyword);
+        if (results.isEmpty()) {
+            List<String> suggestions = suggestCourses(keyword, 3);
+            if (suggestions.isEmpty()) {
+                JOptionPane.showMessageDialog(null, "No matching courses found.");
+                return;
+            }
+            Object pick = JOptionPane.showInputDialog(null, "No matching courses found. Did you mean:",
+                    "Search Course", JOptionPane.QUESTION_MESSAGE, null, suggestions.toArray(), suggestions.get(0));
+            if (pick == null) return;
+            results = findCourses((String) pick);
+        }
+
+        List<Course> found = results;
+        ResultView.show("🔍 Search Results (" + found.size() + ")", "No matching courses found.", COURSE_COLUMNS,
+                () -> found);
+    }
+
+    // ------------------- Display All Courses -------------------
+    private static void displayCourses() {
+        ResultView.show("📚 All Courses", "No courses available.", COURSE_COLUMNS, FacultySystem::allCourses);
+    }
+
+    // ------------------- Helper Methods -------------------
+    /** Adds the course unless its code is taken (ignoring case); returns whether it was added. */
+    static boolean addCourse(Course c) {
+        long t0 = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (!isUniqueCode(c.getCode())) return false;
+            storeCourse(c);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            Metrics.record(Metrics.Op.COURSE_ADD, t0);
+        }
+    }
+
+    /**
+     * Adds a batch of courses under one lock, each unless its code is taken
+     * (by a stored course or an earlier one in the batch); added[i] tells
+     * whether batch.get(i) was added.
+     */
+    static boolean[] addCourses(List<Course> batch) {
+        boolean[] added = new boolean[batch.size()];
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < added.length; i++) {
+                Course c = batch.get(i);
+                if (!isUniqueCode(c.getCode())) continue;
+                storeCourse(c);
+                added[i] = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added;
+    }
 
-        for (Course c : courses) {
-            if (c.getCode().toLowerCase().contains(keyword) ||
-                    c.getInstructor().toLowerCase().contains(keyword)) {
-                results.add(c);
+    static void storeCourse(Course c) {
+        lock.writeLock().lock();
+        try {
+            courses.add(c);
+            codeKeys.add(codeKey(c.getCode()));
+            // A separator no trimmed query can contain keeps trigrams from spanning both fields.
+            courseIndex.add(c.getCode() + "\n" + c.getInstructor());
+            FuzzyIndex terms = courseTerms;
+            if (terms != null) {
+                terms.add(c.getCode().toLowerCase(), 1);
+                for (String w : words(c.getInstructor())) terms.add(w, 1);
             }
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        if (results.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No matching courses found.");
-        } else {
-            StringBuilder sb = new StringBuilder("🔍 Search Results:\n\n");
-            for (Course c : results) {
-                sb.append("Code: ").append(c.getCode())
-                        .append(" | Name: ").append(c.getName())
-                        .append(" | Instructor: ").append(c.getInstructor())
-                        .append("\n");
+    /** Courses whose code or instructor contains the keyword, using the trigram index. */
+    static List<Course> findCourses(String keyword) {
+        long t0 = System.nanoTime();
+        String q = keyword.trim().toLowerCase();
+        lock.readLock().lock();
+        try {
+            int[] ids = courseIndex.candidates(q);
+            if (ids == null) return scanCourses(q); // too short to have a trigram
+
+            List<Course> results = new ArrayList<>();
+            for (int id : ids) {
+                Course c = courses.get(id);
+                if (matches(c, q)) results.add(c);
             }
-            JOptionPane.showMessageDialog(null, sb.toString());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+            Metrics.record(Metrics.Op.COURSE_SEARCH, t0);
         }
     }
 
-    // ------------------- Display All Courses -------------------
-    private static void displayCourses() {
-        if (courses.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No courses available.");
-            return;
+    /**
+     * Linear scan over every course; kept for short queries and as the
+     * benchmark baseline. Each distinct instructor is lower-cased and tested
+     * once, then looked up per course by its pool code.
+     */
+    static List<Course> scanCourses(String keyword) {
+        String q = keyword.trim().toLowerCase();
+        lock.readLock().lock();
+        try {
+            // Every stored course got its code before it was stored, so all codes are below the pool size read here.
+            StringPool instructors = StringPool.INSTRUCTORS;
+            boolean[] instructorHits = new boolean[instructors.size()];
+            for (int i = 0; i < instructorHits.length; i++) {
+                instructorHits[i] = instructors.value(i).toLowerCase().contains(q);
+            }
+            List<Course> results = new ArrayList<>();
+            for (Course c : courses) {
+                if (instructorHits[c.instructor] || c.getCode().toLowerCase().contains(q)) results.add(c);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code k} corrected keywords for a search that found nothing; empty if none are close. */
+    static List<String> suggestCourses(String keyword, int k) {
+        FuzzyIndex terms = courseTerms();
+        lock.readLock().lock();
+        try {
+            return terms.suggest(words(keyword), k);
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        StringBuilder sb = new StringBuilder("📚 All Courses:\n\n");
-        for (Course c : courses) {
-            sb.append("Code: ").append(c.getCode())
-                    .append(" | Name: ").append(c.getName())
-                    .append(" | Instructor: ").append(c.getInstructor())
-                    .append("\n");
+    private static FuzzyIndex courseTerms() {
+        FuzzyIndex terms = courseTerms;
+        if (terms != null) return terms;
+        lock.writeLock().lock();
+        try {
+            if (courseTerms == null) {
+                FuzzyIndex.Builder builder = new FuzzyIndex.Builder();
+                int[] coursesPerInstructor = new int[StringPool.INSTRUCTORS.size()];
+                for (Course c : courses) {
+                    builder.add(c.getCode().toLowerCase(), 1);
+                    coursesPerInstructor[c.instructor]++;
+                }
+                for (int i = 0; i < coursesPerInstructor.length; i++) {
+                    if (coursesPerInstructor[i] == 0) continue;
+                    for (String w : words(StringPool.INSTRUCTORS.value(i))) builder.add(w, coursesPerInstructor[i]);
+                }
+                courseTerms = builder.build();
+            }
+            return courseTerms;
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        JOptionPane.showMessageDialog(null, sb.toString());
+    private static List<String> words(String text) {
+        List<String> out = new ArrayList<>();
+        for (String w : text.trim().toLowerCase().split("\\s+")) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
     }
 
-    // ------------------- Helper Methods -------------------
-    private static boolean isUniqueCode(String code) {
-        for (Course c : courses) {
-            if (c.getCode().equalsIgnoreCase(code)) {
-                return false;
+    static List<Course> allCourses() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(courses);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int courseCount() {
+        lock.readLock().lock();
+        try {
+            return courses.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Writes every course to a snapshot file. */
+    static void saveSnapshot(Path path) throws IOException {
+        List<Course> all = allCourses();
+        new SnapshotFile.Writer("courses", all.size())
+                .strings("code", i -> all.get(i).getCode())
+                .strings("name", i -> all.get(i).getName())
+                .strings("instructor", i -> all.get(i).getInstructor())
+                .write(path);
+    }
+
+    /** Adds the courses of a snapshot (meant for startup: codes are not checked for duplicates); returns how many. */
+    static int loadSnapshot(Path path) throws IOException {
+        SnapshotFile.Table t = SnapshotFile.open(path, "courses");
+        SnapshotFile.Strings codes = t.strings("code"), names = t.strings("name"), instructors = t.strings("instructor");
+        // Pool each distinct instructor once rather than once per course.
+        int[] instructorCodes = new int[instructors.distinct()];
+        for (int i = 0; i < instructorCodes.length; i++) instructorCodes[i] = StringPool.INSTRUCTORS.code(instructors.value(i));
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < t.rows(); i++) {
+                storeCourse(new Course(codes.get(i), names.get(i), instructorCodes[instructors.code(i)]));
             }
+        } finally {
+            lock.writeLock().unlock();
         }
-        return true;
+        return t.rows();
+    }
+
+    private static boolean matches(Course c, String q) {
+        return c.getCode().toLowerCase().contains(q) ||
+                c.getInstructor().toLowerCase().contains(q);
+    }
+
+    /** Whether a stored course already has this code, ignoring case. */
+    static boolean codeTaken(String code) {
+        lock.readLock().lock();
+        try {
+            return !isUniqueCode(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isUniqueCode(String code) {
+        return !codeKeys.contains(codeKey(code));
+    }
+
+    /** Folds case the way equalsIgnoreCase compares, so equal keys mean codes that are equal ignoring case. */
+    private static String codeKey(String code) {
+        StringBuilder sb = new StringBuilder(code.length());
+        for (int i = 0; i < code.length(); i++) sb.append(Character.toLowerCase(Character.toUpperCase(code.charAt(i))));
+        return sb.toString();
     }
 
     // ------------------- Inner Course Class -------------------
-    private static class Course {
+    static class Course {
         private final String code;
         private final String name;
-        private final String instructor;
+        private final int instructor; // StringPool.INSTRUCTORS code
 
         public Course(String code, String name, String instructor) {
+            this(code, name, StringPool.INSTRUCTORS.code(instructor));
+        }
+
+        Course(String code, String name, int instructor) {
             this.code = code;
             this.name = name;
             this.instructor = instructor;
@@ -156,7 +379,7 @@ public class FacultySystem {
         }
 
         public String getInstructor() {
-            return instructor;
+            return StringPool.INSTRUCTORS.value(instructor);
         }
     }
 }
@@ -0,0 +1,42 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Turns byte ranges of a mapped file into Strings through one reusable
+ * scratch array. For values that repeat heavily (majors, event times)
+ * decodeShared() returns the same String instance for identical bytes
+ * instead of allocating a new one.
+ */
+final class FieldDecoder {
+    private byte[] scratch = new byte[128];
+    private final String[] shared = new String[512];
+    private final byte[][] sharedBytes = new byte[512][];
+
+    String decode(ByteBuffer buf, int from, int to) {
+        int len = copy(buf, from, to);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    String decodeShared(ByteBuffer buf, int from, int to) {
+        int len = copy(buf, from, to);
+        int h = 0;
+        for (int i = 0; i < len; i++) h = 31 * h + scratch[i];
+        int slot = (h ^ (h >>> 16)) & (shared.length - 1);
+
+        byte[] key = sharedBytes[slot];
+        if (key != null && Arrays.equals(key, 0, key.length, scratch, 0, len)) return shared[slot];
+
+        String s = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        sharedBytes[slot] = Arrays.copyOf(scratch, len);
+        shared[slot] = s;
+        return s;
+    }
+
+    private int copy(ByteBuffer buf, int from, int to) {
+        int len = to - from;
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        buf.get(from, scratch, 0, len);
+        return len;
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo-tolerant term lookup ("did you mean"): a Levenshtein automaton run
+ * over a sorted term dictionary.
+ * Description:
+ *  - Terms are kept sorted, so every prefix is a contiguous range and the
+ *    array can be walked like a trie: the children of a prefix are found
+ *    by binary search, no trie nodes are stored
+ *  - The walk carries one row of the edit-distance table per prefix (the
+ *    automaton state); a prefix whose row has no cell within the distance
+ *    is abandoned with its whole range, so a lookup visits the prefixes
+ *    near the word rather than the terms
+ *  - New terms go to a small unsorted batch that lookups scan as well; it
+ *    is merged into the sorted array once it outgrows about the square root
+ *    of the dictionary, so adds stay cheap without a re-sort each time;
+ *    a whole dictionary is loaded through a Builder, which sorts once
+ *  - Every term carries a weight (how many records use it); among matches
+ *    at the same distance the heavier term is suggested first
+ *
+ * Terms are matched exactly as added; callers normalize case. Not
+ * thread-safe: adds need exclusive access, lookups may run together.
+ */
+class FuzzyIndex {
+
+    /** Largest edit distance the modules suggest within. */
+    static final int MAX_DISTANCE = 2;
+    private static final int MIN_BATCH = 1024;
+
+    /** A term within reach of the searched word. */
+    record Match(String term, int distance, int weight) {
+    }
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::distance)
+            .thenComparing(Comparator.comparingInt(Match::weight).reversed())
+            .thenComparing(Match::term);
+
+    private String[] sorted = new String[0];
+    private int[] sortedWeights = new int[0];
+    // Terms added since the last merge, by position in `batch`.
+    private final Map<String, Integer> batchIndex = new HashMap<>();
+    private final List<String> batch = new ArrayList<>();
+    private int[] batchWeights = new int[MIN_BATCH];
+
+    /** Collects terms and sorts them once; repeated terms add up their weights. */
+    static final class Builder {
+        private final List<Match> terms = new ArrayList<>();
+
+        Builder add(String term, int weight) {
+            terms.add(new Match(term, 0, weight));
+            return this;
+        }
+
+        FuzzyIndex build() {
+            terms.sort(Comparator.comparing(Match::term));
+            FuzzyIndex index = new FuzzyIndex();
+            String[] sorted = new String[terms.size()];
+            int[] weights = new int[sorted.length];
+            int n = 0;
+            for (Match m : terms) {
+                if (n > 0 && sorted[n - 1].equals(m.term())) {
+                    weights[n - 1] += m.weight();
+                } else {
+                    sorted[n] = m.term();
+                    weights[n++] = m.weight();
+                }
+            }
+            index.sorted = Arrays.copyOf(sorted, n);
+            index.sortedWeights = Arrays.copyOf(weights, n);
+            return index;
+        }
+    }
+
+    /** Adds {@code weight} uses of the term, inserting it if it is new. */
+    void add(String term, int weight) {
+        int at = Arrays.binarySearch(sorted, term);
+        if (at >= 0) {
+            sortedWeights[at] += weight;
+            return;
+        }
+        Integer pending = batchIndex.get(term);
+        if (pending != null) {
+            batchWeights[pending] += weight;
+            return;
+        }
+        int slot = batch.size();
+        if (slot == batchWeights.length) batchWeights = Arrays.copyOf(batchWeights, slot * 2);
+        batch.add(term);
+        batchWeights[slot] = weight;
+        batchIndex.put(term, slot);
+        if (batch.size() >= Math.max(MIN_BATCH, 2 * (int) Math.sqrt(sorted.length))) merge();
+    }
+
+    boolean contains(String term) {
+        return Arrays.binarySearch(sorted, term) >= 0 || batchIndex.containsKey(term);
+    }
+
+    int size() {
+        return sorted.length + batch.size();
+    }
+
+    /** Up to {@code k} terms within {@code maxDistance} edits of {@code word}, closest and heaviest first. */
+    List<Match> nearest(String word, int maxDistance, int k) {
+        List<Match> found = new ArrayList<>();
+        int[][] rows = new int[word.length() + maxDistance + 2][];
+        rows[0] = new int[word.length() + 1];
+        Arrays.setAll(rows[0], i -> i);
+        walk(word, maxDistance, 0, 0, sorted.length, rows, found);
+
+        int[] row = new int[word.length() + 1];
+        for (int i = 0; i < batch.size(); i++) {
+            String t = batch.get(i);
+            if (Math.abs(t.length() - word.length()) > maxDistance) continue;
+            int d = distance(word, t, row);
+            if (d <= maxDistance) found.add(new Match(t, d, batchWeights[i]));
+        }
+        found.sort(BEST_FIRST);
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+
+    /**
+     * "Did you mean" phrases for a query split into tokens: every token that
+     * is not a term is replaced by a close term (within MAX_DISTANCE). The
+     * first such token yields up to {@code k} alternatives; any later ones
+     * take their best match. Empty if nothing needs or allows correcting.
+     */
+    List<String> suggest(List<String> tokens, int k) {
+        List<String> phrases = new ArrayList<>();
+        String[] best = tokens.toArray(new String[0]);
+        int first = -1;
+        List<Match> alternatives = List.of();
+        for (int i = 0; i < best.length; i++) {
+            if (contains(best[i])) continue;
+            List<Match> m = nearest(best[i], MAX_DISTANCE, first < 0 ? k : 1);
+            if (m.isEmpty()) return phrases; // one word we cannot fix would still match nothing
+            if (first < 0) {
+                first = i;
+                alternatives = m;
+            }
+            best[i] = m.get(0).term();
+        }
+        for (Match m : alternatives) {
+            best[first] = m.term();
+            phrases.add(String.join(" ", best));
+        }
+        return phrases;
+    }
+
+    // ------------------- Automaton Walk -------------------
+    /**
+     * Visits the terms in sorted[lo, hi), which all start with the same
+     * {@code depth} characters; rows[depth] is the distance row for that prefix.
+     */
+    private void walk(String word, int max, int depth, int lo, int hi, int[][] rows, List<Match> found) {
+        int n = word.length();
+        int[] row = rows[depth];
+        int i = lo;
+        // The prefix itself, if it is a term, sorts first.
+        while (i < hi && sorted[i].length() == depth) {
+            if (row[n] <= max) found.add(new Match(sorted[i], row[n], sortedWeights[i]));
+            i++;
+        }
+        if (rows.length == depth + 1) return; // longer terms are too far from the word
+        while (i < hi) {
+            char c = sorted[i].charAt(depth);
+            int next = firstAfter(c, depth, i, hi);
+            int[] child = rows[depth + 1];
+            if (child == null) child = rows[depth + 1] = new int[n + 1];
+            child[0] = depth + 1;
+            int best = child[0];
+            for (int j = 1; j <= n; j++) {
+                int cost = word.charAt(j - 1) == c ? 0 : 1;
+                child[j] = Math.min(Math.min(child[j - 1], row[j]) + 1, row[j - 1] + cost);
+                best = Math.min(best, child[j]);
+            }
+            if (best <= max) walk(word, max, depth + 1, i, next, rows, found);
+            i = next;
+        }
+    }
+
+    /** First index in sorted[from, to) whose character at {@code depth} is above {@code c}. */
+    private int firstAfter(char c, int depth, int from, int to) {
+        int lo = from + 1, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].charAt(depth) <= c) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // ------------------- Helpers -------------------
+    private void merge() {
+        int b = batch.size();
+        Integer[] order = new Integer[b];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(batch::get));
+
+        String[] terms = new String[sorted.length + b];
+        int[] weights = new int[terms.length];
+        int i = 0, j = 0, out = 0;
+        while (i < sorted.length || j < b) {
+            if (j == b || (i < sorted.length && sorted[i].compareTo(batch.get(order[j])) < 0)) {
+                terms[out] = sorted[i];
+                weights[out++] = sortedWeights[i++];
+            } else {
+                terms[out] = batch.get(order[j]);
+                weights[out++] = batchWeights[order[j++]];
+            }
+        }
+        sorted = terms;
+        sortedWeights = weights;
+        batch.clear();
+        batchIndex.clear();
+    }
+
+    /** Levenshtein distance; {@code row} is scratch space of at least a.length() + 1 ints. */
+    static int distance(String a, String b, int[] row) {
+        int n = a.length();
+        for (int i = 0; i <= n; i++) row[i] = i;
+        for (int j = 1; j <= b.length(); j++) {
+            char cb = b.charAt(j - 1);
+            int diagonal = row[0];
+            row[0] = j;
+            for (int i = 1; i <= n; i++) {
+                int above = row[i];
+                row[i] = Math.min(Math.min(row[i - 1], above) + 1, diagonal + (a.charAt(i - 1) == cb ? 0 : 1));
+                diagonal = above;
+            }
+        }
+        return row[n];
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares FuzzyIndex lookups within edit distance 2 against a
+ * Levenshtein scan over every term, on 10k, 100k and 1M distinct terms.
+ * Description:
+ *  - "words": pronounceable 4-15 letter words, like title and instructor
+ *    words; "ids": student IDs ("G" + 8 digits) drawn at random
+ *  - The index is built in one go, then 10k more terms are added one at a
+ *    time (they may repeat earlier ones), as the modules do after a build
+ *  - Queries are existing terms with one or two random typos (substitution,
+ *    insertion or deletion); each is checked to return the same best
+ *    distance as the scan
+ *
+ * Usage: FuzzyIndexBenchmark [queries]   (use -Xmx2g for 1M)
+ */
+public class FuzzyIndexBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ner", "sta", "vu", "ri", "on", "el", "tha",
+            "gre", "bo", "sin", "da", "qu", "ze", "pa", "lin", "ar", "to"};
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        System.out.printf("%-6s %10s %10s %8s %12s %12s %8s %10s%n",
+                "terms", "size", "build ms", "add us", "scan us", "index us", "speedup", "hits/query");
+        for (String kind : new String[] {"words", "ids"}) {
+            for (int size : SIZES) run(kind, size, queries);
+        }
+    }
+
+    private static void run(String kind, int size, int queries) {
+        Random rnd = new Random(7);
+        Set<String> distinct = new HashSet<>();
+        while (distinct.size() < size) distinct.add(kind.equals("ids") ? id(rnd) : word(rnd));
+        List<String> terms = new ArrayList<>(distinct);
+
+        long t0 = System.nanoTime();
+        FuzzyIndex.Builder builder = new FuzzyIndex.Builder();
+        for (String t : terms) builder.add(t, 1);
+        FuzzyIndex index = builder.build();
+        long buildNanos = System.nanoTime() - t0;
+
+        // Terms added one at a time afterwards go through the unsorted batch and its merges.
+        List<String> all = new ArrayList<>(terms);
+        for (int i = 0; i < 10_000; i++) all.add(kind.equals("ids") ? id(rnd) : word(rnd));
+        t0 = System.nanoTime();
+        for (int i = size; i < all.size(); i++) index.add(all.get(i), 1);
+        double addMicros = (System.nanoTime() - t0) / 1e3 / 10_000;
+
+        List<String> qs = new ArrayList<>();
+        for (int i = 0; i < queries; i++) qs.add(typo(terms.get(rnd.nextInt(size)), 1 + rnd.nextInt(2), rnd));
+
+        // Warm-up and correctness check in one pass.
+        long hits = 0;
+        for (String q : qs) {
+            List<FuzzyIndex.Match> m = index.nearest(q, 2, Integer.MAX_VALUE);
+            hits += m.size();
+            int best = m.isEmpty() ? 3 : m.get(0).distance();
+            if (best != scan(all, q)) throw new IllegalStateException("Index and scan disagree for " + q);
+        }
+
+        t0 = System.nanoTime();
+        for (String q : qs) scan(all, q);
+        double scanMicros = (System.nanoTime() - t0) / 1e3 / queries;
+        t0 = System.nanoTime();
+        for (String q : qs) index.nearest(q, 2, 3);
+        double treeMicros = (System.nanoTime() - t0) / 1e3 / queries;
+        System.out.printf("%-6s %10d %10.0f %8.1f %12.1f %12.1f %7.1fx %10.1f%n", kind, size, buildNanos / 1e6,
+                addMicros, scanMicros, treeMicros, scanMicros / treeMicros, hits / (double) queries);
+    }
+
+    /** Smallest distance (capped at 3) from {@code q} to any term, the naive way. */
+    private static int scan(List<String> terms, String q) {
+        int[] row = new int[q.length() + 1];
+        int best = 3;
+        for (String t : terms) {
+            if (Math.abs(t.length() - q.length()) >= best) continue;
+            best = Math.min(best, FuzzyIndex.distance(q, t, row));
+        }
+        return best;
+    }
+
+    private static String word(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        int n = 2 + rnd.nextInt(4);
+        for (int i = 0; i < n; i++) sb.append(SYLLABLES[rnd.nextInt(SYLLABLES.length)]);
+        return sb.toString();
+    }
+
+    private static String id(Random rnd) {
+        return "G" + (10_000_000 + rnd.nextInt(90_000_000));
+    }
+
+    private static String typo(String s, int edits, Random rnd) {
+        StringBuilder sb = new StringBuilder(s);
+        for (int e = 0; e < edits; e++) {
+            int at = rnd.nextInt(sb.length());
+            char c = s.startsWith("G") ? (char) ('0' + rnd.nextInt(10)) : (char) ('a' + rnd.nextInt(26));
+            switch (rnd.nextInt(3)) {
+                case 0 -> sb.setCharAt(at, c);
+                case 1 -> sb.insert(at, c);
+                default -> {
+                    if (sb.length() > 1) sb.deleteCharAt(at);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
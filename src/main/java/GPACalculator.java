@@ -1,16 +1,36 @@
 import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class GPACalculator {
 
-    private static final List<String[]> students = new ArrayList<>();
+    private static final StudentStore students = new StudentStore();
+    private static final GpaRanking ranking = new GpaRanking();
+    private static final Path STUDENTS_FILE = Paths.get(StudentFile.STUDENTS_PATH);
+    private static final Path STUDENTS_SNAPSHOT = Paths.get("students.snap");
+    // Students and grades are shared with the headless CampusServer.
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private static Path studentsFile; // null = new students are not saved
+    // Student IDs for "did you mean"; built on the first miss, then kept up to date.
+    private static volatile FuzzyIndex studentIds;
+
+    /** A student's cumulative GPA, rank and percentile, overall and within the major. */
+    record Standing(Student student, double gpa, double credits, int rank, int rankedCount, double percentile,
+                    int rankInMajor, int rankedCountInMajor, double percentileInMajor) {
+    }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(GPACalculator::runApp);
     }
 
     private static void runApp() {
+        loadStudents();
+
         int choice;
         do {
             choice = showMenu();
@@ -19,6 +39,7 @@ public class GPACalculator {
                 case 2 -> searchStudent();
                 case 3 -> displayStudents();
                 case 4 -> calculateGPA();
+                case 5 -> showRank();
                 case 0 -> JOptionPane.showMessageDialog(null, "Exiting GPA Calculator...");
                 default -> JOptionPane.showMessageDialog(null, "Invalid choice. Try again.");
             }
@@ -32,6 +53,7 @@ public class GPACalculator {
                 2. Search Student (by ID)
                 3. Display Students
                 4. GPA Calculator
+                5. Class Rank (by ID)
                 0. Exit
                 """;
         String input = JOptionPane.showInputDialog(menu + "\nEnter choice:");
@@ -61,12 +83,20 @@ public class GPACalculator {
             return;
         }
 
-        if (!idIsUnique(id)) {
-            JOptionPane.showMessageDialog(null, "Student ID already exists.");
+        if ((id + name + major).contains("|")) {
+            JOptionPane.showMessageDialog(null, "Fields cannot contain '|'.");
             return;
         }
 
-        students.add(new String[]{id, name, major});
+        try {
+            if (!addStudent(new Student(id, name, major))) {
+                JOptionPane.showMessageDialog(null, "Student ID already exists.");
+                return;
+            }
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Student added for this session, but not saved: " + e.getMessage());
+            return;
+        }
         JOptionPane.showMessageDialog(null, "Student added successfully!");
     }
 
@@ -74,36 +104,200 @@ public class GPACalculator {
         String id = JOptionPane.showInputDialog("Enter Student ID to search:");
         if (id == null || id.trim().isEmpty()) return;
 
-        for (String[] s : students) {
-            if (s[0].equals(id.trim())) {
-                JOptionPane.showMessageDialog(null,
-                        "ID: " + s[0] + "\nName: " + s[1] + "\nMajor: " + s[2]);
-                return;
+        Student s = lookupStudent(id.trim());
+        if (s == null) return;
+        JOptionPane.showMessageDialog(null,
+                "ID: " + s.id() + "\nName: " + s.name() + "\nMajor: " + s.major());
+    }
+
+    private static void displayStudents() {
+        ResultView.show("All Students", "No students found.", List.of(
+                ResultView.Column.text("ID", Student::id),
+                ResultView.Column.text("Name", Student::name),
+                ResultView.Column.text("Major", Student::major)), GPACalculator::allStudents);
+    }
+
+    /** The student with this ID; otherwise offers close IDs to pick from. Null (already reported) if none is picked. */
+    private static Student lookupStudent(String id) {
+        Student s = findStudent(id);
+        if (s != null) return s;
+        List<String> suggestions = suggestIds(id, 3);
+        if (suggestions.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "Student not found.");
+            return null;
+        }
+        Object pick = JOptionPane.showInputDialog(null, "Student not found. Did you mean:", "Student ID",
+                JOptionPane.QUESTION_MESSAGE, null, suggestions.toArray(), suggestions.get(0));
+        return pick == null ? null : findStudent((String) pick);
+    }
+
+    private static void loadStudents() {
+        try {
+            openStudents();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Error loading students: " + e.getMessage());
+        }
+    }
+
+    // ------------------- Shared Access -------------------
+    /**
+     * Loads the students file (if any), from students.snap when that is up to
+     * date; from then on new students are appended to the text file.
+     */
+    static void openStudents() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (Files.exists(STUDENTS_FILE)) StudentFile.loadCached(STUDENTS_FILE, STUDENTS_SNAPSHOT, students);
+            studentsFile = STUDENTS_FILE;
+            studentIds = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the student unless the ID is taken; returns whether it was added.
+     * An IOException means the student was added but not saved.
+     */
+    static boolean addStudent(Student s) throws IOException {
+        long t0 = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (!students.add(s)) return false;
+            FuzzyIndex ids = studentIds;
+            if (ids != null) ids.add(s.id(), 1);
+            if (studentsFile != null) StudentFile.append(studentsFile, s);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            Metrics.record(Metrics.Op.STUDENT_ADD, t0);
+        }
+    }
+
+    /**
+     * Adds a batch of students under one lock and saves the added ones with
+     * one write; added[i] tells whether batch.get(i) was added (false: its
+     * ID was taken). An IOException means they were added but not saved.
+     */
+    static boolean[] addStudents(List<Student> batch) throws IOException {
+        boolean[] added = new boolean[batch.size()];
+        List<Student> fresh = new ArrayList<>(batch.size());
+        lock.writeLock().lock();
+        try {
+            FuzzyIndex ids = studentIds;
+            for (int i = 0; i < added.length; i++) {
+                Student s = batch.get(i);
+                if (!students.add(s)) continue;
+                added[i] = true;
+                fresh.add(s);
+                if (ids != null) ids.add(s.id(), 1);
             }
+            if (studentsFile != null && !fresh.isEmpty()) StudentFile.appendAll(studentsFile, fresh);
+            return added;
+        } finally {
+            lock.writeLock().unlock();
         }
-        JOptionPane.showMessageDialog(null, "Student not found.");
     }
 
-    private static void displayStudents() {
-        if (students.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No students found.");
-            return;
+    static Student findStudent(String id) {
+        long t0 = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return students.get(id);
+        } finally {
+            lock.readLock().unlock();
+            Metrics.record(Metrics.Op.STUDENT_LOOKUP, t0);
+        }
+    }
+
+    /** Up to {@code k} existing IDs within two typos of {@code id}, closest first. */
+    static List<String> suggestIds(String id, int k) {
+        FuzzyIndex ids = studentIds();
+        lock.readLock().lock();
+        try {
+            return ids.suggest(List.of(id), k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static FuzzyIndex studentIds() {
+        FuzzyIndex ids = studentIds;
+        if (ids != null) return ids;
+        lock.writeLock().lock();
+        try {
+            if (studentIds == null) {
+                FuzzyIndex.Builder builder = new FuzzyIndex.Builder();
+                for (int i = 0; i < students.size(); i++) builder.add(students.idAt(i), 1);
+                studentIds = builder.build();
+            }
+            return studentIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<Student> allStudents() {
+        lock.readLock().lock();
+        try {
+            List<Student> all = new ArrayList<>(students.size());
+            for (int i = 0; i < students.size(); i++) all.add(students.row(i));
+            return all;
+        } finally {
+            lock.readLock().unlock();
         }
-        StringBuilder sb = new StringBuilder();
-        for (String[] s : students) {
-            sb.append("ID: ").append(s[0])
-                    .append(" | Name: ").append(s[1])
-                    .append(" | Major: ").append(s[2])
-                    .append("\n");
+    }
+
+    /**
+     * Adds {points, credits} pairs to the student's record; null if there is
+     * no such student. Negative credits are refused (IllegalArgumentException)
+     * before anything is recorded.
+     */
+    static Standing recordGrades(String id, List<double[]> courses) {
+        for (double[] course : courses) {
+            if (!(course[1] >= 0)) throw new IllegalArgumentException("Credits cannot be negative.");
+        }
+        long t0 = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            Student s = students.get(id);
+            if (s == null) return null;
+            for (double[] course : courses) ranking.recordGrade(s.id(), s.major(), course[0], course[1]);
+            return standing(s);
+        } finally {
+            lock.writeLock().unlock();
+            Metrics.record(Metrics.Op.GPA_RECORD, t0);
         }
-        JOptionPane.showMessageDialog(null, sb.toString());
     }
 
-    private static boolean idIsUnique(String id) {
-        for (String[] s : students) {
-            if (s[0].equals(id)) return false;
+    /** Null if there is no such student or no grades were recorded for them. */
+    static Standing standing(String id) {
+        long t0 = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Student s = students.get(id);
+            return s == null || Double.isNaN(ranking.gpa(id)) ? null : standing(s);
+        } finally {
+            lock.readLock().unlock();
+            Metrics.record(Metrics.Op.GPA_STANDING, t0);
         }
-        return true;
+    }
+
+    private static Standing standing(Student s) {
+        String id = s.id();
+        return new Standing(s, ranking.gpa(id), ranking.credits(id),
+                ranking.rank(id), ranking.rankedCount(), ranking.percentile(id),
+                ranking.rankInMajor(id), ranking.rankedCountInMajor(s.major()), ranking.percentileInMajor(id));
+    }
+
+    /** Credit-weighted GPA of {points, credits} pairs; NaN when there are no credits. */
+    static double gpaOf(List<double[]> courses) {
+        double totalPoints = 0, totalCredits = 0;
+        for (double[] course : courses) {
+            totalPoints += course[0] * course[1];
+            totalCredits += course[1];
+        }
+        return totalCredits == 0 ? Double.NaN : totalPoints / totalCredits;
     }
 
     private static void calculateGPA() {
@@ -118,8 +312,7 @@ public class GPACalculator {
             return;
         }
 
-        double totalPoints = 0;
-        double totalCredits = 0;
+        List<double[]> entered = new ArrayList<>(); // {points, credits} per course
 
         for (int i = 1; i <= courses; i++) {
             String grade = JOptionPane.showInputDialog("Enter grade for course " + i + " (A, B+, etc.):");
@@ -134,6 +327,10 @@ public class GPACalculator {
                 JOptionPane.showMessageDialog(null, "Invalid credit value for course " + i);
                 return;
             }
+            if (!(credits >= 0)) {
+                JOptionPane.showMessageDialog(null, "Credits cannot be negative (course " + i + ").");
+                return;
+            }
 
             double points = gradeToPoints(grade);
             if (points < 0) {
@@ -141,41 +338,53 @@ public class GPACalculator {
                 return;
             }
 
-            totalCredits += credits;
-            totalPoints += credits * points;
+            entered.add(new double[]{points, credits});
         }
 
-        if (totalCredits == 0) {
+        double gpa = gpaOf(entered);
+        if (Double.isNaN(gpa)) {
             JOptionPane.showMessageDialog(null, "No valid courses entered.");
             return;
         }
+        String id = JOptionPane.showInputDialog("Calculated GPA: " + String.format("%.2f", gpa)
+                + "\n\nEnter a Student ID to add these grades to their record (or leave blank):");
+        if (id == null || id.trim().isEmpty()) return;
 
-        double gpa = totalPoints / totalCredits;
-        JOptionPane.showMessageDialog(null, "Calculated GPA: " + String.format("%.2f", gpa));
+        Student s = lookupStudent(id.trim());
+        if (s == null) return;
+        Standing st = recordGrades(s.id(), entered);
+        if (st == null) {
+            JOptionPane.showMessageDialog(null, "Student not found.");
+            return;
+        }
+        JOptionPane.showMessageDialog(null, "Grades recorded.\n" + rankSummary(st));
+    }
+
+    private static void showRank() {
+        String id = JOptionPane.showInputDialog("Enter Student ID:");
+        if (id == null || id.trim().isEmpty()) return;
+
+        Student s = lookupStudent(id.trim());
+        if (s == null) return;
+        Standing st = standing(s.id());
+        if (st == null) {
+            JOptionPane.showMessageDialog(null, "No grades recorded for " + s.name() + " yet.");
+        } else {
+            JOptionPane.showMessageDialog(null, rankSummary(st));
+        }
+    }
+
+    private static String rankSummary(Standing st) {
+        Student s = st.student();
+        return String.format("%s (%s)%nCumulative GPA: %.2f over %.1f credits%n"
+                        + "Rank overall: %d of %d (%.1f percentile)%n"
+                        + "Rank in %s: %d of %d (%.1f percentile)",
+                s.name(), s.id(), st.gpa(), st.credits(),
+                st.rank(), st.rankedCount(), st.percentile(),
+                s.major(), st.rankInMajor(), st.rankedCountInMajor(), st.percentileInMajor());
     }
 
     private static double gradeToPoints(String g) {
-        if (g == null) return -1;
-        g = g.trim().toUpperCase();
-
-        return switch (g) {
-            case "A" -> 4.0;
-            case "A-" -> 3.7;
-            case "B+" -> 3.3;
-            case "B" -> 3.0;
-            case "B-" -> 2.7;
-            case "C+" -> 2.3;
-            case "C" -> 2.0;
-            case "D" -> 1.0;
-            case "F" -> 0.0;
-            default -> {
-                try {
-                    double val = Double.parseDouble(g);
-                    yield (val >= 0 && val <= 4) ? val : -1;
-                } catch (Exception e) {
-                    yield -1;
-                }
-            }
-        };
+        return GradeTable.points(g);
     }
 }
@@ -0,0 +1,230 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cumulative GPA per student with class-rank and percentile queries.
+ * Description:
+ *  - Each student keeps running sums of grade points x credits and credits,
+ *    so recording a grade never recomputes the GPA from scratch
+ *  - Ranked GPAs live in order-statistic trees (size-augmented treaps), one
+ *    for the whole cohort and one per major; a changed GPA is one remove and
+ *    one insert, and rank / percentile are answered in O(log n)
+ *  - Majors are StringPool.MAJORS codes, so the per-major tree is an array
+ *    read rather than a String hash lookup
+ *
+ * Rank is 1 + the number of students with a strictly higher GPA, so ties
+ * share a rank. Students with no credits yet are not ranked.
+ */
+class GpaRanking {
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final RankTree cohort = new RankTree();
+    private RankTree[] byMajor = new RankTree[0]; // indexed by major code
+    private int nextSeq;
+
+    /** Records one graded course for the student and updates every rank structure. */
+    void recordGrade(String id, String major, double points, double credits) {
+        Entry e = entries.computeIfAbsent(id, k -> new Entry(StringPool.MAJORS.code(major), nextSeq++));
+        if (e.credits > 0) {
+            cohort.remove(e.gpa(), e.seq);
+            byMajor[e.major].remove(e.gpa(), e.seq);
+        }
+        e.points += points * credits;
+        e.credits += credits;
+        if (e.credits > 0) {
+            cohort.insert(e.gpa(), e.seq);
+            majorTree(e.major).insert(e.gpa(), e.seq);
+        }
+    }
+
+    /** Cumulative GPA, or NaN when the student has no (positive) credits and so is not ranked. */
+    double gpa(String id) {
+        Entry e = entries.get(id);
+        return e == null || e.credits <= 0 ? Double.NaN : e.gpa();
+    }
+
+    double credits(String id) {
+        Entry e = entries.get(id);
+        return e == null ? 0 : e.credits;
+    }
+
+    /** Rank in the whole cohort, or 0 if the student is not ranked. */
+    int rank(String id) {
+        double gpa = gpa(id);
+        return Double.isNaN(gpa) ? 0 : cohort.countGreater(gpa) + 1;
+    }
+
+    /** Rank among students of the same major, or 0 if the student is not ranked. */
+    int rankInMajor(String id) {
+        double gpa = gpa(id);
+        return Double.isNaN(gpa) ? 0 : byMajor[entries.get(id).major].countGreater(gpa) + 1;
+    }
+
+    /** Percentile rank (0-100) in the whole cohort, or NaN if not ranked. */
+    double percentile(String id) {
+        double gpa = gpa(id);
+        return Double.isNaN(gpa) ? Double.NaN : cohort.percentile(gpa);
+    }
+
+    double percentileInMajor(String id) {
+        double gpa = gpa(id);
+        return Double.isNaN(gpa) ? Double.NaN : byMajor[entries.get(id).major].percentile(gpa);
+    }
+
+    int rankedCount() {
+        return cohort.size();
+    }
+
+    int rankedCountInMajor(String major) {
+        int code = StringPool.MAJORS.find(major);
+        return code < 0 || code >= byMajor.length || byMajor[code] == null ? 0 : byMajor[code].size();
+    }
+
+    private RankTree majorTree(int major) {
+        if (major >= byMajor.length) byMajor = Arrays.copyOf(byMajor, Math.max(major + 1, byMajor.length * 2));
+        if (byMajor[major] == null) byMajor[major] = new RankTree();
+        return byMajor[major];
+    }
+
+    // ------------------- Per-Student Sums -------------------
+    private static final class Entry {
+        final int major; // StringPool.MAJORS code
+        final int seq; // unique tie-breaker inside the trees
+        double points;
+        double credits;
+
+        Entry(int major, int seq) {
+            this.major = major;
+            this.seq = seq;
+        }
+
+        double gpa() {
+            return points / credits;
+        }
+    }
+
+    // ------------------- Order-Statistic Tree -------------------
+    /** Treap ordered by (gpa, seq) where every node knows its subtree size. */
+    private static final class RankTree {
+        private Node root;
+
+        int size() {
+            return size(root);
+        }
+
+        void insert(double gpa, int seq) {
+            Node[] parts = split(root, gpa, seq);
+            root = merge(merge(parts[0], new Node(gpa, seq)), parts[1]);
+        }
+
+        void remove(double gpa, int seq) {
+            root = remove(root, gpa, seq);
+        }
+
+        /** Number of entries with a GPA strictly greater than {@code gpa}. */
+        int countGreater(double gpa) {
+            return size(root) - countAtMost(gpa);
+        }
+
+        /** Percentile rank: entries below plus half of the ties, as a percentage. */
+        double percentile(double gpa) {
+            int below = countBelow(gpa);
+            int ties = countAtMost(gpa) - below;
+            return 100.0 * (below + 0.5 * ties) / size(root);
+        }
+
+        private int countBelow(double gpa) {
+            int count = 0;
+            for (Node n = root; n != null; ) {
+                if (n.gpa < gpa) {
+                    count += size(n.left) + 1;
+                    n = n.right;
+                } else {
+                    n = n.left;
+                }
+            }
+            return count;
+        }
+
+        private int countAtMost(double gpa) {
+            int count = 0;
+            for (Node n = root; n != null; ) {
+                if (n.gpa <= gpa) {
+                    count += size(n.left) + 1;
+                    n = n.right;
+                } else {
+                    n = n.left;
+                }
+            }
+            return count;
+        }
+
+        /** Splits into keys before (gpa, seq) and keys at or after it. */
+        private static Node[] split(Node n, double gpa, int seq) {
+            if (n == null) return new Node[2];
+            if (compare(n.gpa, n.seq, gpa, seq) < 0) {
+                Node[] parts = split(n.right, gpa, seq);
+                n.right = parts[0];
+                n.update();
+                parts[0] = n;
+                return parts;
+            }
+            Node[] parts = split(n.left, gpa, seq);
+            n.left = parts[1];
+            n.update();
+            parts[1] = n;
+            return parts;
+        }
+
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                a.update();
+                return a;
+            }
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+
+        private static Node remove(Node n, double gpa, int seq) {
+            if (n == null) return null;
+            int c = compare(gpa, seq, n.gpa, n.seq);
+            if (c == 0) return merge(n.left, n.right);
+            if (c < 0) n.left = remove(n.left, gpa, seq);
+            else n.right = remove(n.right, gpa, seq);
+            n.update();
+            return n;
+        }
+
+        private static int compare(double gpaA, int seqA, double gpaB, int seqB) {
+            int c = Double.compare(gpaA, gpaB);
+            return c != 0 ? c : Integer.compare(seqA, seqB);
+        }
+
+        private static int size(Node n) {
+            return n == null ? 0 : n.size;
+        }
+
+        private static final class Node {
+            final double gpa;
+            final int seq;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            int size = 1;
+            Node left, right;
+
+            Node(double gpa, int seq) {
+                this.gpa = gpa;
+                this.seq = seq;
+            }
+
+            void update() {
+                size = 1 + RankTree.size(left) + RankTree.size(right);
+            }
+        }
+    }
+}
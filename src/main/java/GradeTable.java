@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * Precomputed grade-to-points lookup shared by the GPA dialog and the batch
+ * engine. A letter grade is turned into a table index from its letter and
+ * optional '+'/'-', so no String is trimmed, upper-cased or switched on.
+ * Numeric grades between 0 and 4 are accepted as-is. Invalid grades map to -1.
+ */
+final class GradeTable {
+
+    private static final double[] POINTS = new double[26 * 3];
+
+    static {
+        Arrays.fill(POINTS, -1);
+        set('A', ' ', 4.0);
+        set('A', '-', 3.7);
+        set('B', '+', 3.3);
+        set('B', ' ', 3.0);
+        set('B', '-', 2.7);
+        set('C', '+', 2.3);
+        set('C', ' ', 2.0);
+        set('D', ' ', 1.0);
+        set('F', ' ', 0.0);
+    }
+
+    private GradeTable() {
+    }
+
+    static double points(String grade) {
+        if (grade == null) return -1;
+        int from = 0, to = grade.length();
+        while (from < to && grade.charAt(from) <= ' ') from++;
+        while (to > from && grade.charAt(to - 1) <= ' ') to--;
+        int len = to - from;
+        if (len == 0) return -1;
+
+        char c = grade.charAt(from);
+        if (isLetter(c) && len <= 2) {
+            return lookup(c, len == 2 ? grade.charAt(from + 1) : ' ');
+        }
+        return numeric(grade.substring(from, to));
+    }
+
+    /** Same as {@link #points(String)} but reads ASCII bytes, for the batch engine. */
+    static double points(byte[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') from++;
+        while (to > from && buf[to - 1] <= ' ') to--;
+        int len = to - from;
+        if (len == 0) return -1;
+
+        char c = (char) buf[from];
+        if (isLetter(c) && len <= 2) {
+            return lookup(c, len == 2 ? (char) buf[from + 1] : ' ');
+        }
+        return numeric(new String(buf, from, len, java.nio.charset.StandardCharsets.US_ASCII));
+    }
+
+    // ------------------- Helpers -------------------
+    private static double lookup(char letter, char modifier) {
+        int mod = switch (modifier) {
+            case ' ' -> 0;
+            case '+' -> 1;
+            case '-' -> 2;
+            default -> -1;
+        };
+        if (mod < 0) return -1;
+        return POINTS[(Character.toUpperCase(letter) - 'A') * 3 + mod];
+    }
+
+    private static double numeric(String g) {
+        try {
+            double val = Double.parseDouble(g);
+            return (val >= 0 && val <= 4) ? val : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static void set(char letter, char modifier, double points) {
+        int mod = modifier == '+' ? 1 : modifier == '-' ? 2 : 0;
+        POINTS[(letter - 'A') * 3 + mod] = points;
+    }
+}
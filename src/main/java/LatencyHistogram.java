@@ -0,0 +1,85 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram in the style of HdrHistogram.
+ * Description:
+ *  - Buckets are log-linear: values below 32 ns get one bucket each, and
+ *    every power of two above that is split into 32 equal sub-buckets, so a
+ *    recorded value is known to within about 3% up to ~18 minutes (larger
+ *    values land in the last bucket)
+ *  - record() is one array index computation and a few atomic adds; it never
+ *    allocates or locks, so it is safe on any hot path and from any thread
+ *  - snapshot() copies the counts for percentiles; a snapshot taken while
+ *    values are being recorded may be off by those few in-flight values
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40; // 2^40 ns is about 18 minutes
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(v));
+        sum.addAndGet(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // another thread raised the max; try again against the new value
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += copy[i] = counts.get(i);
+        return new Snapshot(n, sum.get(), max.get(), copy);
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** The largest value that lands in bucket {@code index}. */
+    static long highestIn(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /** Counts at one moment; values are nanoseconds. */
+    record Snapshot(long count, long sum, long max, long[] counts) {
+
+        double mean() {
+            return count == 0 ? 0 : sum / (double) count;
+        }
+
+        /** The value at percentile {@code p} (0-100), reported as the top of its bucket but never above max. */
+        long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestIn(i), max);
+            }
+            return max;
+        }
+    }
+}
@@ -1,41 +1,58 @@
 import javax.swing.*;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.Supplier;
 
-class Book {
-    private static int NEXT_ID = 1;
-    private final int id;
-    private String title;
-    private String author;
-    private boolean issued;
+public class LibraryModule {
+    private static final Path DATA_DIR = Paths.get("library-data");
+    private static CirculationJournal journal; // null = changes are not persisted
+    private static volatile CirculationService circulation = new CirculationService();
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final List<ResultView.Column<Book>> BOOK_COLUMNS = List.of(
+            ResultView.Column.number("ID", Book::getId),
+            ResultView.Column.text("Title", Book::getTitle),
+            ResultView.Column.text("Author", Book::getAuthor),
+            ResultView.Column.text("Status", b -> b.isIssued() ? "Issued" : "Available"));
 
-    Book(String title, String author) {
-        this.id = NEXT_ID++;
-        this.title = title.trim();
-        this.author = author.trim();
-        this.issued = false;
+    public static void main(String[] args) {
+        openCatalog();
+        if (circulation.size() == 0) seedSampleData(); // gives you two starter books for screenshots
+        SwingUtilities.invokeLater(LibraryModule::runGUI);
     }
 
-    public int getId() { return id; }
-    public String getTitle() { return title; }
-    public String getAuthor() { return author; }
-    public boolean isIssued() { return issued; }
-    public void issue() { this.issued = true; }
-    public void giveBack() { this.issued = false; }
+    private static void openCatalog() {
+        try {
+            openJournal();
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(null, "Could not open " + DATA_DIR + " (" + e.getMessage()
+                    + ").\nChanges in this session will not be saved.");
+        }
+    }
 
-    @Override
-    public String toString() {
-        return String.format("#%d | %s — %s %s",
-                id, title, author, issued ? "[Issued]" : "[Available]");
+    private static void closeCatalog() {
+        try {
+            closeJournal();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Error saving library data: " + e.getMessage());
+        }
     }
-}
 
-public class LibraryModule {
-    private static final List<Book> books = new ArrayList<>();
+    // ------------------- Shared Access -------------------
+    /** Restores the catalog from library-data and journals every later change there. */
+    static void openJournal() throws IOException {
+        journal = CirculationJournal.open(DATA_DIR);
+        circulation = journal.service();
+    }
 
-    public static void main(String[] args) {
-        seedSampleData(); // gives you two starter books for screenshots
-        SwingUtilities.invokeLater(LibraryModule::runGUI);
+    static void closeJournal() throws IOException {
+        if (journal != null) journal.close();
+    }
+
+    /** The catalog; CirculationService is thread-safe, so the GUI and CampusServer share it. */
+    static CirculationService circulation() {
+        return circulation;
     }
 
     private static void runGUI() {
@@ -53,6 +70,7 @@ public class LibraryModule {
                 default -> JOptionPane.showMessageDialog(null, "Invalid choice. Try again.");
             }
         } while (choice != 0);
+        closeCatalog();
     }
 
     private static int printMenu() {
@@ -82,31 +100,35 @@ public class LibraryModule {
         String author = JOptionPane.showInputDialog("Enter author:");
         if (author == null) return;
 
-        title = title.trim();
-        author = author.trim();
+        String t = title.trim(), a = author.trim();
 
-        if (title.isEmpty() || author.isEmpty()) {
+        if (t.isEmpty() || a.isEmpty()) {
             JOptionPane.showMessageDialog(null, "Title/Author cannot be empty.");
             return;
         }
-        books.add(new Book(title, author));
-        JOptionPane.showMessageDialog(null, "Book added successfully!");
+        if (save(() -> circulation.addBook(t, a)) != null) {
+            JOptionPane.showMessageDialog(null, "Book added successfully!");
+        }
     }
 
     private static void searchBooks() {
         String q = JOptionPane.showInputDialog("Search text (title or author):");
         if (q == null || q.trim().isEmpty()) return;
 
-        q = q.trim().toLowerCase();
-        boolean found = false;
-        StringBuilder sb = new StringBuilder();
-        for (Book b : books) {
-            if (b.getTitle().toLowerCase().contains(q) || b.getAuthor().toLowerCase().contains(q)) {
-                sb.append(b).append("\n");
-                found = true;
+        List<Book> hits = circulation.search(q, MAX_SEARCH_RESULTS);
+        if (hits.isEmpty()) {
+            List<String> suggestions = circulation.didYouMean(q, 3);
+            if (!suggestions.isEmpty()) {
+                Object pick = JOptionPane.showInputDialog(null, "No matching books found. Did you mean:",
+                        "Search Books", JOptionPane.QUESTION_MESSAGE, null, suggestions.toArray(), suggestions.get(0));
+                if (pick == null) return;
+                hits = circulation.search((String) pick, MAX_SEARCH_RESULTS);
             }
         }
-        if (!found) sb.append("No matching books found.");
+        StringBuilder sb = new StringBuilder();
+        for (Book b : hits) sb.append(b).append("\n");
+        if (hits.isEmpty()) sb.append("No matching books found.");
+        else if (hits.size() == MAX_SEARCH_RESULTS) sb.append("(showing the top ").append(MAX_SEARCH_RESULTS).append(" matches)");
         JOptionPane.showMessageDialog(null, sb.toString());
     }
 
@@ -114,11 +136,12 @@ public class LibraryModule {
         Book b = findBookPrompt("issue");
         if (b == null) return;
 
-        if (b.isIssued()) {
-            JOptionPane.showMessageDialog(null, "That book is already issued.");
-        } else {
-            b.issue();
+        Boolean issued = save(() -> circulation.issue(b));
+        if (issued == null) return;
+        if (issued) {
             JOptionPane.showMessageDialog(null, "Book issued successfully!");
+        } else {
+            JOptionPane.showMessageDialog(null, "That book is already issued.");
         }
     }
 
@@ -126,35 +149,24 @@ public class LibraryModule {
         Book b = findBookPrompt("return");
         if (b == null) return;
 
-        if (!b.isIssued()) {
-            JOptionPane.showMessageDialog(null, "That book was not issued.");
-        } else {
-            b.giveBack();
+        Boolean returned = save(() -> circulation.giveBack(b));
+        if (returned == null) return;
+        if (returned) {
             JOptionPane.showMessageDialog(null, "Book returned successfully!");
+        } else {
+            JOptionPane.showMessageDialog(null, "That book was not issued.");
         }
     }
 
     private static void displayAvailableBooks() {
-        boolean any = false;
-        StringBuilder sb = new StringBuilder();
-        for (Book b : books) {
-            if (!b.isIssued()) {
-                sb.append(b).append("\n");
-                any = true;
-            }
-        }
-        if (!any) sb.append("No available books.");
-        JOptionPane.showMessageDialog(null, sb.toString());
+        CirculationService c = circulation;
+        ResultView.show("Available Books (" + c.availableCount() + " of " + c.size() + ")", "No available books.",
+                BOOK_COLUMNS, c::available);
     }
 
     private static void displayAllBooks() {
-        if (books.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Library is empty.");
-            return;
-        }
-        StringBuilder sb = new StringBuilder();
-        for (Book b : books) sb.append(b).append("\n");
-        JOptionPane.showMessageDialog(null, sb.toString());
+        CirculationService c = circulation;
+        ResultView.show("All Books", "Library is empty.", BOOK_COLUMNS, c::all);
     }
 
     // ----- helpers -----
@@ -174,7 +186,8 @@ public class LibraryModule {
             if (idStr == null) return null;
             try {
                 int id = Integer.parseInt(idStr.trim());
-                for (Book b : books) if (b.getId() == id) return b;
+                Book b = circulation.byId(id);
+                if (b != null) return b;
                 JOptionPane.showMessageDialog(null, "No book with ID " + id + ".");
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(null, "Invalid ID format.");
@@ -182,12 +195,46 @@ public class LibraryModule {
         } else if (opt == 1) { // by title
             String t = JOptionPane.showInputDialog("Enter title:");
             if (t == null) return null;
-            for (Book b : books) if (b.getTitle().equalsIgnoreCase(t.trim())) return b;
+            List<Book> copies = circulation.byTitle(t);
+            if (copies.size() == 1) return copies.get(0);
+            if (copies.size() > 1) return chooseCopy(copies, actionWord);
             JOptionPane.showMessageDialog(null, "No book with title \"" + t + "\".");
         }
         return null;
     }
 
+    private static Book chooseCopy(List<Book> copies, String actionWord) {
+        // Preselect the first copy the action can apply to.
+        boolean wantIssued = actionWord.equals("return");
+        Book preferred = copies.get(0);
+        for (Book b : copies) {
+            if (b.isIssued() == wantIssued) {
+                preferred = b;
+                break;
+            }
+        }
+        Object choice = JOptionPane.showInputDialog(null,
+                copies.size() + " copies share this title. Choose one to " + actionWord + ":",
+                "Choose Copy",
+                JOptionPane.PLAIN_MESSAGE,
+                null, copies.toArray(), preferred);
+        return (Book) choice;
+    }
+
+    /**
+     * Applies one change (which waits until it is journaled); null (after telling
+     * the user) if it could not be saved, in which case the change was undone.
+     */
+    private static <T> T save(Supplier<T> change) {
+        try {
+            return change.get();
+        } catch (RuntimeException e) {
+            JOptionPane.showMessageDialog(null, "Error saving library data: " + e.getMessage()
+                    + "\nThe change was not made.");
+            return null;
+        }
+    }
+
     private static int readInt(String prompt) {
         while (true) {
             String s = JOptionPane.showInputDialog(prompt);
@@ -201,7 +248,7 @@ public class LibraryModule {
     }
 
     private static void seedSampleData() {
-        books.add(new Book("Atomic Habits", "James Clear"));
-        books.add(new Book("Clean Code", "Robert C. Martin"));
+        circulation.addBook("Atomic Habits", "James Clear");
+        circulation.addBook("Clean Code", "Robert C. Martin");
     }
 }
\ No newline at end of file
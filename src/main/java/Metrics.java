@@ -0,0 +1,208 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Operation-level counters and latency histograms for all four modules.
+ * Description:
+ *  - Call sites take {@code long t0 = System.nanoTime()} and, when the
+ *    operation is done, {@code Metrics.record(Op.X, t0)}; recording is a few
+ *    atomic adds into a LatencyHistogram and allocates nothing
+ *  - While a JFR recording has it enabled, every operation is also emitted
+ *    as a "campus.Operation" event, so slow operations can be lined up with
+ *    GC pauses and file I/O in the same recording
+ *  - The numbers are exposed locally only: through the platform MBean
+ *    server as "campus:type=Metrics" (jconsole / jcmd on the same machine),
+ *    and, with -Dcampus.metrics.interval=SECONDS, as a text table printed to
+ *    stderr at that interval
+ */
+final class Metrics {
+
+    /** The measured operations, named "module.action". */
+    enum Op {
+        COURSE_ADD("faculty.add"),
+        COURSE_SEARCH("faculty.search"),
+        STUDENT_ADD("gpa.addStudent"),
+        STUDENT_LOOKUP("gpa.findStudent"),
+        GPA_RECORD("gpa.recordGrades"),
+        GPA_STANDING("gpa.standing"),
+        BOOK_ADD("library.add"),
+        BOOK_SEARCH("library.search"),
+        BOOK_LOOKUP("library.lookup"),
+        BOOK_ISSUE("library.issue"),
+        BOOK_RETURN("library.return"),
+        EVENT_ADD("events.add"),
+        EVENT_CANCEL("events.cancel"),
+        EVENT_LOAD("events.load"),
+        EVENT_SAVE("events.save"),
+        CALC_EVAL("calculator.eval"),
+        IMPORT_BATCH("import.batch");
+
+        final String label;
+        final String module;
+
+        Op(String label) {
+            this.label = label;
+            this.module = label.substring(0, label.indexOf('.'));
+        }
+    }
+
+    private static final Op[] OPS = Op.values();
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[OPS.length];
+    private static final EventType JFR_TYPE = EventType.getEventType(OperationEvent.class);
+    private static final String INTERVAL_PROPERTY = "campus.metrics.interval";
+
+    static {
+        for (int i = 0; i < OPS.length; i++) HISTOGRAMS[i] = new LatencyHistogram();
+        registerMBean();
+        startDump();
+    }
+
+    private Metrics() {
+    }
+
+    // ------------------- Recording -------------------
+    /** Records one operation that started at {@code startNanos} (a System.nanoTime() value). */
+    static void record(Op op, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        HISTOGRAMS[op.ordinal()].record(nanos);
+        if (JFR_TYPE.isEnabled()) emit(op, nanos);
+    }
+
+    private static void emit(Op op, long nanos) {
+        OperationEvent e = new OperationEvent();
+        e.module = op.module;
+        e.operation = op.label;
+        e.latency = nanos;
+        e.commit();
+    }
+
+    static LatencyHistogram.Snapshot snapshot(Op op) {
+        return HISTOGRAMS[op.ordinal()].snapshot();
+    }
+
+    static void reset() {
+        for (LatencyHistogram h : HISTOGRAMS) h.reset();
+    }
+
+    // ------------------- Reporting -------------------
+    /** One line per operation that has run: count, mean, p50 / p90 / p99 / p99.9 and max. */
+    static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-20s %10s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Op op : OPS) {
+            LatencyHistogram.Snapshot s = snapshot(op);
+            if (s.count() == 0) continue;
+            sb.append(String.format("%-20s %10d %9s %9s %9s %9s %9s %9s%n", op.label, s.count(),
+                    time(s.mean()), time(s.percentile(50)), time(s.percentile(90)),
+                    time(s.percentile(99)), time(s.percentile(99.9)), time(s.max())));
+        }
+        return sb.toString();
+    }
+
+    /** "850ns", "12.4us", "3.1ms", "2.0s". */
+    private static String time(double nanos) {
+        if (nanos < 1e3) return String.format("%.0fns", nanos);
+        if (nanos < 1e6) return String.format("%.1fus", nanos / 1e3);
+        if (nanos < 1e9) return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.1fs", nanos / 1e9);
+    }
+
+    private static void startDump() {
+        long seconds = Long.getLong(INTERVAL_PROPERTY, 0);
+        if (seconds <= 0) return;
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> System.err.print("--- campus metrics ---\n" + report()),
+                seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName("campus:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Metrics MBean not registered: " + e.getMessage());
+        }
+    }
+
+    // ------------------- JMX -------------------
+    private static final class MBean implements MetricsMXBean {
+
+        @Override
+        public Map<String, Long> getCounts() {
+            Map<String, Long> out = new LinkedHashMap<>();
+            for (Op op : OPS) out.put(op.label, snapshot(op).count());
+            return out;
+        }
+
+        @Override
+        public Map<String, Double> getMeanMicros() {
+            return micros(LatencyHistogram.Snapshot::mean);
+        }
+
+        @Override
+        public Map<String, Double> getP50Micros() {
+            return micros(s -> s.percentile(50));
+        }
+
+        @Override
+        public Map<String, Double> getP99Micros() {
+            return micros(s -> s.percentile(99));
+        }
+
+        @Override
+        public Map<String, Double> getMaxMicros() {
+            return micros(s -> s.max());
+        }
+
+        @Override
+        public String getReport() {
+            return report();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+        private static Map<String, Double> micros(ToDoubleFunction<LatencyHistogram.Snapshot> value) {
+            Map<String, Double> out = new LinkedHashMap<>();
+            for (Op op : OPS) out.put(op.label, value.applyAsDouble(snapshot(op)) / 1e3);
+            return out;
+        }
+    }
+
+    // ------------------- JFR -------------------
+    @Name("campus.Operation")
+    @Label("Campus Operation")
+    @Category({"Campus"})
+    @Description("One add / search / lookup / issue / return / GPA / event / calculator / import batch operation")
+    @StackTrace(false)
+    static final class OperationEvent extends jdk.jfr.Event {
+        @Label("Module")
+        String module;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+}
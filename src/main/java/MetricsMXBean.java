@@ -0,0 +1,24 @@
+import java.util.Map;
+
+/**
+ * Management view of {@link Metrics}, registered as "campus:type=Metrics".
+ * Maps are keyed by operation name ("library.issue", ...); times are in
+ * microseconds. JMX interfaces must be public, hence this separate file.
+ */
+public interface MetricsMXBean {
+
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    /** The same table as the periodic text dump. */
+    String getReport();
+
+    void reset();
+}
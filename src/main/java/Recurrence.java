@@ -0,0 +1,248 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * How a campus event repeats: daily, weekly on some weekdays, or monthly on
+ * the day of month it started, optionally ending on a date or after a number
+ * of occurrences.
+ * Description:
+ *  - A recurring event is one record; its date is the first day the rule may
+ *    fire and occurrences are only worked out for the dates being looked at
+ *  - In events.csv the rule is one tagged field such as "~daily",
+ *    "~weekly:MO+WE:until=2026-06-30" or "~monthly:count=10"
+ *  - Months without the start day (a series on the 31st in April) are
+ *    skipped, not moved
+ *  - Jumping to a date is arithmetic, also with a count: the occurrences
+ *    before it are counted, not walked
+ */
+record Recurrence(Frequency frequency, Set<DayOfWeek> days, LocalDate until, int count) {
+
+    static final int MAX_COUNT = 10_000;
+
+    enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    Recurrence {
+        if (count < 0 || count > MAX_COUNT) throw new IllegalArgumentException("count must be 1 to " + MAX_COUNT);
+        if (until != null && count > 0) throw new IllegalArgumentException("give an end date or a count, not both");
+        if (!days.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("weekdays only apply to weekly events");
+        }
+        days = days.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(days));
+    }
+
+    // ------------------- Occurrences -------------------
+    /** Occurrence dates of a series starting on {@code start}, from {@code from} on, in order. */
+    Iterator<LocalDate> dates(LocalDate start, LocalDate from) {
+        return new Iterator<>() {
+            private LocalDate next = firstOnOrAfter(start, from.isBefore(start) ? start : from);
+            // With a count, the occurrences before `from` have already used some of it up.
+            private long seen = count > 0 ? occurrencesBefore(start, next) : 0;
+
+            {
+                if (count > 0 && seen >= count || until != null && next.isAfter(until)) next = null;
+            }
+
+            private void step() {
+                seen++;
+                next = count > 0 && seen >= count ? null : firstOnOrAfter(start, next.plusDays(1));
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDate next() {
+                if (next == null) throw new NoSuchElementException();
+                LocalDate d = next;
+                step();
+                if (next != null && until != null && next.isAfter(until)) next = null;
+                return d;
+            }
+        };
+    }
+
+    /** The last occurrence of a series starting on {@code start}, or null if it never ends (or never fires). */
+    LocalDate last(LocalDate start) {
+        if (until == null && count == 0) return null;
+        if (until != null) {
+            // Worked back from the end date, so a far-off until costs no more than a near one.
+            LocalDate last = lastOnOrBefore(start, until);
+            return last.isBefore(start) ? null : last;
+        }
+        LocalDate last = null; // at most MAX_COUNT steps
+        for (Iterator<LocalDate> it = dates(start, start); it.hasNext(); ) last = it.next();
+        return last;
+    }
+
+    /** The last date at or before {@code d} the rule fires on, ignoring the start and the end. */
+    private LocalDate lastOnOrBefore(LocalDate start, LocalDate d) {
+        return switch (frequency) {
+            case DAILY -> d;
+            case WEEKLY -> {
+                Set<DayOfWeek> on = days.isEmpty() ? Set.of(start.getDayOfWeek()) : days;
+                LocalDate day = d;
+                while (!on.contains(day.getDayOfWeek())) day = day.minusDays(1);
+                yield day;
+            }
+            case MONTHLY -> {
+                int dom = start.getDayOfMonth();
+                LocalDate month = d.withDayOfMonth(1);
+                if (d.getDayOfMonth() < dom) month = month.minusMonths(1);
+                while (month.lengthOfMonth() < dom) month = month.minusMonths(1);
+                yield month.withDayOfMonth(dom);
+            }
+        };
+    }
+
+    /**
+     * How often the rule fires from {@code start} up to (not including) {@code d},
+     * ignoring the end; {@code d} is not before {@code start}.
+     */
+    private long occurrencesBefore(LocalDate start, LocalDate d) {
+        long elapsed = ChronoUnit.DAYS.between(start, d);
+        return switch (frequency) {
+            case DAILY -> elapsed;
+            case WEEKLY -> {
+                Set<DayOfWeek> on = days.isEmpty() ? Set.of(start.getDayOfWeek()) : days;
+                long n = elapsed / 7 * on.size();
+                for (int i = 0; i < elapsed % 7; i++) {
+                    if (on.contains(start.getDayOfWeek().plus(i))) n++;
+                }
+                yield n;
+            }
+            case MONTHLY -> {
+                // Months are numbered year * 12 + month - 1; count [first, end) minus those too short.
+                int dom = start.getDayOfMonth();
+                long first = start.getYear() * 12L + start.getMonthValue() - 1;
+                long end = d.getYear() * 12L + d.getMonthValue() - 1 + (d.getDayOfMonth() > dom ? 1 : 0);
+                long n = end - first;
+                if (dom >= 30) n -= monthsIn(first, end, 2);
+                if (dom == 31) n -= monthsIn(first, end, 4) + monthsIn(first, end, 6) + monthsIn(first, end, 9)
+                        + monthsIn(first, end, 11);
+                if (dom == 29) n -= monthsIn(first, end, 2) - leapFebruariesIn(first, end);
+                yield n;
+            }
+        };
+    }
+
+    /** Numbered months in [first, end) that are {@code month} (1-12) of their year. */
+    private static long monthsIn(long first, long end, int month) {
+        return Math.floorDiv(end - month, 12) - Math.floorDiv(first - month, 12);
+    }
+
+    private static long leapFebruariesIn(long first, long end) {
+        // February of year y is month y * 12 + 1.
+        long fromYear = -Math.floorDiv(-(first - 1), 12), toYear = Math.floorDiv(end - 2, 12);
+        return toYear < fromYear ? 0 : leapYearsUpTo(toYear) - leapYearsUpTo(fromYear - 1);
+    }
+
+    private static long leapYearsUpTo(long year) {
+        return Math.floorDiv(year, 4) - Math.floorDiv(year, 100) + Math.floorDiv(year, 400);
+    }
+
+    /** The first date at or after {@code d} the rule fires on, ignoring the end. */
+    private LocalDate firstOnOrAfter(LocalDate start, LocalDate d) {
+        return switch (frequency) {
+            case DAILY -> d;
+            case WEEKLY -> {
+                Set<DayOfWeek> on = days.isEmpty() ? Set.of(start.getDayOfWeek()) : days;
+                LocalDate day = d;
+                while (!on.contains(day.getDayOfWeek())) day = day.plusDays(1);
+                yield day;
+            }
+            case MONTHLY -> {
+                int dom = start.getDayOfMonth();
+                LocalDate month = d.withDayOfMonth(1);
+                if (d.getDayOfMonth() > dom) month = month.plusMonths(1);
+                while (month.lengthOfMonth() < dom) month = month.plusMonths(1);
+                yield month.withDayOfMonth(dom);
+            }
+        };
+    }
+
+    // ------------------- Text Forms -------------------
+    /** The events.csv field, without the leading '~'. */
+    String toTag() {
+        StringBuilder sb = new StringBuilder(frequency.name().toLowerCase(Locale.ROOT));
+        if (!days.isEmpty()) {
+            StringJoiner j = new StringJoiner("+", ":", "");
+            for (DayOfWeek d : days) j.add(d.name().substring(0, 2));
+            sb.append(j);
+        }
+        if (until != null) sb.append(":until=").append(until.format(Utility.DATE_F));
+        if (count > 0) sb.append(":count=").append(count);
+        return sb.toString();
+    }
+
+    /** Reads a tag written by {@link #toTag()}; IllegalArgumentException if it is not one. */
+    static Recurrence parse(String tag) {
+        String[] parts = tag.split(":", -1);
+        Frequency frequency;
+        try {
+            frequency = Frequency.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown repeat '" + parts[0] + "'");
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        LocalDate until = null;
+        int count = 0;
+        for (int i = 1; i < parts.length; i++) {
+            String p = parts[i];
+            try {
+                if (p.startsWith("until=")) {
+                    until = LocalDate.parse(p.substring(6), Utility.DATE_F);
+                } else if (p.startsWith("count=")) {
+                    count = Integer.parseInt(p.substring(6));
+                    if (count == 0) throw new IllegalArgumentException("count must be 1 to " + MAX_COUNT);
+                } else {
+                    days.addAll(parseDays(p, "\\+"));
+                }
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("bad repeat field '" + p + "'");
+            }
+        }
+        return new Recurrence(frequency, days, until, count);
+    }
+
+    /** "Mon,Wed", "mo we" or "MO+WE" style weekday lists. */
+    static Set<DayOfWeek> parseDays(String text, String separator) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String s : text.trim().split(separator)) {
+            String name = s.trim().toUpperCase(Locale.ROOT);
+            if (name.isEmpty()) continue;
+            DayOfWeek match = null;
+            for (DayOfWeek d : DayOfWeek.values()) {
+                if (name.length() >= 2 && d.name().startsWith(name)) match = d;
+            }
+            if (match == null) throw new IllegalArgumentException("unknown weekday '" + s.trim() + "'");
+            days.add(match);
+        }
+        return days;
+    }
+
+    /** "weekly on Mon, Wed until 2026-06-30", "monthly, 10 times". */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(frequency.name().toLowerCase(Locale.ROOT));
+        if (!days.isEmpty()) {
+            StringJoiner j = new StringJoiner(", ", " on ", "");
+            for (DayOfWeek d : days) j.add(d.getDisplayName(TextStyle.SHORT, Locale.US));
+            sb.append(j);
+        }
+        if (until != null) sb.append(" until ").append(until.format(Utility.DATE_F));
+        if (count > 0) sb.append(", ").append(count).append(count == 1 ? " time" : " times");
+        return sb.toString();
+    }
+}
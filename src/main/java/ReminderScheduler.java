@@ -0,0 +1,180 @@
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reminders before campus events (by default 24 hours and 15 minutes ahead),
+ * driven by a TimingWheel.
+ * Description:
+ *  - schedule(event) adds one wheel timer per reminder still in the future
+ *    and cancel(event) unlinks them: both O(1), so calendars with millions
+ *    of events are fine
+ *  - Everything that comes due in the same tick is handed to the sink as
+ *    one list, so a burst of reminders is one callback, not thousands
+ *  - A recurring event only has its next occurrence on the wheel; when that
+ *    occurrence's last reminder fires, the following one is scheduled
+ *  - Time comes from an injected Clock; start() runs a dedicated daemon
+ *    thread (never the Swing EDT) that wakes once per tick, while tests can
+ *    move a simulated clock and call runDue() instead
+ *
+ * Events whose time cannot be read get no reminders.
+ */
+class ReminderScheduler implements Closeable {
+
+    static final List<Duration> DEFAULT_OFFSETS = List.of(Duration.ofHours(24), Duration.ofMinutes(15));
+    private static final long TICK_MILLIS = 1_000;
+
+    /** One reminder: {@code before} ahead of {@code event}. */
+    record Reminder(Event event, Duration before) {
+        @Override
+        public String toString() {
+            long minutes = before.toMinutes();
+            String lead = minutes % 1440 == 0 ? minutes / 1440 + " day(s)"
+                    : minutes % 60 == 0 ? minutes / 60 + " hour(s)" : minutes + " minute(s)";
+            return "In " + lead + ": " + event;
+        }
+    }
+
+    private final Clock clock;
+    private final List<Duration> offsets;
+    private final Consumer<List<Reminder>> sink;
+    private final TimingWheel wheel;
+    private final Map<Event, TimingWheel.Timer[]> timers = new IdentityHashMap<>();
+    // Reminders fired during the current runDue(); only touched by the thread running it.
+    private List<Reminder> firing = new ArrayList<>();
+    private Thread thread;
+    private volatile boolean closed;
+
+    ReminderScheduler(Clock clock, Consumer<List<Reminder>> sink) {
+        this(clock, DEFAULT_OFFSETS, sink);
+    }
+
+    ReminderScheduler(Clock clock, List<Duration> offsets, Consumer<List<Reminder>> sink) {
+        this.clock = clock;
+        this.offsets = offsets.stream().sorted(Comparator.reverseOrder()).toList(); // earliest reminder first
+        this.sink = sink;
+        this.wheel = new TimingWheel(TICK_MILLIS, clock.millis());
+    }
+
+    /** Schedules the event's reminders that are still ahead; no-op for events already scheduled. */
+    void schedule(Event e) {
+        if (e.minute == EventIndex.UNKNOWN_MINUTE) return;
+        long now = clock.millis();
+        synchronized (timers) {
+            if (timers.containsKey(e)) return;
+            scheduleNext(e, LocalDate.ofInstant(clock.instant(), clock.getZone()), now);
+        }
+    }
+
+    /**
+     * Schedules the reminders of the first occurrence of {@code e} (from
+     * {@code from} on, for a recurring event) that still has one ahead.
+     * Caller holds {@code timers}.
+     */
+    private void scheduleNext(Event e, LocalDate from, long now) {
+        Iterator<LocalDate> days = e.repeat == null ? List.of(e.date).iterator() : e.dates(from);
+        while (days.hasNext()) {
+            LocalDate day = days.next();
+            Event occurrence = e.repeat == null ? e : e.on(day);
+            long start = day.atStartOfDay(clock.getZone()).toInstant().toEpochMilli() + e.minute * 60_000L;
+            if (start - offsets.get(offsets.size() - 1).toMillis() <= now) continue; // all its reminders are past
+
+            TimingWheel.Timer[] forEvent = new TimingWheel.Timer[offsets.size()];
+            for (int i = 0; i < offsets.size(); i++) {
+                Reminder r = new Reminder(occurrence, offsets.get(i));
+                long due = start - r.before().toMillis();
+                if (due > now) forEvent[i] = wheel.schedule(due, () -> fire(r, e, forEvent));
+            }
+            timers.put(e, forEvent);
+            return;
+        }
+    }
+
+    void scheduleAll(Iterable<Event> events) {
+        for (Event e : events) schedule(e);
+    }
+
+    /** Drops the event's pending reminders. */
+    void cancel(Event e) {
+        TimingWheel.Timer[] forEvent;
+        synchronized (timers) {
+            forEvent = timers.remove(e);
+        }
+        if (forEvent == null) return;
+        for (TimingWheel.Timer t : forEvent) {
+            if (t != null) t.cancel();
+        }
+    }
+
+    /** Pending reminders. */
+    int pending() {
+        return wheel.size();
+    }
+
+    // ------------------- Firing -------------------
+    /**
+     * Fires everything due at the clock's current time and passes it to the
+     * sink in one list. Called by the scheduler thread, or directly by a
+     * caller driving a simulated clock. Returns how many reminders fired.
+     */
+    synchronized int runDue() {
+        int fired = wheel.advanceTo(clock.millis());
+        if (!firing.isEmpty()) {
+            List<Reminder> batch = firing;
+            firing = new ArrayList<>();
+            sink.accept(batch);
+        }
+        return fired;
+    }
+
+    private void fire(Reminder r, Event e, TimingWheel.Timer[] forEvent) {
+        firing.add(r); // runs inside runDue() on the same thread
+        if (r.before().equals(offsets.get(offsets.size() - 1))) { // the occurrence's last reminder
+            synchronized (timers) {
+                if (timers.get(e) != forEvent) return; // cancelled meanwhile
+                timers.remove(e);
+                if (e.repeat != null && !closed) scheduleNext(e, r.event().date.plusDays(1), clock.millis());
+            }
+        }
+    }
+
+    /** Starts the dedicated scheduler thread. */
+    synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this::run, "event-reminders");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                long now = clock.millis();
+                Thread.sleep(TICK_MILLIS - Math.floorMod(now, TICK_MILLIS));
+                runDue();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Reminder delivery failed: " + e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) t.interrupt();
+    }
+}
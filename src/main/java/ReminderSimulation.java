@@ -0,0 +1,156 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic check of the reminder scheduler on simulated time: no
+ * thread, no sleeping, a clock that only moves when told to.
+ * Description:
+ *  - Schedules reminders for N events (default 1M) over the next 60 days,
+ *    including a burst of events all starting at the same minute, and
+ *    cancels every tenth event
+ *  - Moves the clock forward one minute at a time and verifies that every
+ *    reminder fired exactly once, never early and at most one step late,
+ *    and that no cancelled event was reminded
+ *  - Prints the cost of schedule / cancel and the largest single batch
+ *
+ * Usage: ReminderSimulation [events] [burst]
+ */
+public class ReminderSimulation {
+
+    private static final int DAYS = 60;
+    private static final long STEP_MILLIS = 60_000;
+
+    /** A clock that stands still until advanced. */
+    static final class SimulatedClock extends Clock {
+        private long millis;
+
+        SimulatedClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int burst = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        LocalDateTime begin = LocalDateTime.of(2025, 9, 1, 8, 0);
+        SimulatedClock clock = new SimulatedClock(begin.toInstant(ZoneOffset.UTC).toEpochMilli());
+
+        Map<Event, List<Long>> firedAt = new IdentityHashMap<>();
+        int[] largestBatch = new int[1];
+        int[] batches = new int[1];
+        ReminderScheduler scheduler = new ReminderScheduler(clock, batch -> {
+            batches[0]++;
+            largestBatch[0] = Math.max(largestBatch[0], batch.size());
+            for (ReminderScheduler.Reminder r : batch) {
+                firedAt.computeIfAbsent(r.event(), k -> new ArrayList<>(2)).add(clock.millis());
+            }
+        });
+
+        Random rnd = new Random(16);
+        List<Event> events = new ArrayList<>(n);
+        LocalDate burstDay = begin.toLocalDate().plusDays(10);
+        for (int i = 0; i < n; i++) {
+            Event e = i < burst
+                    ? new Event(burstDay, "14:00", "Orientation " + i)
+                    : new Event(begin.toLocalDate().plusDays(rnd.nextInt(DAYS)),
+                    rnd.nextInt(24) + ":" + String.format("%02d", rnd.nextInt(60)), "Event " + i);
+            events.add(e);
+        }
+
+        long t0 = System.nanoTime();
+        scheduler.scheduleAll(events);
+        long scheduleNanos = System.nanoTime() - t0;
+        int scheduled = scheduler.pending();
+
+        List<Event> cancelled = new ArrayList<>();
+        t0 = System.nanoTime();
+        for (int i = 0; i < n; i += 10) {
+            scheduler.cancel(events.get(i));
+            cancelled.add(events.get(i));
+        }
+        long cancelNanos = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        long fired = 0;
+        for (long m = 0; m <= (DAYS + 1) * 1440L; m++) {
+            clock.advance(STEP_MILLIS);
+            fired += scheduler.runDue();
+        }
+        long runNanos = System.nanoTime() - t0;
+
+        // Verify against the expected times.
+        long beginMillis = begin.toInstant(ZoneOffset.UTC).toEpochMilli();
+        int wrong = 0, missing = 0, expected = 0;
+        Map<Event, Boolean> isCancelled = new IdentityHashMap<>();
+        for (Event e : cancelled) isCancelled.put(e, true);
+        for (Event e : events) {
+            long start = e.date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + e.minute * 60_000L;
+            List<Long> got = firedAt.getOrDefault(e, List.of());
+            if (isCancelled.containsKey(e)) {
+                if (!got.isEmpty()) wrong++;
+                continue;
+            }
+            List<Long> want = new ArrayList<>();
+            for (var offset : ReminderScheduler.DEFAULT_OFFSETS) {
+                long due = start - offset.toMillis();
+                if (due > beginMillis) want.add(due);
+            }
+            expected += want.size();
+            if (got.size() != want.size()) {
+                missing++;
+                continue;
+            }
+            for (int i = 0; i < want.size(); i++) {
+                long late = got.get(i) - want.get(i);
+                if (late < 0 || late > STEP_MILLIS) wrong++;
+            }
+        }
+
+        System.out.printf("Scheduled %,d reminders for %,d events in %.1f ms (%.0f ns/event)%n",
+                scheduled, n, scheduleNanos / 1e6, (double) scheduleNanos / n);
+        System.out.printf("Cancelled %,d events in %.1f ms (%.0f ns/event)%n",
+                cancelled.size(), cancelNanos / 1e6, (double) cancelNanos / cancelled.size());
+        System.out.printf("Simulated %d days: %,d reminders fired in %,d batches, largest batch %,d, %.1f ms total%n",
+                DAYS + 1, fired, batches[0], largestBatch[0], runNanos / 1e6);
+        System.out.printf("expected %,d, wrong time / cancelled but fired: %d, missing or duplicated: %d, still pending: %d%n",
+                expected, wrong, missing, scheduler.pending());
+        if (wrong + missing > 0 || fired != expected || scheduler.pending() != 0) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
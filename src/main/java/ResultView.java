@@ -0,0 +1,388 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Shared window for the long listings of every module (all courses, all
+ * students, all books, events), replacing one huge message dialog.
+ * Description:
+ *  - A JTable over a model that keeps the fetched rows untouched plus an
+ *    int[] view of the row numbers currently shown; the table only asks for
+ *    the cells of the rows it paints, so a 100k-row listing costs one int per
+ *    row on top of the data and never builds its text
+ *  - The rows are fetched in a SwingWorker, so copying a large listing never
+ *    runs on the EDT
+ *  - Filtering (substring of any column, case-insensitive) and sorting (click
+ *    a header; click again to reverse) run in SwingWorkers as well, and work
+ *    from the view already on screen: typing more only rescans the rows
+ *    still shown, sorting rearranges only those rows, and reversing is one
+ *    pass; only a shortened filter goes back to all rows
+ *  - show() blocks until the window is closed, like the JOptionPane dialogs
+ *    the menus use, and may be called from any thread; pick() does the same
+ *    and returns the row the user chose (double-click or the action button)
+ */
+final class ResultView<T> {
+
+    private static final int FILTER_DELAY_MS = 150;
+
+    /** One table column: how to show a row and, for sorting, how to order rows. */
+    record Column<T>(String name, Function<? super T, ?> value, Comparator<? super T> order) {
+
+        static <T> Column<T> text(String name, Function<? super T, String> value) {
+            return new Column<>(name, value, Comparator.comparing(value, String.CASE_INSENSITIVE_ORDER));
+        }
+
+        static <T> Column<T> number(String name, ToIntFunction<? super T> value) {
+            return new Column<>(name, value::applyAsInt, Comparator.comparingInt(value));
+        }
+    }
+
+    private final String title;
+    private final String emptyText;
+    private final List<Column<T>> columns;
+    private final Supplier<List<T>> fetch;
+    private final String action; // pick(): label of the button that chooses the selected row; null for show()
+
+    // EDT only. `view[0..size)` are indexes into `rows`, in `sortColumn` / `descending` order
+    // (fetch order when sortColumn is -1), restricted to rows matching `filter`.
+    private List<T> rows = List.of();
+    private int[] view = new int[0];
+    private int size;
+    private String filter = "";
+    private int sortColumn = -1;
+    private boolean descending;
+    // What the user asked for last; a worker brings the view there.
+    private String wantedFilter = "";
+    private int wantedSortColumn = -1;
+    private boolean wantedDescending;
+    private int generation; // bumped per worker; results of older workers are dropped
+    private boolean loaded;
+    private T picked;
+
+    private final Model model = new Model();
+    private JTable table;
+    private JLabel status;
+
+    private ResultView(String title, String emptyText, List<Column<T>> columns, Supplier<List<T>> fetch,
+                       String action) {
+        this.title = title;
+        this.emptyText = emptyText;
+        this.columns = List.copyOf(columns);
+        this.fetch = fetch;
+        this.action = action;
+    }
+
+    /**
+     * Shows the rows {@code fetch} returns (it is called off the EDT) and
+     * blocks until the window is closed; {@code emptyText} is shown if there
+     * are none.
+     */
+    static <T> void show(String title, String emptyText, List<Column<T>> columns, Supplier<List<T>> fetch) {
+        new ResultView<>(title, emptyText, columns, fetch, null).display();
+    }
+
+    /**
+     * Like show(), with a button labelled {@code action}: returns the row the
+     * user chose with it (or by double-clicking), or null if the window was
+     * closed without choosing.
+     */
+    static <T> T pick(String title, String emptyText, List<Column<T>> columns, Supplier<List<T>> fetch,
+                      String action) {
+        ResultView<T> v = new ResultView<>(title, emptyText, columns, fetch, action);
+        v.display();
+        return v.picked;
+    }
+
+    private void display() {
+        if (EventQueue.isDispatchThread()) {
+            open();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(this::open);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException r) throw r;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // ------------------- Window -------------------
+    private void open() {
+        JDialog dialog = new JDialog((Frame) null, title, true);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        table = new JTable(model);
+        table.setAutoCreateRowSorter(false);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int c = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (c >= 0) sortBy(c);
+            }
+        });
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        if (action != null) {
+            table.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) pickSelected(dialog);
+                }
+            });
+        }
+
+        JTextField filterField = new JTextField(24);
+        filterField.setEnabled(false);
+        Timer debounce = new Timer(FILTER_DELAY_MS, e -> filterBy(filterField.getText()));
+        debounce.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Filter:"));
+        top.add(filterField);
+        status = new JLabel("Loading...");
+        JButton close = new JButton(action == null ? "Close" : "Cancel");
+        close.addActionListener(e -> dialog.dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        if (action != null) {
+            JButton choose = new JButton(action);
+            choose.addActionListener(e -> pickSelected(dialog));
+            buttons.add(choose);
+        }
+        buttons.add(close);
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(status, BorderLayout.CENTER);
+        bottom.add(buttons, BorderLayout.EAST);
+
+        dialog.add(top, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(bottom, BorderLayout.SOUTH);
+        dialog.getRootPane().setDefaultButton(close);
+        dialog.setSize(new Dimension(820, 520));
+        dialog.setLocationRelativeTo(null);
+
+        load(filterField);
+        dialog.setVisible(true); // modal: returns once the window is closed
+        debounce.stop();
+        generation++; // any worker still running finds its results unwanted
+    }
+
+    private void pickSelected(JDialog dialog) {
+        int row = table.getSelectedRow();
+        if (row < 0 || row >= size) {
+            status.setText("Select a row first.");
+            return;
+        }
+        picked = rows.get(view[table.convertRowIndexToModel(row)]);
+        dialog.dispose();
+    }
+
+    private void load(JTextField filterField) {
+        int gen = ++generation;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return fetch.get();
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) return;
+                try {
+                    rows = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    status.setText("Could not load: " + cause.getMessage());
+                    return;
+                }
+                view = new int[rows.size()];
+                Arrays.setAll(view, i -> i);
+                size = view.length;
+                loaded = true;
+                model.fireTableDataChanged();
+                filterField.setEnabled(!rows.isEmpty());
+                if (!wantedFilter.isEmpty() || wantedSortColumn >= 0) refresh();
+                else showStatus();
+            }
+        }.execute();
+    }
+
+    private void showStatus() {
+        if (rows.isEmpty()) status.setText(emptyText);
+        else if (size == rows.size()) status.setText(size + " rows");
+        else status.setText(size + " of " + rows.size() + " rows match");
+    }
+
+    // ------------------- Filtering & Sorting -------------------
+    private void filterBy(String text) {
+        wantedFilter = text.trim().toLowerCase(Locale.ROOT);
+        refresh();
+    }
+
+    private void sortBy(int column) {
+        if (column == wantedSortColumn) {
+            wantedDescending = !wantedDescending;
+        } else {
+            wantedSortColumn = column;
+            wantedDescending = false;
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            String arrow = c != wantedSortColumn ? "" : wantedDescending ? " ▼" : " ▲";
+            table.getColumnModel().getColumn(table.convertColumnIndexToView(c)).setHeaderValue(columns.get(c).name() + arrow);
+        }
+        table.getTableHeader().repaint();
+        refresh();
+    }
+
+    /** Starts a worker that turns the current view into the wanted one. */
+    private void refresh() {
+        if (!loaded) return;
+        int gen = ++generation;
+        List<T> data = rows;
+        String current = filter;
+        String q = wantedFilter;
+        int sortC = wantedSortColumn;
+        boolean desc = wantedDescending;
+        // Narrowing the filter only needs to look at what is shown; anything else starts from all rows.
+        boolean narrowing = q.startsWith(current);
+        int[] base = narrowing ? Arrays.copyOf(view, size) : null;
+        int baseSort = narrowing ? sortColumn : -1;
+        boolean baseDesc = narrowing && descending;
+        status.setText(q.equals(current) ? "Sorting..." : "Filtering...");
+
+        new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                int[] shown = q.equals(current) && base != null ? base : select(data, base, q);
+                return order(data, shown, baseSort, baseDesc, sortC, desc);
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) return;
+                try {
+                    view = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    status.setText("Error: " + cause.getMessage());
+                    return;
+                }
+                size = view.length;
+                filter = q;
+                sortColumn = sortC;
+                descending = desc;
+                model.fireTableDataChanged();
+                showStatus();
+            }
+        }.execute();
+    }
+
+    /** Row numbers (from {@code base}, or all rows if null) whose columns contain {@code q}. */
+    private int[] select(List<T> data, int[] base, String q) {
+        int n = base == null ? data.size() : base.length;
+        int[] out = new int[n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int row = base == null ? i : base[i];
+            if (q.isEmpty() || matches(data.get(row), q)) out[k++] = row;
+        }
+        return Arrays.copyOf(out, k);
+    }
+
+    private boolean matches(T row, String q) {
+        for (Column<T> c : columns) {
+            Object v = c.value().apply(row);
+            if (v != null && v.toString().toLowerCase(Locale.ROOT).contains(q)) return true;
+        }
+        return false;
+    }
+
+    /** Puts {@code rows}, currently in (fromColumn, fromDesc) order, into (toColumn, toDesc) order. */
+    private int[] order(List<T> data, int[] rows, int fromColumn, boolean fromDesc, int toColumn, boolean toDesc) {
+        if (fromColumn == toColumn) {
+            if (fromDesc != toDesc) reverse(rows);
+            return rows;
+        }
+        if (toColumn < 0) {
+            Arrays.sort(rows); // back to fetch order
+            return rows;
+        }
+        Comparator<? super T> order = columns.get(toColumn).order();
+        Integer[] boxed = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) boxed[i] = rows[i];
+        Comparator<Integer> byRow = (a, b) -> order.compare(data.get(a), data.get(b));
+        Arrays.sort(boxed, toDesc ? byRow.reversed() : byRow);
+        for (int i = 0; i < rows.length; i++) rows[i] = boxed[i];
+        return rows;
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    // ------------------- Table Model -------------------
+    private final class Model extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int getRowCount() {
+            return size;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.size();
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns.get(column).name();
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return columns.get(column).value().apply(rows.get(view[row]));
+        }
+    }
+}
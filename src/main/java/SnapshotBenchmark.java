@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Cold-start comparison of the text files and SnapshotFile for each module.
+ * Description:
+ *  - Students and events: generates the text file, then times parsing it
+ *    (into a StudentStore for students, as the module starts) against
+ *    reading the snapshot written from it, and checks both give the same rows
+ *  - Books: fills a journaled catalog, snapshots it and times recovery
+ *  - Courses: times saving and loading courses.snap
+ *  - Each load runs once untimed first, so the figures are not dominated by
+ *    JIT compilation
+ *
+ * Usage: SnapshotBenchmark [dir] [rows]
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "snapshot-bench");
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        deleteRecursively(dir);
+        Files.createDirectories(dir);
+        System.out.printf("%,d rows per module%n%n", rows);
+
+        // ------------------- Students -------------------
+        Path txt = dir.resolve("students.txt"), snap = dir.resolve("students.snap");
+        StudentFile.generate(txt, rows);
+        new StudentStore().addAll(StudentFile.load(txt).students());
+        long t0 = System.nanoTime();
+        StudentStore parsed = new StudentStore();
+        parsed.addAll(StudentFile.load(txt).students());
+        long parseNanos = System.nanoTime() - t0;
+        StudentFile.writeSnapshot(snap, parsed, SnapshotFile.sourceStamp(txt));
+        new StudentStore().loadSnapshot(SnapshotFile.open(snap, "students"));
+        t0 = System.nanoTime();
+        StudentStore restored = new StudentStore();
+        restored.loadSnapshot(SnapshotFile.open(snap, "students"));
+        long snapNanos = System.nanoTime() - t0;
+        boolean same = parsed.size() == restored.size();
+        for (int i = 0; same && i < parsed.size(); i++) same = parsed.row(i).equals(restored.row(i));
+        report("students", txt, parseNanos, snap, snapNanos, same);
+
+        // ------------------- Events -------------------
+        txt = dir.resolve("events.csv");
+        snap = dir.resolve("events.snap");
+        EventFile.generate(txt, rows);
+        EventFile.load(txt);
+        t0 = System.nanoTime();
+        EventFile.LoadResult csv = EventFile.load(txt);
+        parseNanos = System.nanoTime() - t0;
+        EventFile.writeSnapshot(snap, csv.events(), csv.records(), SnapshotFile.sourceStamp(txt));
+        EventFile.readSnapshot(SnapshotFile.open(snap, "events"));
+        t0 = System.nanoTime();
+        EventFile.LoadResult fromSnap = EventFile.readSnapshot(SnapshotFile.open(snap, "events"));
+        snapNanos = System.nanoTime() - t0;
+        same = csv.events().size() == fromSnap.events().size();
+        for (int i = 0; same && i < csv.events().size(); i++) {
+            same = csv.events().get(i).toCsv().equals(fromSnap.events().get(i).toCsv());
+        }
+        report("events", txt, parseNanos, snap, snapNanos, same);
+
+        // ------------------- Books -------------------
+        Path library = dir.resolve("library");
+        try (CirculationJournal j = CirculationJournal.open(library, Long.MAX_VALUE)) {
+            CirculationService c = j.service();
+            for (int i = 0; i < rows; i++) c.addBook("Book " + i, "Author " + i % 5_000);
+            for (int id = 1; id <= rows; id += 3) c.issue(c.byId(id));
+            j.snapshot();
+        }
+        long recoverNanos = 0;
+        for (int run = 0; run < 2; run++) {
+            t0 = System.nanoTime();
+            try (CirculationJournal j = CirculationJournal.open(library, Long.MAX_VALUE)) {
+                recoverNanos = System.nanoTime() - t0;
+                same = j.service().size() == rows && j.service().availableCount() == rows - (rows + 2) / 3;
+            }
+        }
+        System.out.printf("%-9s snapshot %,7d KB, recovered in %7.1f ms (incl. search index) %s%n", "books",
+                Files.size(library.resolve("snapshot.bin")) / 1024, recoverNanos / 1e6, same ? "OK" : "MISMATCH");
+
+        // ------------------- Courses -------------------
+        snap = dir.resolve("courses.snap");
+        for (int i = FacultySystem.courseCount(); i < rows; i++) {
+            FacultySystem.storeCourse(new FacultySystem.Course("C" + i, "Course " + i, "Lecturer " + i % 2_000));
+        }
+        t0 = System.nanoTime();
+        FacultySystem.saveSnapshot(snap);
+        long saveNanos = System.nanoTime() - t0;
+        t0 = System.nanoTime();
+        int loaded = FacultySystem.loadSnapshot(snap); // doubles the in-memory list; only the time matters here
+        System.out.printf("%-9s snapshot %,7d KB, saved in %7.1f ms, loaded in %7.1f ms (incl. trigram index) %s%n",
+                "courses", Files.size(snap) / 1024, saveNanos / 1e6, (System.nanoTime() - t0) / 1e6,
+                loaded == rows ? "OK" : "MISMATCH");
+    }
+
+    private static void report(String what, Path text, long parseNanos, Path snap, long snapNanos, boolean same)
+            throws IOException {
+        System.out.printf("%-9s text %,7d KB parsed in %7.1f ms | snapshot %,7d KB read in %7.1f ms | %.1fx %s%n",
+                what, Files.size(text) / 1024, parseNanos / 1e6, Files.size(snap) / 1024, snapNanos / 1e6,
+                parseNanos / (double) snapNanos, same ? "OK" : "MISMATCH");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of one table of rows, used by every module for
+ * fast cold starts (courses, students, books, events).
+ * Description:
+ *  - Columnar: each column is stored whole in its own section, as an int
+ *    array, a bitmap, or dictionary-encoded strings (each distinct string
+ *    stored once as UTF-8, rows store a 1, 2 or 4 byte code); a column of
+ *    mostly unique strings (IDs, titles) skips the codes and stores the
+ *    values in row order
+ *  - Every section is [length][CRC32C][body]; the schema section (kind, row
+ *    count, metadata, column names and types) is checked on open, a
+ *    column's section the first time that column is used
+ *  - Reading memory-maps the file and reads values in place; a string is
+ *    decoded the first time a row with its code is read, and once per
+ *    distinct value
+ *  - Written to a temp file, forced and renamed into place, so a crash
+ *    leaves either the old snapshot or the new one
+ *
+ * File: "CSNP" magic, format version, section count, then the sections
+ * (schema first, then one per column). Running main() prints a snapshot's
+ * schema and checks every section.
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int VERSION = 1;
+
+    private static final int HEADER = 12;
+    private static final byte INTS = 1, BOOLEANS = 2, STRINGS = 3;
+    private static final String SOURCE_SIZE = "source.size";
+    private static final String SOURCE_MODIFIED = "source.modified";
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Opens {@code snapshot} if it holds {@code kind} rows and was written
+     * from {@code source} as it is now (same size and modification time);
+     * null if it is missing, stale or unreadable.
+     */
+    static Table openIfCurrent(Path snapshot, String kind, Path source) {
+        if (!Files.exists(snapshot) || !Files.exists(source)) return null;
+        try {
+            Table t = open(snapshot, kind);
+            String[] stamp = sourceStamp(source);
+            return stamp[0].equals(t.meta(SOURCE_SIZE)) && stamp[1].equals(t.meta(SOURCE_MODIFIED)) ? t : null;
+        } catch (IOException e) {
+            System.err.println("Ignoring " + snapshot + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** {size, modified millis} of a file, as stored by {@link Writer#source}. */
+    static String[] sourceStamp(Path source) throws IOException {
+        BasicFileAttributes a = Files.readAttributes(source, BasicFileAttributes.class);
+        return new String[]{String.valueOf(a.size()), String.valueOf(a.lastModifiedTime().toMillis())};
+    }
+
+    // ------------------- Writing -------------------
+    /** Collects the columns of one table, then writes them all with {@link #write}. */
+    static final class Writer {
+        private final String kind;
+        private final int rows;
+        private final Map<String, String> meta = new LinkedHashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Byte> types = new ArrayList<>();
+        private final List<ByteBuffer> bodies = new ArrayList<>();
+
+        Writer(String kind, int rows) {
+            this.kind = kind;
+            this.rows = rows;
+        }
+
+        Writer meta(String key, Object value) {
+            meta.put(key, String.valueOf(value));
+            return this;
+        }
+
+        /** Records the stamp (from {@link #sourceStamp}) of the file this snapshot caches. */
+        Writer source(String[] stamp) {
+            return meta(SOURCE_SIZE, stamp[0]).meta(SOURCE_MODIFIED, stamp[1]);
+        }
+
+        Writer ints(String name, IntUnaryOperator value) {
+            ByteBuffer b = ByteBuffer.allocate(rows * 4);
+            for (int i = 0; i < rows; i++) b.putInt(value.applyAsInt(i));
+            return column(name, INTS, b);
+        }
+
+        Writer booleans(String name, IntPredicate value) {
+            ByteBuffer b = ByteBuffer.allocate((rows + 63) / 64 * 8);
+            long word = 0;
+            for (int i = 0; i < rows; i++) {
+                if (value.test(i)) word |= 1L << i;
+                if ((i & 63) == 63) {
+                    b.putLong(word);
+                    word = 0;
+                }
+            }
+            if ((rows & 63) != 0) b.putLong(word);
+            return column(name, BOOLEANS, b);
+        }
+
+        /** Null values are stored as "". */
+        Writer strings(String name, IntFunction<String> value) {
+            String[] values = new String[rows];
+            Map<String, Integer> codes = new HashMap<>();
+            int[] rowCodes = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                String s = value.apply(i);
+                values[i] = s == null ? "" : s;
+                Integer code = codes.putIfAbsent(values[i], codes.size());
+                rowCodes[i] = code == null ? codes.size() - 1 : code;
+            }
+            // Codes only pay off when values repeat; width 0 means "value i belongs to row i".
+            boolean repeats = codes.size() * 2 <= rows;
+            int distinct = repeats ? codes.size() : rows;
+            int width = !repeats ? 0 : distinct <= 1 << 8 ? 1 : distinct <= 1 << 16 ? 2 : 4;
+
+            ByteArrayOutputStream heap = new ByteArrayOutputStream();
+            int[] offsets = new int[distinct + 1];
+            int next = 0;
+            for (int i = 0; i < rows; i++) {
+                if (repeats && rowCodes[i] != next) continue; // not the first row with this value
+                offsets[next++] = heap.size();
+                heap.writeBytes(values[i].getBytes(StandardCharsets.UTF_8));
+            }
+            offsets[distinct] = heap.size();
+
+            ByteBuffer b = ByteBuffer.allocate(5 + (distinct + 1) * 4 + heap.size() + rows * width);
+            b.putInt(distinct).put((byte) width);
+            for (int off : offsets) b.putInt(off);
+            b.put(heap.toByteArray());
+            for (int i = 0; i < rows && width > 0; i++) {
+                switch (width) {
+                    case 1 -> b.put((byte) rowCodes[i]);
+                    case 2 -> b.putShort((short) rowCodes[i]);
+                    default -> b.putInt(rowCodes[i]);
+                }
+            }
+            return column(name, STRINGS, b);
+        }
+
+        private Writer column(String name, byte type, ByteBuffer body) {
+            if (names.contains(name)) throw new IllegalArgumentException("Duplicate column " + name);
+            names.add(name);
+            types.add(type);
+            bodies.add(body.flip());
+            return this;
+        }
+
+        /** Writes the snapshot to a temp file next to {@code path}, forces it and renames it into place. */
+        void write(Path path) throws IOException {
+            ByteArrayOutputStream schema = new ByteArrayOutputStream();
+            writeString(schema, kind);
+            writeInt(schema, rows);
+            writeInt(schema, meta.size());
+            for (Map.Entry<String, String> e : meta.entrySet()) {
+                writeString(schema, e.getKey());
+                writeString(schema, e.getValue());
+            }
+            writeInt(schema, names.size());
+            for (int i = 0; i < names.size(); i++) {
+                writeString(schema, names.get(i));
+                schema.write(types.get(i));
+            }
+
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putInt(1 + bodies.size());
+                writeFully(ch, header.flip());
+                writeSection(ch, ByteBuffer.wrap(schema.toByteArray()));
+                for (ByteBuffer body : bodies) writeSection(ch, body.duplicate());
+                ch.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private static void writeSection(FileChannel ch, ByteBuffer body) throws IOException {
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            ByteBuffer head = ByteBuffer.allocate(8).putInt(body.remaining()).putInt((int) crc.getValue());
+            writeFully(ch, head.flip());
+            writeFully(ch, body);
+        }
+
+        private static void writeFully(FileChannel ch, ByteBuffer b) throws IOException {
+            while (b.hasRemaining()) ch.write(b);
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int v) {
+            out.write(v >>> 24);
+            out.write(v >>> 16);
+            out.write(v >>> 8);
+            out.write(v);
+        }
+
+        private static void writeString(ByteArrayOutputStream out, String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+    }
+
+    // ------------------- Reading -------------------
+    /** Maps a snapshot and checks its header and schema; IOException if it is not a readable snapshot. */
+    static Table open(Path path) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + path);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size); // stays valid after the channel closes
+        }
+        return new Table(path, buf);
+    }
+
+    /** As {@link #open(Path)}, also checking that the snapshot holds {@code kind} rows. */
+    static Table open(Path path, String kind) throws IOException {
+        Table t = open(path);
+        if (!t.kind().equals(kind)) throw new IOException(path + " holds " + t.kind() + ", not " + kind);
+        return t;
+    }
+
+    /** A mapped snapshot. Columns are looked up by name; their checksums are checked on first use. */
+    static final class Table {
+        private final Path path;
+        private final ByteBuffer buf;
+        private final String kind;
+        private final int rows;
+        private final Map<String, String> meta = new LinkedHashMap<>();
+        private final Map<String, Integer> columnIndex = new LinkedHashMap<>();
+        private final byte[] types;
+        private final int[] bodyStart, bodyLength, checksums;
+        private final Object[] opened;
+
+        private Table(Path path, ByteBuffer buf) throws IOException {
+            this.path = path;
+            this.buf = buf;
+            if (buf.limit() < HEADER || buf.getInt(0) != MAGIC) throw corrupt("not a snapshot file");
+            int version = buf.getInt(4);
+            if (version != VERSION) throw new IOException(path + ": snapshot format " + version
+                    + " is not supported (this build reads " + VERSION + ")");
+            int sections = buf.getInt(8);
+            if (sections < 1) throw corrupt("no schema");
+            bodyStart = new int[sections];
+            bodyLength = new int[sections];
+            checksums = new int[sections];
+            int pos = HEADER;
+            for (int s = 0; s < sections; s++) {
+                if (pos + 8 > buf.limit()) throw corrupt("truncated at section " + s);
+                bodyLength[s] = buf.getInt(pos);
+                checksums[s] = buf.getInt(pos + 4);
+                bodyStart[s] = pos + 8;
+                if (bodyLength[s] < 0 || bodyStart[s] + (long) bodyLength[s] > buf.limit()) {
+                    throw corrupt("truncated at section " + s);
+                }
+                pos = bodyStart[s] + bodyLength[s];
+            }
+            verify(0);
+
+            ByteBuffer schema = section(0);
+            try {
+                kind = readString(schema);
+                rows = schema.getInt();
+                for (int n = schema.getInt(); n > 0; n--) meta.put(readString(schema), readString(schema));
+                int columns = schema.getInt();
+                if (columns != sections - 1) throw corrupt("schema lists " + columns + " columns");
+                types = new byte[columns];
+                for (int c = 0; c < columns; c++) {
+                    columnIndex.put(readString(schema), c);
+                    types[c] = schema.get();
+                }
+            } catch (RuntimeException e) {
+                throw corrupt("bad schema");
+            }
+            opened = new Object[types.length];
+        }
+
+        String kind() {
+            return kind;
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        /** Metadata value, or null. */
+        String meta(String key) {
+            return meta.get(key);
+        }
+
+        Ints ints(String name) throws IOException {
+            return (Ints) column(name, INTS);
+        }
+
+        Booleans booleans(String name) throws IOException {
+            return (Booleans) column(name, BOOLEANS);
+        }
+
+        Strings strings(String name) throws IOException {
+            return (Strings) column(name, STRINGS);
+        }
+
+        /** Checks every section's checksum; returns the column names in file order. */
+        List<String> verifyAll() throws IOException {
+            for (int s = 1; s < bodyStart.length; s++) verify(s);
+            return new ArrayList<>(columnIndex.keySet());
+        }
+
+        private synchronized Object column(String name, byte type) throws IOException {
+            Integer c = columnIndex.get(name);
+            if (c == null) throw corrupt("no column " + name);
+            if (types[c] != type) throw corrupt("column " + name + " has type " + types[c]);
+            if (opened[c] == null) {
+                verify(c + 1);
+                ByteBuffer body = section(c + 1);
+                try {
+                    opened[c] = switch (type) {
+                        case INTS -> new Ints(body, rows);
+                        case BOOLEANS -> new Booleans(body, rows);
+                        default -> new Strings(body, rows);
+                    };
+                } catch (RuntimeException e) {
+                    throw corrupt("bad column " + name);
+                }
+            }
+            return opened[c];
+        }
+
+        private ByteBuffer section(int s) {
+            return buf.slice(bodyStart[s], bodyLength[s]);
+        }
+
+        private void verify(int s) throws IOException {
+            CRC32C crc = new CRC32C();
+            crc.update(section(s));
+            if ((int) crc.getValue() != checksums[s]) {
+                throw corrupt(s == 0 ? "schema checksum mismatch" : "checksum mismatch in section " + s);
+            }
+        }
+
+        private IOException corrupt(String what) {
+            return new IOException("Corrupt snapshot " + path + ": " + what);
+        }
+    }
+
+    static final class Ints {
+        private final ByteBuffer body;
+
+        private Ints(ByteBuffer body, int rows) {
+            if (body.limit() != rows * 4) throw new IllegalStateException();
+            this.body = body;
+        }
+
+        int get(int row) {
+            return body.getInt(row * 4);
+        }
+    }
+
+    static final class Booleans {
+        private final ByteBuffer body;
+
+        private Booleans(ByteBuffer body, int rows) {
+            if (body.limit() != (rows + 63) / 64 * 8) throw new IllegalStateException();
+            this.body = body;
+        }
+
+        boolean get(int row) {
+            return (body.getLong((row >>> 6) * 8) & (1L << row)) != 0;
+        }
+    }
+
+    /**
+     * A dictionary-encoded column; values are decoded on first read and
+     * shared after that. With code width 0 the dictionary is in row order.
+     */
+    static final class Strings {
+        private final ByteBuffer body;
+        private final int distinct, width, heapStart, codesStart;
+        private final String[] decoded;
+        private byte[] scratch = new byte[64]; // guarded by `this`
+
+        private Strings(ByteBuffer body, int rows) {
+            this.body = body;
+            distinct = body.getInt(0);
+            width = body.get(4);
+            int heapSize = body.getInt(5 + distinct * 4); // the offset list ends with the heap size
+            heapStart = 5 + (distinct + 1) * 4;
+            codesStart = heapStart + heapSize;
+            if (distinct < 0 || (width != 0 && width != 1 && width != 2 && width != 4)
+                    || (width == 0 && distinct != rows) || codesStart + (long) rows * width != body.limit()) {
+                throw new IllegalStateException();
+            }
+            decoded = new String[distinct];
+        }
+
+        /** Dictionary code of the row's value; equal codes mean equal strings (when the width is not 0). */
+        int code(int row) {
+            int at = codesStart + row * width;
+            int code = switch (width) {
+                case 0 -> row;
+                case 1 -> body.get(at) & 0xFF;
+                case 2 -> body.getShort(at) & 0xFFFF;
+                default -> body.getInt(at);
+            };
+            if (code < 0 || code >= distinct) throw new IllegalStateException("Bad string code " + code);
+            return code;
+        }
+
+        String get(int row) {
+            return value(code(row));
+        }
+
+        String value(int code) {
+            String s = decoded[code];
+            return s != null ? s : decode(code);
+        }
+
+        private synchronized String decode(int code) {
+            int from = body.getInt(5 + code * 4);
+            int length = body.getInt(5 + (code + 1) * 4) - from;
+            if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            body.get(heapStart + from, scratch, 0, length);
+            String s = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            decoded[code] = s;
+            return s;
+        }
+
+        /** Number of values in the dictionary (the row count for a column in row order). */
+        int distinct() {
+            return distinct;
+        }
+
+        boolean inRowOrder() {
+            return width == 0;
+        }
+    }
+
+    private static String readString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ------------------- Inspection -------------------
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SnapshotFile <file>");
+            return;
+        }
+        long start = System.nanoTime();
+        Table t = open(Paths.get(args[0]));
+        List<String> columns = t.verifyAll();
+        System.out.printf("%s: %s, format %d, %,d rows, checked in %.1f ms%n", args[0], t.kind(), VERSION, t.rows(),
+                (System.nanoTime() - start) / 1e6);
+        t.meta.forEach((k, v) -> System.out.println("  " + k + " = " + v));
+        for (String c : columns) {
+            int i = t.columnIndex.get(c);
+            String type = switch (t.types[i]) {
+                case INTS -> "int";
+                case BOOLEANS -> "boolean";
+                default -> t.strings(c).inRowOrder() ? "string, in row order"
+                        : "string, " + t.strings(c).distinct() + " distinct";
+            };
+            System.out.printf("  %-12s %-24s %,12d bytes%n", c, type, t.bodyLength[i + 1]);
+        }
+    }
+}
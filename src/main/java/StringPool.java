@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary of heavily repeated values (majors, instructors,
+ * authors) that hands out dense int codes 0, 1, 2, ...
+ * Description:
+ *  - Records keep the int code instead of their own String copy, so each
+ *    distinct value is on the heap once however many rows use it, and
+ *    equality / grouping on the value is an int comparison
+ *  - code() is one ConcurrentHashMap read for a value seen before; only a
+ *    new value takes the pool's lock
+ *  - value() is two array reads and never locks: values are stored in
+ *    fixed-size segments that are appended but never copied or changed
+ *  - Codes are never reused, so a pool only grows; it is meant for values
+ *    with few distinct strings, not for names or titles
+ */
+final class StringPool {
+
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    /** Majors of the Student Module. */
+    static final StringPool MAJORS = new StringPool();
+    /** Course instructors of the Course & Faculty Module. */
+    static final StringPool INSTRUCTORS = new StringPool();
+    /** Book authors of the Library Module. */
+    static final StringPool AUTHORS = new StringPool();
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Written under `this`; a code is only handed out (through `codes`) after its value is stored.
+    private volatile String[][] segments = new String[0][];
+    private volatile int size;
+
+    /** The code for {@code value}, assigning the next free one if it is new. */
+    int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /** The code for {@code value}, or -1 if it was never added. */
+    int find(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /** The value behind a code handed out by this pool. */
+    String value(int code) {
+        return segments[code >>> SEGMENT_SHIFT][code & (SEGMENT_SIZE - 1)];
+    }
+
+    /** Number of distinct values; codes are 0 .. size() - 1. */
+    int size() {
+        return size;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) return existing;
+        int code = size;
+        int seg = code >>> SEGMENT_SHIFT;
+        if (seg == segments.length) {
+            String[][] grown = Arrays.copyOf(segments, seg + 1);
+            grown[seg] = new String[SEGMENT_SIZE];
+            segments = grown;
+        }
+        segments[seg][code & (SEGMENT_SIZE - 1)] = value;
+        size = code + 1;
+        codes.put(value, code);
+        return code;
+    }
+}
@@ -0,0 +1,106 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap and GC cost of keeping repeated values as StringPool codes versus one
+ * String copy per record, on the records the modules actually store.
+ * Description:
+ *  - Courses (instructor) and books (author) are built from freshly created
+ *    Strings, as parsing a file or a request produces them; the "strings"
+ *    rows hold them directly like the records did before, the "pooled" rows
+ *    are the modules' own Course / Book (StudentStore already kept one int
+ *    per major, so students are not compared)
+ *  - Every kind and layout runs in its own JVM so heap sizing and GC
+ *    history do not leak between runs
+ *  - Reported per run: live heap after a full GC, young/old GC count and
+ *    time while building, and the time of one full GC with the rows live
+ *
+ * Usage: StringPoolBenchmark [rows]   (children get -Xmx3g)
+ */
+public class StringPoolBenchmark {
+
+    private static final String[] KINDS = {"courses", "books"};
+
+    /** A course as it was stored before: its own instructor String. */
+    record PlainCourse(String code, String name, String instructor) {
+    }
+
+    /** A book's fields as they were stored before: its own author String. */
+    record PlainBook(int id, String title, String author, String titleKey, Object catalog) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("--run")) {
+            run(args[1], args[2].equals("pooled"));
+            return;
+        }
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        System.out.printf("%,d rows per run%n", rows);
+        System.out.printf("%-9s %-7s %10s %12s %12s %12s%n", "kind", "layout", "heap MB", "GCs (build)", "GC ms", "full GC ms");
+        for (String kind : KINDS) {
+            for (String layout : new String[] {"strings", "pooled"}) {
+                Process p = new ProcessBuilder(java, "-Xmx3g", "-Dcampus.rows=" + rows,
+                        "-cp", System.getProperty("java.class.path"),
+                        StringPoolBenchmark.class.getName(), "--run", kind, layout).inheritIO().start();
+                if (p.waitFor() != 0) throw new IllegalStateException(kind + "/" + layout + " failed");
+            }
+        }
+    }
+
+    private static void run(String kind, boolean pooled) {
+        int rows = Integer.getInteger("campus.rows", 5_000_000);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = liveHeap(memory);
+        long[] gcBefore = gcTotals();
+
+        Object data = kind.equals("courses") ? courses(rows, pooled) : books(rows, pooled);
+
+        long[] gcAfter = gcTotals();
+        long start = System.nanoTime();
+        long heap = liveHeap(memory) - heapBefore;
+        long fullGcNanos = System.nanoTime() - start;
+        System.out.printf("%-9s %-7s %10.1f %12d %12d %12.1f%n", kind, pooled ? "pooled" : "strings",
+                heap / 1e6, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], fullGcNanos / 1e6);
+        if (data.hashCode() == 42) System.out.print(""); // keeps the rows reachable until here
+    }
+
+    // ------------------- Datasets -------------------
+    private static Object courses(int rows, boolean pooled) {
+        List<Object> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String code = "C" + i, name = "Course " + i, instructor = "Lecturer " + i % 2_000;
+            out.add(pooled ? new FacultySystem.Course(code, name, instructor) : new PlainCourse(code, name, instructor));
+        }
+        return out;
+    }
+
+    private static Object books(int rows, boolean pooled) {
+        List<Object> out = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String title = "Book " + i, author = "Author " + i % 50_000;
+            out.add(pooled ? new Book(null, i + 1, title, author)
+                    : new PlainBook(i + 1, title, author, Book.normalizeTitle(title), null));
+        }
+        return out;
+    }
+
+    // ------------------- Measurement -------------------
+    private static long liveHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /** {total collections, total collection ms} over every collector. */
+    private static long[] gcTotals() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+}
@@ -0,0 +1,3 @@
+/** One student row: ID, full name and major. */
+record Student(String id, String name, String major) {
+}
@@ -0,0 +1,231 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Persistence for the Student Module's students.txt (ID|Name|Major per line).
+ * Description:
+ *  - Loading memory-maps the file and splits it into line-aligned chunks that
+ *    are parsed in parallel, one chunk per core
+ *  - Fields are located by scanning the mapped bytes for '|' and '\n'; there
+ *    is no readLine() or split() per line
+ *  - New students are appended to the end of the file
+ *
+ * Running main() loads a file (optionally generating it first) and prints the
+ * startup time and the bytes allocated per record.
+ */
+class StudentFile {
+
+    static final String STUDENTS_PATH = "students.txt";
+
+    private static final byte SEP = '|';
+    private static final byte NL = '\n';
+    // A single mapping cannot exceed 2 GB, so larger files always get more chunks.
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;
+    private static final long MIN_PARALLEL_SIZE = 1 << 20;
+
+    /** Parsed students in file order, plus how the load went. */
+    record LoadResult(List<Student> students, int skippedLines, long nanos, long allocatedBytes) {
+        double bytesPerRecord() {
+            return students.isEmpty() ? 0 : (double) allocatedBytes / students.size();
+        }
+    }
+
+    static LoadResult load(Path path) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(ch);
+            Chunk[] chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> parseChunk(ch, bounds[i], bounds[i + 1]))
+                    .toArray(Chunk[]::new);
+
+            int total = 0;
+            for (Chunk c : chunks) total += c.students.size();
+            List<Student> students = new ArrayList<>(total);
+            int skipped = 0;
+            long allocated = 0;
+            for (Chunk c : chunks) {
+                students.addAll(c.students);
+                skipped += c.skipped;
+                allocated += c.allocatedBytes;
+            }
+            return new LoadResult(students, skipped, System.nanoTime() - start, allocated);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static void append(Path path, Student s) throws IOException {
+        Files.writeString(path, toLine(s) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** Appends several students with one write. */
+    static void appendAll(Path path, List<Student> students) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Student s : students) sb.append(toLine(s)).append('\n');
+        Files.writeString(path, sb, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    static String toLine(Student s) {
+        return s.id() + "|" + s.name() + "|" + s.major();
+    }
+
+    // ------------------- Snapshot -------------------
+    /**
+     * Loads {@code text} into an empty store: from {@code snapshot} if it was
+     * written from the text as it is now, otherwise by parsing the text and
+     * then rewriting the snapshot for the next start (a failed write only
+     * costs that speed-up).
+     */
+    static void loadCached(Path text, Path snapshot, StudentStore into) throws IOException {
+        SnapshotFile.Table t = SnapshotFile.openIfCurrent(snapshot, "students", text);
+        if (t != null) {
+            try {
+                into.loadSnapshot(t);
+                return;
+            } catch (IOException e) {
+                System.err.println("Ignoring " + snapshot + ": " + e.getMessage());
+            }
+        }
+        String[] stamp = SnapshotFile.sourceStamp(text);
+        into.addAll(load(text).students());
+        try {
+            writeSnapshot(snapshot, into, stamp);
+        } catch (IOException e) {
+            System.err.println("Could not write " + snapshot + ": " + e.getMessage());
+        }
+    }
+
+    /** Writes the store's rows (duplicate IDs already dropped), stamped with the text file they came from. */
+    static void writeSnapshot(Path path, StudentStore store, String[] sourceStamp) throws IOException {
+        new SnapshotFile.Writer("students", store.size())
+                .source(sourceStamp)
+                .strings("id", i -> store.row(i).id())
+                .strings("name", i -> store.row(i).name())
+                .strings("major", i -> store.row(i).major())
+                .write(path);
+    }
+
+    // ------------------- Chunking -------------------
+    private static long[] chunkBounds(FileChannel ch) throws IOException {
+        long size = ch.size();
+        int parts = size < MIN_PARALLEL_SIZE ? 1 : Runtime.getRuntime().availableProcessors();
+        parts = (int) Math.max(parts, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+
+        long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        for (int i = 1; i < parts; i++) {
+            long guess = Math.max(bounds[i - 1], size / parts * i);
+            bounds[i] = nextLineStart(ch, guess, size);
+        }
+        return bounds;
+    }
+
+    /** Position just after the first '\n' at or after {@code pos}, or {@code size}. */
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(256);
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == NL) return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // ------------------- Parsing -------------------
+    private record Chunk(List<Student> students, int skipped, long allocatedBytes) {
+    }
+
+    private static Chunk parseChunk(FileChannel ch, long from, long to) {
+        long allocBefore = allocatedBytes();
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<Student> out = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, (to - from) / 24));
+        FieldDecoder decoder = new FieldDecoder();
+        int skipped = 0;
+        int limit = buf.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int sep1 = -1, sep2 = -1, end = pos;
+            while (end < limit && buf.get(end) != NL) {
+                if (buf.get(end) == SEP) {
+                    if (sep1 < 0) sep1 = end;
+                    else if (sep2 < 0) sep2 = end;
+                }
+                end++;
+            }
+            int lineEnd = end > pos && buf.get(end - 1) == '\r' ? end - 1 : end;
+
+            if (lineEnd > pos) {
+                if (sep1 > pos && sep2 > sep1 + 1 && lineEnd > sep2 + 1) {
+                    out.add(new Student(
+                            decoder.decode(buf, pos, sep1),
+                            decoder.decode(buf, sep1 + 1, sep2),
+                            decoder.decodeShared(buf, sep2 + 1, lineEnd)));
+                } else {
+                    skipped++;
+                }
+            }
+            pos = end + 1;
+        }
+        return new Chunk(out, skipped, allocatedBytes() - allocBefore);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    // ------------------- Load Report -------------------
+    /** Usage: StudentFile [path] [linesToGenerate] */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : STUDENTS_PATH);
+        if (args.length > 1) generate(path, Integer.parseInt(args[1]));
+
+        load(path); // warm-up so the reported run is not dominated by JIT compilation
+        LoadResult r = load(path);
+        StudentStore store = new StudentStore();
+        long storeStart = System.nanoTime();
+        int added = store.addAll(r.students());
+        long storeNanos = System.nanoTime() - storeStart;
+
+        System.out.printf("Parsed %,d students (%d malformed lines) in %.1f ms using %d cores%n",
+                r.students().size(), r.skippedLines(), r.nanos() / 1e6,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("Allocation: %.1f bytes per record%n", r.bytesPerRecord());
+        System.out.printf("Indexed %,d unique IDs in %.1f ms%n", added, storeNanos / 1e6);
+    }
+
+    static void generate(Path path, int lines) throws IOException {
+        String[] majors = {"Computer Science", "Information Technology", "Mathematics", "Biology", "History"};
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                w.write(toLine(new Student("G" + (10_000_000 + i), "Student " + i, majors[i % majors.length])));
+                w.write('\n');
+            }
+        }
+    }
+}
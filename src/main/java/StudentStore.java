@@ -0,0 +1,181 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Keyed student storage for the Student Module.
+ * Description:
+ *  - Rows are stored column by column (ids, names, major codes) instead of
+ *    one String[] per student
+ *  - Majors are codes in the shared StringPool.MAJORS, so each distinct
+ *    major is kept once and every row only stores an int
+ *  - IDs are indexed by an open-addressing hash table of row numbers, so
+ *    duplicate checks and lookups are O(1) on average
+ *  - A students SnapshotFile loads without building Student objects: IDs
+ *    are decoded for the hash table, majors are mapped once per distinct
+ *    major, and names stay in the mapped file until a row is first read
+ */
+class StudentStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] majorCodes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Slot value is row + 1; 0 marks an empty slot. Length is always a power of two.
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // Rows loaded from a snapshot (always rows 0..n-1) have a null name until it is first read.
+    private SnapshotFile.Strings snapshotNames;
+
+    /** Adds the student unless the ID is already taken; returns whether it was added. */
+    boolean add(Student s) {
+        if (contains(s.id())) return false;
+        ensureCapacity(size + 1);
+        append(s);
+        return true;
+    }
+
+    /**
+     * Adds a whole roster in one call. Storage and the hash table are grown
+     * once up front; rows with an ID that already exists (in the store or
+     * earlier in the same roster) are skipped. Returns the number added.
+     */
+    int addAll(Collection<Student> roster) {
+        ensureCapacity(size + roster.size());
+        int added = 0;
+        for (Student s : roster) {
+            if (contains(s.id())) continue;
+            append(s);
+            added++;
+        }
+        return added;
+    }
+
+    boolean contains(String id) {
+        return rowOf(id) >= 0;
+    }
+
+    /** Returns the student with this ID, or null if there is none. */
+    Student get(String id) {
+        int row = rowOf(id);
+        return row < 0 ? null : row(row);
+    }
+
+    /** Returns the student stored at the given row (insertion order). */
+    Student row(int row) {
+        return new Student(ids[row], nameAt(row), StringPool.MAJORS.value(majorCodes[row]));
+    }
+
+    /** The ID at the given row, without building the Student. */
+    String idAt(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Loads a students snapshot into this store, which must be empty.
+     * IOException (leaving the store empty) if the snapshot repeats an ID.
+     */
+    void loadSnapshot(SnapshotFile.Table t) throws IOException {
+        if (size != 0) throw new IllegalStateException("Snapshots load into an empty store");
+        SnapshotFile.Strings idColumn = t.strings("id"), majorColumn = t.strings("major");
+        SnapshotFile.Strings nameColumn = t.strings("name");
+        int n = t.rows();
+        ensureCapacity(n);
+        int[] majorCodeOf = new int[majorColumn.distinct()];
+        Arrays.fill(majorCodeOf, -1);
+        for (int row = 0; row < n; row++) {
+            String id = idColumn.get(row);
+            if (rowOf(id) >= 0) {
+                clear();
+                throw new IOException("Snapshot repeats student ID " + id);
+            }
+            int code = majorColumn.code(row);
+            if (majorCodeOf[code] < 0) majorCodeOf[code] = StringPool.MAJORS.code(majorColumn.value(code));
+            ids[row] = id;
+            majorCodes[row] = majorCodeOf[code];
+            insertSlot(id, row);
+        }
+        size = n;
+        snapshotNames = nameColumn;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Number of distinct majors among the stored students. */
+    int majorCount() {
+        BitSet seen = new BitSet();
+        for (int row = 0; row < size; row++) seen.set(majorCodes[row]);
+        return seen.cardinality();
+    }
+
+    // ------------------- Helpers -------------------
+    private String nameAt(int row) {
+        String name = names[row];
+        if (name == null) {
+            // Readers may race here under a shared lock; they all store the same immutable String.
+            name = snapshotNames.get(row);
+            names[row] = name;
+        }
+        return name;
+    }
+
+    private void clear() {
+        Arrays.fill(ids, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+        snapshotNames = null;
+    }
+
+    private void append(Student s) {
+        int row = size++;
+        ids[row] = s.id();
+        names[row] = s.name();
+        majorCodes[row] = StringPool.MAJORS.code(s.major());
+        insertSlot(s.id(), row);
+    }
+
+    private int rowOf(String id) {
+        int mask = slots.length - 1;
+        for (int i = spread(id.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) return -1;
+            if (ids[slot - 1].equals(id)) return slot - 1;
+        }
+    }
+
+    private void insertSlot(String id, int row) {
+        int mask = slots.length - 1;
+        int i = spread(id.hashCode()) & mask;
+        while (slots[i] != 0) i = (i + 1) & mask;
+        slots[i] = row + 1;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > ids.length) {
+            int cap = Math.max(needed, ids.length * 2);
+            ids = Arrays.copyOf(ids, cap);
+            names = Arrays.copyOf(names, cap);
+            majorCodes = Arrays.copyOf(majorCodes, cap);
+        }
+        // Keep the load factor at or below 1/2.
+        if (needed * 2 > slots.length) {
+            int tableSize = Integer.highestOneBit(needed * 2 - 1) << 1;
+            slots = new int[tableSize];
+            for (int row = 0; row < size; row++) insertSlot(ids[row], row);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
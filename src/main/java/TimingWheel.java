@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: O(1) schedule and cancel for very many timers.
+ * Description:
+ *  - Time is cut into ticks; LEVELS wheels of 64 slots each cover 64, 64^2,
+ *    ... ticks, so 5 levels of 1 s ticks reach about 34 years
+ *  - A timer goes into the lowest wheel whose range covers its delay; each
+ *    slot is a doubly linked list, so adding and unlinking are O(1)
+ *  - When a lower wheel wraps around, the next slot of the wheel above is
+ *    cascaded: its timers move down to finer slots (each timer moves at most
+ *    once per level)
+ *  - advanceTo() detaches a due slot in one step and runs the tasks outside
+ *    the lock, so thousands of timers due in the same tick cost one unlink
+ *    each and never block schedule() / cancel()
+ *
+ * The wheel has no thread or clock of its own: the owner calls advanceTo()
+ * with the current time, which makes simulated time trivial.
+ */
+final class TimingWheel {
+
+    private static final int LEVELS = 5;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+
+    /** A scheduled task; {@link #cancel()} is O(1). */
+    final class Timer {
+        final long deadline; // tick
+        final Runnable task;
+        Timer prev, next;
+        boolean linked;
+
+        private Timer(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /** False if the timer already fired or was cancelled. */
+        boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (!linked) return false;
+                unlink(this);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    private final long tickMillis;
+    // buckets[level][slot] is a sentinel of a circular list.
+    private final Timer[][] buckets = new Timer[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (Timer[] level : buckets) {
+            for (int s = 0; s < SLOTS; s++) {
+                Timer sentinel = new Timer(-1, null);
+                sentinel.prev = sentinel.next = sentinel;
+                level[s] = sentinel;
+            }
+        }
+    }
+
+    long tickMillis() {
+        return tickMillis;
+    }
+
+    /** Runs {@code task} on the first advanceTo() at or after {@code dueMillis}. */
+    synchronized Timer schedule(long dueMillis, Runnable task) {
+        long deadline = Math.floorDiv(dueMillis + tickMillis - 1, tickMillis); // round up: never early
+        Timer t = new Timer(Math.max(deadline, currentTick + 1), task);
+        place(t);
+        size++;
+        return t;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and runs every task that came due,
+     * on the calling thread, in deadline order. Returns how many ran.
+     */
+    int advanceTo(long nowMillis) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+        while (true) {
+            List<Runnable> due;
+            synchronized (this) {
+                if (currentTick >= target) return fired;
+                currentTick++;
+                cascade();
+                due = detach(buckets[0][(int) (currentTick & MASK)]);
+            }
+            for (Runnable task : due) task.run();
+            fired += due.size();
+        }
+    }
+
+    // ------------------- Internals (caller holds the lock) -------------------
+    private void place(Timer t) {
+        long delay = t.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) level++;
+        // Beyond the top wheel's range the timer is parked and re-placed when its slot cascades.
+        Timer head = buckets[level][(int) ((t.deadline >>> (SLOT_BITS * level)) & MASK)];
+        t.prev = head.prev;
+        t.next = head;
+        head.prev.next = t;
+        head.prev = t;
+        t.linked = true;
+    }
+
+    private static void unlink(Timer t) {
+        t.prev.next = t.next;
+        t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.linked = false;
+    }
+
+    /** At each wrap of a lower wheel, spreads the next slot of the wheel above over finer slots. */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) return;
+            Timer head = buckets[level][(int) ((currentTick >>> (SLOT_BITS * level)) & MASK)];
+            Timer t = head.next;
+            head.prev = head.next = head;
+            while (t != head) {
+                Timer next = t.next;
+                place(t);
+                t = next;
+            }
+        }
+    }
+
+    /** Empties a level-0 slot; everything in it is due now. */
+    private List<Runnable> detach(Timer head) {
+        if (head.next == head) return List.of();
+        List<Runnable> due = new ArrayList<>();
+        for (Timer t = head.next; t != head; ) {
+            Timer next = t.next;
+            t.prev = t.next = null;
+            t.linked = false;
+            due.add(t.task);
+            t = next;
+        }
+        head.prev = head.next = head;
+        size -= due.size();
+        return due;
+    }
+}
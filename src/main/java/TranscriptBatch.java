@@ -0,0 +1,266 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless term-end GPA batch (Student Module).
+ * Description:
+ *  - Streams a transcript file of ID|Grade|Credits rows into primitive arrays
+ *    (student index, grade points, credits)
+ *  - Grades go through the precomputed GradeTable instead of a String switch
+ *  - Rows are bucketed per student with a counting sort, then weighted GPAs
+ *    are computed in parallel with fork/join over ranges of students
+ *  - Writes ID|GPA|Credits per student and prints the throughput in rows/s
+ *
+ * Usage: TranscriptBatch transcript.txt results.txt [students rowsPerStudent]
+ * (the optional pair generates a synthetic transcript first).
+ */
+public class TranscriptBatch {
+
+    private static final int READ_BLOCK = 1 << 20;
+    private static final int STUDENTS_PER_TASK = 2048;
+
+    /** Columnar transcript rows; row i belongs to student {@code student[i]}. */
+    static final class Rows {
+        final List<String> ids = new ArrayList<>();
+        int[] student = new int[1024];
+        double[] points = new double[1024];
+        double[] credits = new double[1024];
+        int size;
+        int rejected;
+
+        private final Map<String, Integer> indexById = new HashMap<>();
+
+        void add(String id, double p, double c) {
+            if (size == student.length) {
+                int cap = size * 2;
+                student = Arrays.copyOf(student, cap);
+                points = Arrays.copyOf(points, cap);
+                credits = Arrays.copyOf(credits, cap);
+            }
+            Integer idx = indexById.get(id);
+            if (idx == null) {
+                idx = ids.size();
+                ids.add(id);
+                indexById.put(id, idx);
+            }
+            student[size] = idx;
+            points[size] = p;
+            credits[size] = c;
+            size++;
+        }
+    }
+
+    /** Per-student totals; gpa is NaN for students with zero credits. */
+    record Results(List<String> ids, double[] gpa, double[] credits) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TranscriptBatch transcript.txt results.txt [students rowsPerStudent]");
+            return;
+        }
+        Path in = Paths.get(args[0]);
+        Path out = Paths.get(args[1]);
+        if (args.length >= 4) generate(in, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+
+        long start = System.nanoTime();
+        Rows rows = read(in);
+        long parsed = System.nanoTime();
+        Results results = compute(rows);
+        long computed = System.nanoTime();
+        write(out, results);
+        long end = System.nanoTime();
+
+        System.out.printf("Rows: %,d (%,d rejected), students: %,d%n", rows.size, rows.rejected, rows.ids.size());
+        System.out.printf("Read %.1f ms | compute %.1f ms | write %.1f ms%n",
+                (parsed - start) / 1e6, (computed - parsed) / 1e6, (end - computed) / 1e6);
+        System.out.printf("Throughput: %,.0f rows/s end to end, %,.0f rows/s compute%n",
+                rows.size / ((end - start) / 1e9), rows.size / Math.max(1e-9, (computed - parsed) / 1e9));
+    }
+
+    // ------------------- Read -------------------
+    static Rows read(Path path) throws IOException {
+        Rows rows = new Rows();
+        byte[] buf = new byte[READ_BLOCK];
+        int filled = 0;
+        try (InputStream is = Files.newInputStream(path)) {
+            while (true) {
+                int n = is.read(buf, filled, buf.length - filled);
+                boolean eof = n < 0;
+                if (!eof) filled += n;
+
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (buf[i] == '\n') {
+                        parseRow(buf, lineStart, i, rows);
+                        lineStart = i + 1;
+                    }
+                }
+                if (eof) {
+                    if (lineStart < filled) parseRow(buf, lineStart, filled, rows);
+                    return rows;
+                }
+                // Move the partial last line to the front; grow if one line fills the block.
+                filled -= lineStart;
+                System.arraycopy(buf, lineStart, buf, 0, filled);
+                if (filled == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+    }
+
+    private static void parseRow(byte[] buf, int from, int to, Rows rows) {
+        if (to > from && buf[to - 1] == '\r') to--;
+        if (to == from) return;
+
+        int sep1 = indexOf(buf, from, to, (byte) '|');
+        int sep2 = sep1 < 0 ? -1 : indexOf(buf, sep1 + 1, to, (byte) '|');
+        if (sep1 <= from || sep2 < 0) {
+            rows.rejected++;
+            return;
+        }
+        double points = GradeTable.points(buf, sep1 + 1, sep2);
+        double credits = parseCredits(buf, sep2 + 1, to);
+        if (points < 0 || !(credits >= 0)) {
+            rows.rejected++;
+            return;
+        }
+        rows.add(new String(buf, from, sep1 - from, StandardCharsets.UTF_8).trim(), points, credits);
+    }
+
+    /** Non-negative decimal like "3" or "1.5"; NaN for anything else. */
+    private static double parseCredits(byte[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') from++;
+        while (to > from && buf[to - 1] <= ' ') to--;
+        if (from == to) return Double.NaN;
+
+        long whole = 0, frac = 0, scale = 1;
+        boolean dot = false;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b == '.' && !dot) {
+                dot = true;
+            } else if (b >= '0' && b <= '9' && scale < 1_000_000_000L) {
+                if (dot) {
+                    frac = frac * 10 + (b - '0');
+                    scale *= 10;
+                } else {
+                    whole = whole * 10 + (b - '0');
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        return whole + (double) frac / scale;
+    }
+
+    private static int indexOf(byte[] buf, int from, int to, byte b) {
+        for (int i = from; i < to; i++) if (buf[i] == b) return i;
+        return -1;
+    }
+
+    // ------------------- Compute -------------------
+    static Results compute(Rows rows) {
+        int students = rows.ids.size();
+
+        // Counting sort of row numbers by student so each student's rows are contiguous.
+        int[] start = new int[students + 1];
+        for (int i = 0; i < rows.size; i++) start[rows.student[i] + 1]++;
+        for (int s = 0; s < students; s++) start[s + 1] += start[s];
+        int[] next = Arrays.copyOf(start, students);
+        int[] order = new int[rows.size];
+        for (int i = 0; i < rows.size; i++) order[next[rows.student[i]]++] = i;
+
+        double[] gpa = new double[students];
+        double[] credits = new double[students];
+        ForkJoinPool.commonPool().invoke(new GpaTask(rows, order, start, gpa, credits, 0, students));
+        return new Results(rows.ids, gpa, credits);
+    }
+
+    private static final class GpaTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Rows rows;
+        private final int[] order, start;
+        private final double[] gpa, credits;
+        private final int from, to;
+
+        GpaTask(Rows rows, int[] order, int[] start, double[] gpa, double[] credits, int from, int to) {
+            this.rows = rows;
+            this.order = order;
+            this.start = start;
+            this.gpa = gpa;
+            this.credits = credits;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > STUDENTS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GpaTask(rows, order, start, gpa, credits, from, mid),
+                        new GpaTask(rows, order, start, gpa, credits, mid, to));
+                return;
+            }
+            double[] p = rows.points, c = rows.credits;
+            for (int s = from; s < to; s++) {
+                double weighted = 0, total = 0;
+                for (int k = start[s]; k < start[s + 1]; k++) {
+                    int row = order[k];
+                    weighted += p[row] * c[row];
+                    total += c[row];
+                }
+                credits[s] = total;
+                gpa[s] = total == 0 ? Double.NaN : weighted / total;
+            }
+        }
+    }
+
+    // ------------------- Write -------------------
+    static void write(Path path, Results r) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder(64);
+            for (int s = 0; s < r.ids().size(); s++) {
+                sb.setLength(0);
+                sb.append(r.ids().get(s)).append('|');
+                if (Double.isNaN(r.gpa()[s])) sb.append("N/A");
+                else appendTwoDecimals(sb, r.gpa()[s]);
+                sb.append('|').append(r.credits()[s]).append('\n');
+                w.append(sb);
+            }
+        }
+    }
+
+    /** Appends v rounded to two decimals; avoids a Formatter per row. */
+    private static void appendTwoDecimals(StringBuilder sb, double v) {
+        long hundredths = Math.round(v * 100);
+        sb.append(hundredths / 100).append('.');
+        long frac = hundredths % 100;
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+    }
+
+    private static void generate(Path path, int students, int rowsPerStudent) throws IOException {
+        String[] grades = {"A", "A-", "B+", "B", "B-", "C+", "C", "D", "F", "3.5"};
+        Random rnd = new Random(7);
+        try (BufferedWriter w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int r = 0; r < rowsPerStudent; r++) {
+                for (int s = 0; s < students; s++) {
+                    w.write("G" + (10_000_000 + s) + "|" + grades[rnd.nextInt(grades.length)] + "|" + (1 + rnd.nextInt(4)) + "\n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory trigram inverted index for case-insensitive substring search.
+ * Description:
+ *  - Every added text gets the next document id (0, 1, 2, ...)
+ *  - Each distinct 3-character window of the lowercased text is a key
+ *    whose posting list holds the ids of the documents containing it
+ *  - A query returns the intersection of the posting lists of its own
+ *    trigrams; callers still confirm each candidate with a real contains()
+ *
+ * Posting lists stay sorted because ids only grow, so candidates come back
+ * in insertion order.
+ */
+class TrigramIndex {
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int size;
+
+    /** Indexes the text and returns its document id. */
+    int add(String text) {
+        int id = size++;
+        String s = text.toLowerCase();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            postings.computeIfAbsent(key(s, i), k -> new Postings()).add(id);
+        }
+        return id;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ids of documents that contain every trigram of the query,
+     * or null when the query is shorter than 3 characters and the caller
+     * has to fall back to a full scan.
+     */
+    int[] candidates(String query) {
+        String q = query.toLowerCase();
+        if (q.length() < 3) return null;
+
+        int grams = q.length() - 2;
+        Postings[] lists = new Postings[grams];
+        for (int i = 0; i < grams; i++) {
+            Postings p = postings.get(key(q, i));
+            if (p == null) return new int[0];
+            lists[i] = p;
+        }
+
+        // Start from the shortest list so every step can only shrink the result.
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int len = result.length;
+        for (int i = 1; i < lists.length && len > 0; i++) {
+            if (lists[i] == lists[i - 1]) continue; // repeated trigram in the query
+            len = intersect(result, len, lists[i]);
+        }
+        return len == result.length ? result : Arrays.copyOf(result, len);
+    }
+
+    // ------------------- Helpers -------------------
+    private static long key(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /** Keeps only the ids of {@code acc} that also appear in {@code other}; returns the new length. */
+    private static int intersect(int[] acc, int len, Postings other) {
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < len && j < other.size; i++) {
+            int id = acc[i];
+            while (j < other.size && other.ids[j] < id) j++;
+            if (j < other.size && other.ids[j] == id) acc[out++] = id;
+        }
+        return out;
+    }
+
+    // ------------------- Posting List -------------------
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return; // trigram repeats within one document
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+}
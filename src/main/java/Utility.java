@@ -1,28 +1,60 @@
 import javax.swing.*;
 import java.io.*;
 import java.nio.file.*;
+import java.time.Clock;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Smart Campus Assistant (Utility Tools)
  * Author: Zackaria Zagade
  * Description: A GUI-based utility tool module with:
  *  - Simple Calculator
- *  - Campus Event Scheduler (Add / View)
+ *  - Campus Event Scheduler (Add / View / Delete), with repeating events
+ *  - Reminders 24 hours and 15 minutes before each event
  */
 public class Utility {
 
     private static final String EVENTS_CSV_PATH = "events.csv";
-    private static final DateTimeFormatter DATE_F = DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
-    private static final List<Event> EVENTS_LIST = new ArrayList<>();
+    private static final String EVENTS_SNAPSHOT_PATH = "events.snap";
+    static final DateTimeFormatter DATE_F = DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
+    private static final EventIndex EVENTS = new EventIndex();
+    private static final EventConflicts CONFLICTS = new EventConflicts();
+    static final int MAX_DURATION = 99_999; // what the "90m" field can hold
+    private static final int UPCOMING_COUNT = 10;
+    private static volatile EventStore store; // null while loading or if events.csv could not be opened
+    private static boolean eventsLoading; // EDT only
+    private static final int MAX_REJECTS_SHOWN = 15;
+    private static final int MAX_CONFLICTS_SHOWN = 30;
+    private static final int MAX_REMINDERS_SHOWN = 20;
+    private static final List<ResultView.Column<Event>> EVENT_COLUMNS = List.of(
+            new ResultView.Column<>("Date", e -> e.date.format(DATE_F),
+                    Comparator.comparing((Event e) -> e.date).thenComparingInt(e -> e.minute)),
+            new ResultView.Column<>("Time", e -> e.time, Comparator.comparingInt((Event e) -> e.minute)),
+            ResultView.Column.text("Title", e -> e.title),
+            new ResultView.Column<>("Length", e -> e.duration > 0 ? e.duration + " min" : "",
+                    Comparator.comparingInt((Event e) -> e.duration)),
+            ResultView.Column.text("Venue", e -> e.venue),
+            ResultView.Column.text("Repeats", e -> e.repeat == null ? "" : e.repeat.toString()));
+    private static final int REPEAT_CHECK_DAYS = 366; // how far ahead repeating events are checked for clashes
+    private static final Object BOOKING = new Object(); // makes check-then-book atomic across threads
+    private static final ReminderScheduler REMINDERS =
+            new ReminderScheduler(Clock.systemDefaultZone(), Utility::showReminders);
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(Utility::runApp);
     }
 
     private static void runApp() {
+        REMINDERS.start();
         safeLoadEvents();
 
         int choice;
@@ -32,8 +64,13 @@ public class Utility {
                 case 1 -> calculator();
                 case 2 -> addEvent();
                 case 3 -> viewEvents();
+                case 4 -> deleteEvent();
                 case 0 -> {
-                    safeSaveEvents();
+                    try {
+                        closeEvents();
+                    } catch (IOException e) {
+                        JOptionPane.showMessageDialog(null, "Error saving events: " + e.getMessage());
+                    }
                     JOptionPane.showMessageDialog(null, "Exiting Utility Tools...");
                 }
                 default -> JOptionPane.showMessageDialog(null, "Invalid choice. Try again.");
@@ -47,6 +84,7 @@ public class Utility {
                 1. Simple Calculator
                 2. Add Campus Event
                 3. View Events
+                4. Delete Campus Event
                 0. Exit
                 """;
         String input = JOptionPane.showInputDialog(menu + "\nEnter choice:");
@@ -61,65 +99,52 @@ public class Utility {
 
     // ------------------- Calculator -------------------
     private static void calculator() {
-        JOptionPane.showMessageDialog(null,
-                "You have entered the calculator.\nType 'exit' in any prompt to leave.\nFormat: <number> <operator> <number>\nExample: 4.8 * 4\nOperators: +  -  *  /");
+        JOptionPane.showMessageDialog(null, """
+                You have entered the calculator.
+                Type 'exit' in any prompt to leave.
+                Enter any expression, e.g. (88 * 0.4 + 92 * 0.6) / 10
+                Operators: +  -  *  /  %  ^  and parentheses
+                Functions: sqrt abs round floor ceil ln log exp sin cos tan pow min max
+                Variables: credits = 3, then use credits; 'ans' is the last result""");
 
+        Map<String, Double> variables = new HashMap<>();
         while (true) {
             String input = JOptionPane.showInputDialog("Enter expression (or type 'exit'):");
-            if (input == null || input.equalsIgnoreCase("exit")) return;
+            if (input == null || input.trim().equalsIgnoreCase("exit")) return;
             if (input.trim().isEmpty()) continue;
 
-            String[] parts = input.trim().split("\\s+");
-            if (parts.length != 3) {
-                JOptionPane.showMessageDialog(null, "Use format: number operator number (e.g., 5 * 2)");
-                continue;
+            String text = input.trim();
+            String target = null;
+            int eq = text.indexOf('=');
+            if (eq > 0 && text.substring(0, eq).trim().matches("[A-Za-z_][A-Za-z0-9_]*")) {
+                target = text.substring(0, eq).trim();
+                text = text.substring(eq + 1);
             }
 
+            long t0 = System.nanoTime();
             try {
-                double left = Double.parseDouble(parts[0]);
-                String op = parts[1];
-                double right = Double.parseDouble(parts[2]);
-                double result;
-
-                switch (op) {
-                    case "+" -> result = left + right;
-                    case "-" -> result = left - right;
-                    case "*" -> result = left * right;
-                    case "/" -> {
-                        if (right == 0) {
-                            JOptionPane.showMessageDialog(null, "Error: Cannot divide by 0");
-                            continue;
-                        }
-                        result = left / right;
-                    }
-                    default -> {
-                        JOptionPane.showMessageDialog(null, "Invalid operator. Use +, -, *, or /");
-                        continue;
-                    }
+                double result = Expression.compile(text).evaluate(variables);
+                Metrics.record(Metrics.Op.CALC_EVAL, t0);
+                if (Double.isNaN(result) || Double.isInfinite(result)) {
+                    JOptionPane.showMessageDialog(null, "Error: result is undefined (division by 0?)");
+                    continue;
                 }
-
-                JOptionPane.showMessageDialog(null, "Result: " + result);
-            } catch (NumberFormatException e) {
-                JOptionPane.showMessageDialog(null, "Invalid numbers. Example: 3 * 5");
+                variables.put("ans", result);
+                if (target != null) variables.put(target, result);
+                JOptionPane.showMessageDialog(null, (target != null ? target + " = " : "Result: ") + result);
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, "Error: " + e.getMessage());
             }
         }
     }
 
     // ------------------- Event Scheduler -------------------
     private static void addEvent() {
+        if (stillLoading()) return;
         JOptionPane.showMessageDialog(null, "Add a new campus event.");
 
-        LocalDate date;
-        while (true) {
-            String dateStr = JOptionPane.showInputDialog("Enter event date (yyyy-MM-dd):");
-            if (dateStr == null) return;
-            try {
-                date = LocalDate.parse(dateStr.trim(), DATE_F);
-                break;
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(null, "Use format yyyy-MM-dd (e.g., 2025-03-18)");
-            }
-        }
+        LocalDate date = askDate("Enter event date (yyyy-MM-dd):");
+        if (date == null) return;
 
         String time;
         do {
@@ -129,83 +154,475 @@ public class Utility {
         } while (time.isEmpty());
 
         String title;
-        do {
+        while (true) {
             title = JOptionPane.showInputDialog("Enter event title:");
             if (title == null) return;
             title = title.trim();
-        } while (title.isEmpty());
+            if (title.isEmpty()) continue;
+            if (!Event.readsAsTag(title)) break;
+            JOptionPane.showMessageDialog(null, "A title cannot start with '"
+                    + title.substring(0, title.indexOf(',')) + ",'.");
+        }
+
+        String venue = JOptionPane.showInputDialog("Enter venue (optional, e.g. Main Hall):");
+        if (venue == null) return;
+        venue = venue.trim().replaceAll("\\s+", " ");
+        if (venue.contains(",")) {
+            JOptionPane.showMessageDialog(null, "Venue names cannot contain commas.");
+            return;
+        }
+
+        int duration = 0;
+        while (true) {
+            String d = JOptionPane.showInputDialog("Enter duration in minutes (optional"
+                    + (venue.isEmpty() ? "" : ", default " + EventConflicts.DEFAULT_DURATION) + "):");
+            if (d == null) return;
+            if (d.isBlank()) break;
+            try {
+                duration = Integer.parseInt(d.trim());
+                if (duration > 0 && duration <= MAX_DURATION) break;
+            } catch (NumberFormatException ignored) {
+                // fall through to the message
+            }
+            JOptionPane.showMessageDialog(null, "Enter a whole number of minutes between 1 and " + MAX_DURATION + ".");
+        }
+
+        String repeatChoice = JOptionPane.showInputDialog("""
+                Does this event repeat?
+                0. No (default)
+                1. Daily
+                2. Weekly
+                3. Monthly (on day %d)
+                """.formatted(date.getDayOfMonth()) + "\nEnter choice:");
+        if (repeatChoice == null) return;
+        Recurrence repeat = null;
+        if (!repeatChoice.isBlank() && !repeatChoice.trim().equals("0")) {
+            Recurrence.Frequency frequency = switch (repeatChoice.trim()) {
+                case "1" -> Recurrence.Frequency.DAILY;
+                case "2" -> Recurrence.Frequency.WEEKLY;
+                case "3" -> Recurrence.Frequency.MONTHLY;
+                default -> null;
+            };
+            if (frequency == null) {
+                JOptionPane.showMessageDialog(null, "Invalid choice.");
+                return;
+            }
+            repeat = askRepeat(date, frequency);
+            if (repeat == null) return;
+        }
+
+        Event event;
+        try {
+            event = Event.checked(date, time, title, duration, venue, repeat);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
+            return;
+        }
+        List<Event> clashes = clashesWith(event);
+        if (!clashes.isEmpty()) {
+            StringBuilder sb = new StringBuilder(venue + " is already booked at that time:\n\n");
+            clashes.stream().limit(MAX_CONFLICTS_SHOWN).forEach(c -> sb.append(c).append("\n"));
+            if (clashes.size() > MAX_CONFLICTS_SHOWN) {
+                sb.append("... and ").append(clashes.size() - MAX_CONFLICTS_SHOWN).append(" more\n");
+            }
+            int answer = JOptionPane.showConfirmDialog(null, sb + "\nBook it anyway?", "Scheduling conflict",
+                    JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (answer != JOptionPane.YES_OPTION) return;
+        }
+
+        if (save(() -> bookEvent(event))) JOptionPane.showMessageDialog(null, "Event added successfully!");
+    }
+
+    /** Asks for the weekdays (weekly only) and the end of a repeating event; null on cancel. */
+    private static Recurrence askRepeat(LocalDate date, Recurrence.Frequency frequency) {
+        Set<DayOfWeek> days = Set.of();
+        while (frequency == Recurrence.Frequency.WEEKLY) {
+            String s = JOptionPane.showInputDialog("Repeat on which weekdays? (e.g. Mon, Wed; blank = "
+                    + date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.US) + ")");
+            if (s == null) return null;
+            try {
+                days = Recurrence.parseDays(s, "[,\\s]+");
+                break;
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, "Error: " + e.getMessage());
+            }
+        }
+
+        while (true) {
+            String s = JOptionPane.showInputDialog("When does it end? Enter the last date (yyyy-MM-dd),\n"
+                    + "a number of times (e.g. 10), or leave blank to repeat with no end:");
+            if (s == null) return null;
+            s = s.trim();
+            try {
+                LocalDate until = null;
+                int count = 0;
+                if (s.matches("\\d{1,5}")) {
+                    count = Integer.parseInt(s);
+                    if (count == 0) throw new IllegalArgumentException("count must be 1 to " + Recurrence.MAX_COUNT);
+                } else if (!s.isEmpty()) {
+                    until = LocalDate.parse(s, DATE_F);
+                }
+                Recurrence repeat = new Recurrence(frequency, days, until, count);
+                if ((until != null || count > 0) && repeat.last(date) == null) {
+                    throw new IllegalArgumentException("the event would end before it first takes place");
+                }
+                return repeat;
+            } catch (DateTimeParseException e) {
+                JOptionPane.showMessageDialog(null, "Invalid date. Please use yyyy-MM-dd.");
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, "Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Booked events whose slot overlaps the new event; for a repeating event,
+     * any of its occurrences in its first REPEAT_CHECK_DAYS days.
+     */
+    static List<Event> clashesWith(Event event) {
+        if (event.venue.isEmpty()) return List.of();
+        List<Event> occurrences = new ArrayList<>();
+        if (event.repeat == null) {
+            occurrences.add(event);
+        } else {
+            LocalDate end = event.date.plusDays(REPEAT_CHECK_DAYS);
+            for (Iterator<LocalDate> it = event.dates(event.date); it.hasNext(); ) {
+                LocalDate d = it.next();
+                if (d.isAfter(end)) break;
+                occurrences.add(event.on(d));
+            }
+        }
+
+        List<Event> out = new ArrayList<>();
+        for (Event occurrence : occurrences) {
+            out.addAll(CONFLICTS.conflictsWith(occurrence)); // one-off bookings
+            List<Event> sameDay = new ArrayList<>(List.of(occurrence)); // plus other repeating events that day
+            sameDay.addAll(EVENTS.recurringOn(event.venue, occurrence.date));
+            if (sameDay.size() == 1) continue;
+            for (EventConflicts.Conflict c : EventConflicts.findAll(sameDay)) {
+                if (c.first() == occurrence) out.add(c.second());
+                else if (c.second() == occurrence) out.add(c.first());
+            }
+        }
+        return out;
+    }
+
+    private static void deleteEvent() {
+        if (stillLoading()) return;
+        if (EVENTS.isEmpty()) {
+            JOptionPane.showMessageDialog(null, "No events available. Add one first.");
+            return;
+        }
 
-        EVENTS_LIST.add(new Event(date, time, title));
-        safeSaveEvents();
-        JOptionPane.showMessageDialog(null, "Event added successfully!");
+        Event event = ResultView.pick("Which event should be deleted?", "No events available.", EVENT_COLUMNS,
+                EVENTS::all, "Delete");
+        if (event == null) return;
+        if (save(() -> cancelEvent(event))) JOptionPane.showMessageDialog(null, "Event deleted: " + event);
     }
 
     private static void viewEvents() {
-        if (EVENTS_LIST.isEmpty()) {
+        if (stillLoading()) return;
+        if (EVENTS.isEmpty()) {
             JOptionPane.showMessageDialog(null, "No events available. Add one first.");
             return;
         }
 
-        StringBuilder sb = new StringBuilder("Your Campus Events:\n\n");
-        EVENTS_LIST.stream()
-                .sorted(Comparator.comparing((Event e) -> e.date)
-                        .thenComparing(e -> e.time.toLowerCase(Locale.ROOT)))
-                .forEach(e -> sb.append(e).append("\n"));
+        String input = JOptionPane.showInputDialog("""
+                View which events?
+                1. All events
+                2. This week
+                3. Next %d upcoming
+                4. A given day
+                5. A date range
+                6. Scheduling conflicts
+                """.formatted(UPCOMING_COUNT) + "\nEnter choice:");
+        if (input == null) return;
 
+        LocalDate today = LocalDate.now();
+        String heading;
+        Supplier<List<Event>> events; // run off the EDT by ResultView
+        switch (input.trim()) {
+            case "1" -> {
+                heading = "Your Campus Events (repeating events listed once)";
+                events = EVENTS::all;
+            }
+            case "2" -> {
+                LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                heading = "This Week (" + monday.format(DATE_F) + " to " + monday.plusDays(6).format(DATE_F) + ")";
+                events = () -> EVENTS.between(monday, monday.plusDays(6));
+            }
+            case "3" -> {
+                heading = "Next " + UPCOMING_COUNT + " Events";
+                LocalDateTime now = LocalDateTime.now();
+                events = () -> EVENTS.upcoming(now, UPCOMING_COUNT);
+            }
+            case "4" -> {
+                LocalDate day = askDate("Enter day (yyyy-MM-dd):");
+                if (day == null) return;
+                heading = "Events on " + day.format(DATE_F);
+                events = () -> EVENTS.onDay(day);
+            }
+            case "5" -> {
+                LocalDate from = askDate("Enter first day (yyyy-MM-dd):");
+                if (from == null) return;
+                LocalDate to = askDate("Enter last day (yyyy-MM-dd):");
+                if (to == null) return;
+                heading = "Events from " + from.format(DATE_F) + " to " + to.format(DATE_F);
+                events = () -> EVENTS.between(from, to);
+            }
+            case "6" -> {
+                showConflicts();
+                return;
+            }
+            default -> {
+                JOptionPane.showMessageDialog(null, "Invalid choice.");
+                return;
+            }
+        }
+
+        ResultView.show(heading, "(none)", EVENT_COLUMNS, events);
+    }
+
+    /** Every double booking in the calendar, found in one sweep; repeating events over the coming year. */
+    private static void showConflicts() {
+        LocalDate today = LocalDate.now(), end = today.plusDays(REPEAT_CHECK_DAYS);
+        List<Event> calendar = new ArrayList<>();
+        for (Event e : EVENTS.all()) {
+            if (e.repeat == null) calendar.add(e);
+        }
+        for (Event e : EVENTS.between(today, end)) {
+            if (e.series != null) calendar.add(e);
+        }
+        List<EventConflicts.Conflict> all = EventConflicts.findAll(calendar);
+        StringBuilder sb = new StringBuilder("Scheduling Conflicts (repeating events checked through "
+                + end.format(DATE_F) + "):\n\n");
+        if (all.isEmpty()) sb.append("(none)\n");
+        all.stream().limit(MAX_CONFLICTS_SHOWN).forEach(c -> sb.append(c).append("\n"));
+        if (all.size() > MAX_CONFLICTS_SHOWN) {
+            sb.append("... and ").append(all.size() - MAX_CONFLICTS_SHOWN).append(" more\n");
+        }
         JOptionPane.showMessageDialog(null, sb.toString());
     }
 
-    // ------------------- File Handling -------------------
-    private static void safeLoadEvents() {
-        if (!Files.exists(Paths.get(EVENTS_CSV_PATH))) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(EVENTS_CSV_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                try {
-                    EVENTS_LIST.add(Event.fromCsv(line));
-                } catch (Exception ignored) {}
+    /** Prompts until a valid date is entered; null on cancel. */
+    private static LocalDate askDate(String prompt) {
+        while (true) {
+            String s = JOptionPane.showInputDialog(prompt);
+            if (s == null) return null;
+            try {
+                return LocalDate.parse(s.trim(), DATE_F);
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Use format yyyy-MM-dd (e.g., 2025-03-18)");
             }
+        }
+    }
+
+    // ------------------- Reminders -------------------
+    /** Called on the reminder thread with everything that came due at once; shows one dialog on the EDT. */
+    private static void showReminders(List<ReminderScheduler.Reminder> due) {
+        StringBuilder sb = new StringBuilder("Upcoming events:\n\n");
+        due.stream().limit(MAX_REMINDERS_SHOWN).forEach(r -> sb.append(r).append("\n"));
+        if (due.size() > MAX_REMINDERS_SHOWN) {
+            sb.append("... and ").append(due.size() - MAX_REMINDERS_SHOWN).append(" more\n");
+        }
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, sb.toString(), "Reminder",
+                JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    // ------------------- Shared Access -------------------
+    /**
+     * Loads events.csv (from events.snap when that is up to date) into the
+     * calendar and opens it for appending; used by the GUI and CampusServer.
+     */
+    static EventFile.LoadResult openEvents() throws IOException {
+        long t0 = System.nanoTime();
+        Path path = Paths.get(EVENTS_CSV_PATH);
+        EventFile.LoadResult r = Files.exists(path)
+                ? EventFile.loadCached(path, Paths.get(EVENTS_SNAPSHOT_PATH)) : EventFile.LoadResult.EMPTY;
+        EVENTS.addAll(r.events());
+        CONFLICTS.addAll(r.events());
+        REMINDERS.scheduleAll(r.events());
+        store = EventStore.open(path, r);
+        Metrics.record(Metrics.Op.EVENT_LOAD, t0);
+        return r;
+    }
+
+    /** Closes events.csv and snapshots the calendar, so the next start need not parse the CSV. */
+    static void closeEvents() throws IOException {
+        REMINDERS.close();
+        EventStore s = store;
+        if (s == null) return;
+        s.close();
+        Path path = Paths.get(EVENTS_CSV_PATH);
+        try {
+            EventFile.writeSnapshot(Paths.get(EVENTS_SNAPSHOT_PATH), EVENTS.all(), s.records(),
+                    SnapshotFile.sourceStamp(path));
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error loading events: " + e.getMessage());
+            System.err.println("Could not write " + EVENTS_SNAPSHOT_PATH + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the event to the calendar and, if events.csv is open, waits until
+     * it is on disk. If saving fails the event is taken off the calendar
+     * again before the exception is rethrown, so it does not hold the slot.
+     */
+    static void bookEvent(Event e) {
+        long t0 = System.nanoTime();
+        try {
+            EventStore s = addToCalendar(e);
+            if (s != null) syncOrUnbook(s, List.of(e));
+        } finally {
+            Metrics.record(Metrics.Op.EVENT_ADD, t0);
         }
     }
 
-    private static void safeSaveEvents() {
-        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(EVENTS_CSV_PATH)))) {
-            for (Event e : EVENTS_LIST) {
-                pw.println(e.toCsv());
+    /**
+     * Books a batch of events in order and syncs events.csv once for all of
+     * them. Unless {@code force}, an event that clashes with a booking (also
+     * one made earlier in the batch) is skipped; booked[i] tells whether
+     * batch.get(i) was booked.
+     */
+    static boolean[] bookEvents(List<Event> batch, boolean force) {
+        boolean[] booked = new boolean[batch.size()];
+        List<Event> added = new ArrayList<>(batch.size());
+        EventStore s = store;
+        synchronized (BOOKING) {
+            try {
+                for (int i = 0; i < booked.length; i++) {
+                    Event e = batch.get(i);
+                    if (!force && !clashesWith(e).isEmpty()) continue;
+                    addToCalendar(e);
+                    added.add(e);
+                    booked[i] = true;
+                }
+            } catch (RuntimeException ex) {
+                added.forEach(Utility::unbook);
+                throw ex;
             }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error saving events: " + e.getMessage());
         }
+        if (s != null) syncOrUnbook(s, added);
+        return booked;
     }
 
-    // ------------------- Event Class -------------------
-    private static final class Event {
-        final LocalDate date;
-        final String time;
-        final String title;
+    /** Puts the event on the calendar and queues it for events.csv; on failure nothing is left booked. */
+    private static EventStore addToCalendar(Event e) {
+        EVENTS.add(e);
+        CONFLICTS.add(e);
+        REMINDERS.schedule(e);
+        EventStore s = store;
+        if (s != null) {
+            try {
+                s.add(e);
+            } catch (RuntimeException ex) {
+                unbook(e);
+                throw ex;
+            }
+        }
+        return s;
+    }
 
-        Event(LocalDate date, String time, String title) {
-            this.date = date;
-            this.time = time;
-            this.title = title;
+    private static void syncOrUnbook(EventStore s, List<Event> added) {
+        try {
+            s.sync();
+        } catch (RuntimeException ex) {
+            added.forEach(Utility::unbook);
+            throw ex;
         }
+    }
+
+    private static void unbook(Event e) {
+        if (!EVENTS.remove(e)) return;
+        CONFLICTS.remove(e);
+        REMINDERS.cancel(e);
+    }
 
-        String toCsv() {
-            return date.format(DATE_F) + "," + time + "," + title;
+    /**
+     * Books the event unless it clashes with another booking (checked and
+     * added atomically); returns the clashes, empty if it was booked.
+     */
+    static List<Event> bookUnlessClash(Event e) {
+        synchronized (BOOKING) {
+            List<Event> clashes = clashesWith(e);
+            if (clashes.isEmpty()) bookEvent(e);
+            return clashes;
         }
+    }
 
-        static Event fromCsv(String line) {
-            String[] parts = line.split(",", 3);
-            LocalDate d = LocalDate.parse(parts[0], DATE_F);
-            return new Event(d, parts[1], parts[2]);
+    /** Removes the event (an entry of the calendar, not an occurrence); false if it was not there. */
+    static boolean cancelEvent(Event e) {
+        long t0 = System.nanoTime();
+        try {
+            if (!EVENTS.remove(e)) return false;
+            CONFLICTS.remove(e);
+            REMINDERS.cancel(e);
+            EventStore s = store;
+            if (s != null) {
+                s.remove(e);
+                s.sync();
+            }
+            return true;
+        } finally {
+            Metrics.record(Metrics.Op.EVENT_CANCEL, t0);
         }
+    }
+
+    /** Package-private view of the calendar for CampusServer. */
+    static EventIndex calendar() {
+        return EVENTS;
+    }
 
-        @Override
-        public String toString() {
-            return date.format(DATE_F) + " " + time + " - " + title;
+    // ------------------- File Handling -------------------
+    /** Loads events.csv on a background thread; the menu stays usable meanwhile. */
+    private static void safeLoadEvents() {
+        eventsLoading = true;
+        new SwingWorker<EventFile.LoadResult, Void>() {
+            @Override
+            protected EventFile.LoadResult doInBackground() throws IOException {
+                return openEvents();
+            }
+
+            @Override
+            protected void done() {
+                eventsLoading = false;
+                try {
+                    EventFile.LoadResult r = get();
+                    if (!r.rejected().isEmpty()) showRejected(r);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(null, "Error loading events: " + cause.getMessage()
+                            + "\nNew events will not be saved.");
+                }
+            }
+        }.execute();
+    }
+
+    private static void showRejected(EventFile.LoadResult r) {
+        StringBuilder sb = new StringBuilder(r.rejected().size() + " line(s) in " + EVENTS_CSV_PATH
+                + " could not be loaded and were skipped:\n\n");
+        r.rejected().stream().limit(MAX_REJECTS_SHOWN).forEach(x -> sb.append(x).append("\n"));
+        if (r.rejected().size() > MAX_REJECTS_SHOWN) {
+            sb.append("... and ").append(r.rejected().size() - MAX_REJECTS_SHOWN).append(" more\n");
+        }
+        JOptionPane.showMessageDialog(null, sb.toString());
+    }
+
+    private static boolean stillLoading() {
+        if (eventsLoading) {
+            JOptionPane.showMessageDialog(null, "Events are still loading from " + EVENTS_CSV_PATH
+                    + ", try again in a moment.");
+        }
+        return eventsLoading;
+    }
+
+    /** Applies one change (which waits until it is on disk); false (after telling the user) on error. */
+    private static boolean save(Runnable change) {
+        try {
+            change.run();
+            return true;
+        } catch (RuntimeException e) {
+            JOptionPane.showMessageDialog(null, "Error saving events: " + e.getMessage());
+            return false;
         }
     }
 }